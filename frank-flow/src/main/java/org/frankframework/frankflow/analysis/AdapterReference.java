@@ -0,0 +1,57 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.analysis;
+
+/**
+ * Reference from an adapter (or scheduler job) to another adapter, either by JavaListener name or by adapter name.
+ *
+ * @param kind what is being referenced
+ * @param target the (JavaListener or adapter) name, adapter names may be prefixed with a configuration name, eg. <code>config/adapter</code>
+ * @param line line number of the referencing element
+ */
+public record AdapterReference(Kind kind, String target, int line) {
+
+	public enum Kind {
+		/** IbisLocalSender or FrankSender (JVM scope) pointing to a JavaListener */
+		JAVA_LISTENER,
+		/** FrankSender (ADAPTER scope) pointing to an adapter */
+		ADAPTER,
+		/** Scheduler job pointing to a JavaListener */
+		JOB
+	}
+
+	/**
+	 * @return the configuration name when the target is prefixed with one, else <code>null</code>.
+	 */
+	public String targetConfiguration() {
+		if(kind != Kind.ADAPTER) {
+			return null;
+		}
+		int i = target.indexOf('/');
+		return i > 0 ? target.substring(0, i) : null;
+	}
+
+	/**
+	 * @return the target without configuration name.
+	 */
+	public String targetName() {
+		if(kind != Kind.ADAPTER) {
+			return target;
+		}
+		int i = target.indexOf('/');
+		return i > 0 ? target.substring(i + 1) : target;
+	}
+}
@@ -0,0 +1,48 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.analysis;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Everything the reference graph needs to know about a single adapter.
+ */
+public class AdapterSummary {
+
+	private final @Getter String name;
+	private final @Getter int line;
+	private @Getter @Setter String firstPipe;
+
+	private final @Getter List<PipeSummary> pipes = new ArrayList<>();
+	private final @Getter List<String> exits = new ArrayList<>();
+	private final @Getter List<ForwardSummary> globalForwards = new ArrayList<>();
+	private final @Getter List<String> javaListeners = new ArrayList<>();
+	private final @Getter List<AdapterReference> references = new ArrayList<>();
+
+	public AdapterSummary(String name, int line) {
+		this.name = name;
+		this.line = line;
+	}
+
+	@Override
+	public String toString() {
+		return "Adapter [" + name + "]";
+	}
+}
@@ -0,0 +1,202 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.analysis;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Streams through a configuration file (StAX) and collects the adapters, pipes, forwards and references to other adapters.
+ * Both the 'beautiful' and the classic (<code>className</code>) syntax are supported.
+ * DTDs are not processed, entity references (eg. included configuration files) are skipped, they are parsed as separate files.
+ */
+public class ConfigurationFileParser {
+	private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+	/** Children of a Pipeline that are not a pipe */
+	private static final Set<String> NON_PIPE_ELEMENTS = Set.of("exits", "exit", "forward", "globalforwards", "global-forwards", "locker", "cache", "param");
+	private static final List<String> NON_PIPE_SUFFIXES = List.of("inputvalidator", "outputvalidator", "inputwrapper", "outputwrapper", "errormessageformatter");
+
+	private final Deque<String> elements = new ArrayDeque<>();
+	private final FileSummary summary = new FileSummary();
+	private AdapterSummary adapter;
+	private PipeSummary pipe;
+	private int pipelineDepth = -1;
+	private int pipeDepth = -1;
+	private int globalForwardsDepth = -1;
+
+	private static XMLInputFactory createInputFactory() {
+		XMLInputFactory factory = XMLInputFactory.newFactory();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		factory.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, false);
+		return factory;
+	}
+
+	private ConfigurationFileParser() {
+		// Use the static parse method
+	}
+
+	public static FileSummary parse(Path file) throws IOException {
+		try (InputStream is = Files.newInputStream(file)) {
+			return parse(is);
+		}
+	}
+
+	public static FileSummary parse(InputStream is) {
+		ConfigurationFileParser parser = new ConfigurationFileParser();
+		XMLStreamReader reader = null;
+		try {
+			reader = INPUT_FACTORY.createXMLStreamReader(is);
+			while(reader.hasNext()) {
+				int event = reader.next();
+				if(event == XMLStreamConstants.START_ELEMENT) {
+					parser.startElement(reader);
+				} else if(event == XMLStreamConstants.END_ELEMENT) {
+					parser.endElement();
+				}
+			}
+		} catch (XMLStreamException e) {
+			parser.summary.setParseError(e.getMessage());
+			parser.summary.setParseErrorLine(e.getLocation() != null ? e.getLocation().getLineNumber() : -1);
+		} finally {
+			closeQuietly(reader);
+		}
+		return parser.summary;
+	}
+
+	private static void closeQuietly(XMLStreamReader reader) {
+		if(reader != null) {
+			try {
+				reader.close();
+			} catch (XMLStreamException e) {
+				// Nothing to do here
+			}
+		}
+	}
+
+	private void startElement(XMLStreamReader reader) {
+		String name = reader.getLocalName().toLowerCase();
+		String className = StringUtils.defaultString(reader.getAttributeValue(null, "className"));
+		int line = reader.getLocation().getLineNumber();
+		int depth = elements.size();
+		elements.push(name);
+
+		if("adapter".equals(name)) {
+			adapter = new AdapterSummary(reader.getAttributeValue(null, "name"), line);
+			summary.getAdapters().add(adapter);
+			return;
+		}
+		if("job".equals(name)) {
+			addReference(AdapterReference.Kind.JOB, reader.getAttributeValue(null, "javaListener"), line);
+			return;
+		}
+		if(adapter == null) {
+			return;
+		}
+
+		if("pipeline".equals(name)) {
+			pipelineDepth = depth;
+			adapter.setFirstPipe(StringUtils.trimToNull(reader.getAttributeValue(null, "firstPipe")));
+		} else if(depth == pipelineDepth + 1 && pipelineDepth >= 0 && isPipe(name)) {
+			pipe = new PipeSummary(reader.getAttributeValue(null, "name"), reader.getLocalName(), line);
+			pipeDepth = depth;
+			adapter.getPipes().add(pipe);
+		} else if("globalforwards".equals(name) || "global-forwards".equals(name)) {
+			globalForwardsDepth = depth;
+		} else if("forward".equals(name)) {
+			ForwardSummary forward = new ForwardSummary(reader.getAttributeValue(null, "name"), reader.getAttributeValue(null, "path"), line);
+			if(pipe != null && depth == pipeDepth + 1) {
+				pipe.getForwards().add(forward);
+			} else if(depth == pipelineDepth + 1 || depth == globalForwardsDepth + 1 || (pipelineDepth >= 0 && depth == pipelineDepth + 2)) {
+				// Forwards of the Pipeline itself, Global-Forwards or of input validators/wrappers
+				adapter.getGlobalForwards().add(forward);
+			}
+		} else if("exit".equals(name)) {
+			String exit = StringUtils.defaultIfEmpty(reader.getAttributeValue(null, "name"), reader.getAttributeValue(null, "path"));
+			if(StringUtils.isNotEmpty(exit)) {
+				adapter.getExits().add(exit);
+			}
+		} else if("javalistener".equals(name) || className.endsWith(".JavaListener")) {
+			String listenerName = reader.getAttributeValue(null, "name");
+			if(StringUtils.isNotEmpty(listenerName)) {
+				adapter.getJavaListeners().add(listenerName);
+			}
+		} else if("ibislocalsender".equals(name) || className.endsWith(".IbisLocalSender")) {
+			addReference(AdapterReference.Kind.JAVA_LISTENER, reader.getAttributeValue(null, "javaListener"), line);
+		} else if("franksender".equals(name) || className.endsWith(".FrankSender")) {
+			String scope = reader.getAttributeValue(null, "scope");
+			String target = reader.getAttributeValue(null, "target");
+			if(scope == null || "ADAPTER".equalsIgnoreCase(scope)) {
+				addReference(AdapterReference.Kind.ADAPTER, target, line);
+			} else if("JVM".equalsIgnoreCase(scope)) {
+				addReference(AdapterReference.Kind.JAVA_LISTENER, target, line);
+			}
+		}
+	}
+
+	/**
+	 * Whether the (lower case) child element of a Pipeline is a pipe.
+	 */
+	public static boolean isPipe(String name) {
+		return !NON_PIPE_ELEMENTS.contains(name) && NON_PIPE_SUFFIXES.stream().noneMatch(name::endsWith);
+	}
+
+	private void addReference(AdapterReference.Kind kind, String target, int line) {
+		// Skip empty and dynamic (property based) references, they cannot be resolved at design time
+		if(StringUtils.isEmpty(target) || target.contains("${")) {
+			return;
+		}
+		AdapterReference reference = new AdapterReference(kind, target, line);
+		if(adapter != null) {
+			adapter.getReferences().add(reference);
+		} else {
+			summary.getReferences().add(reference);
+		}
+	}
+
+	private void endElement() {
+		String name = elements.pop();
+		int depth = elements.size();
+		if("adapter".equals(name)) {
+			adapter = null;
+			pipe = null;
+			pipelineDepth = -1;
+			pipeDepth = -1;
+			globalForwardsDepth = -1;
+		} else if(depth == pipeDepth) {
+			pipe = null;
+			pipeDepth = -1;
+		} else if(depth == pipelineDepth) {
+			pipelineDepth = -1;
+		} else if(depth == globalForwardsDepth) {
+			globalForwardsDepth = -1;
+		}
+	}
+}
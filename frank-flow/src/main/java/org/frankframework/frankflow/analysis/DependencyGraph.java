@@ -0,0 +1,188 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.analysis;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.frankframework.frankflow.dto.AffectedAdapterDTO;
+import org.frankframework.frankflow.dto.ConfigurationDTO;
+import org.frankframework.frankflow.dto.ConfigurationDependenciesDTO;
+import org.frankframework.frankflow.dto.ImpactDTO;
+
+/**
+ * Dependencies between all configurations: the parent/child relations ({@link ConfigurationDTO#getParent()}) and the
+ * references of adapters (and scheduler jobs) to adapters in other configurations.
+ * Created from the {@link ReferenceGraph} of every configuration, building it does not require any I/O.
+ */
+public class DependencyGraph {
+
+	private record AdapterKey(String configuration, String adapter) {
+		@Override
+		public String toString() {
+			return configuration + "/" + adapter;
+		}
+	}
+
+	/** An adapter (or a file, for references outside of adapters) that references another adapter */
+	private record Dependent(String configuration, String path, String adapter, int line) {}
+
+	private final Map<String, ReferenceGraph> graphs;
+	private final Map<String, String> parents = new TreeMap<>();
+	private final Map<String, Set<String>> children = new HashMap<>();
+	private final Map<String, List<AdapterKey>> javaListeners = new HashMap<>();
+	private final Map<AdapterKey, List<Dependent>> dependents = new HashMap<>();
+	private final Map<String, Set<String>> dependsOn = new HashMap<>();
+	private final Map<String, Set<String>> dependentConfigurations = new HashMap<>();
+
+	/**
+	 * @param graphs the reference graph of each configuration, by configuration name
+	 */
+	public DependencyGraph(List<ConfigurationDTO> configurations, Map<String, ReferenceGraph> graphs) {
+		this.graphs = graphs;
+		for(ConfigurationDTO configuration : configurations) {
+			parents.put(configuration.getName(), configuration.getParent());
+			if(configuration.getParent() != null) {
+				children.computeIfAbsent(configuration.getParent(), e -> new TreeSet<>()).add(configuration.getName());
+			}
+		}
+
+		// JavaListeners are registered JVM wide, they may be called from any configuration
+		graphs.forEach((configuration, graph) -> graph.getFiles().values().forEach(summary -> {
+			for(AdapterSummary adapter : summary.getAdapters()) {
+				for(String listener : adapter.getJavaListeners()) {
+					javaListeners.computeIfAbsent(listener, e -> new ArrayList<>()).add(new AdapterKey(configuration, adapter.getName()));
+				}
+			}
+		}));
+
+		graphs.forEach((configuration, graph) -> graph.getFiles().forEach((path, summary) -> {
+			for(AdapterSummary adapter : summary.getAdapters()) {
+				addReferences(new Dependent(configuration, path, adapter.getName(), adapter.getLine()), adapter.getReferences());
+			}
+			addReferences(new Dependent(configuration, path, null, 0), summary.getReferences());
+		}));
+	}
+
+	private void addReferences(Dependent source, Collection<AdapterReference> references) {
+		for(AdapterReference reference : references) {
+			Dependent dependent = new Dependent(source.configuration(), source.path(), source.adapter(), reference.line());
+			for(AdapterKey target : resolve(source.configuration(), reference)) {
+				dependents.computeIfAbsent(target, e -> new ArrayList<>()).add(dependent);
+				if(!target.configuration().equals(source.configuration())) {
+					dependsOn.computeIfAbsent(source.configuration(), e -> new TreeSet<>()).add(target.configuration());
+					dependentConfigurations.computeIfAbsent(target.configuration(), e -> new TreeSet<>()).add(source.configuration());
+				}
+			}
+		}
+	}
+
+	private List<AdapterKey> resolve(String configuration, AdapterReference reference) {
+		if(reference.kind() != AdapterReference.Kind.ADAPTER) {
+			return javaListeners.getOrDefault(reference.target(), List.of());
+		}
+
+		String targetConfiguration = reference.targetConfiguration() != null ? reference.targetConfiguration() : configuration;
+		ReferenceGraph graph = graphs.get(targetConfiguration);
+		if(graph == null || !graph.getAdapterNames().contains(reference.targetName())) {
+			return List.of();
+		}
+		return List.of(new AdapterKey(targetConfiguration, reference.targetName()));
+	}
+
+	public List<ConfigurationDependenciesDTO> getConfigurations() {
+		List<ConfigurationDependenciesDTO> result = new ArrayList<>();
+		for(Map.Entry<String, String> entry : parents.entrySet()) {
+			String name = entry.getKey();
+			ConfigurationDependenciesDTO dto = new ConfigurationDependenciesDTO();
+			dto.setName(name);
+			dto.setParent(entry.getValue());
+			dto.setChildren(List.copyOf(children.getOrDefault(name, Set.of())));
+			dto.setDependsOn(List.copyOf(dependsOn.getOrDefault(name, Set.of())));
+			dto.setDependents(List.copyOf(dependentConfigurations.getOrDefault(name, Set.of())));
+			result.add(dto);
+		}
+		return result;
+	}
+
+	/**
+	 * Determines what is affected by a change of the given file: the adapters that (directly or indirectly) call an adapter
+	 * defined in the file, and all configurations that inherit from the configuration.
+	 */
+	public ImpactDTO getImpact(String configuration, String path) {
+		ImpactDTO impact = new ImpactDTO();
+		impact.setConfiguration(configuration);
+		impact.setPath(path);
+
+		ReferenceGraph graph = graphs.get(configuration);
+		FileSummary summary = graph != null ? graph.getFiles().get(path) : null;
+		List<String> adapters = new ArrayList<>();
+		Deque<AdapterKey> queue = new ArrayDeque<>();
+		Map<AdapterKey, Integer> depths = new HashMap<>();
+		if(summary != null) {
+			for(AdapterSummary adapter : summary.getAdapters()) {
+				if(adapter.getName() != null) {
+					adapters.add(adapter.getName());
+					AdapterKey key = new AdapterKey(configuration, adapter.getName());
+					depths.put(key, 0);
+					queue.add(key);
+				}
+			}
+		}
+		impact.setAdapters(adapters);
+
+		List<AffectedAdapterDTO> affected = new ArrayList<>();
+		while(!queue.isEmpty()) {
+			AdapterKey target = queue.poll();
+			int depth = depths.get(target) + 1;
+			for(Dependent dependent : dependents.getOrDefault(target, List.of())) {
+				AdapterKey key = dependent.adapter() != null ? new AdapterKey(dependent.configuration(), dependent.adapter()) : null;
+				if(key != null && depths.containsKey(key)) {
+					continue;
+				}
+				affected.add(new AffectedAdapterDTO(dependent.configuration(), dependent.path(), dependent.adapter(), dependent.line(), target.toString(), depth));
+				if(key != null) {
+					depths.put(key, depth);
+					queue.add(key);
+				}
+			}
+		}
+		impact.setAffectedAdapters(affected);
+
+		Set<String> affectedConfigurations = new LinkedHashSet<>();
+		Deque<String> configurations = new ArrayDeque<>(children.getOrDefault(configuration, Set.of()));
+		Set<String> seen = new HashSet<>(Set.of(configuration));
+		while(!configurations.isEmpty()) {
+			String child = configurations.poll();
+			if(seen.add(child)) {
+				affectedConfigurations.add(child);
+				configurations.addAll(children.getOrDefault(child, Set.of()));
+			}
+		}
+		impact.setAffectedConfigurations(List.copyOf(affectedConfigurations));
+		return impact;
+	}
+}
@@ -0,0 +1,119 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.analysis;
+
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.frankframework.frankflow.dto.ConfigurationDTO;
+import org.frankframework.frankflow.event.ConfigurationsChangedEvent;
+import org.frankframework.frankflow.event.FileChangedEvent;
+import org.frankframework.frankflow.storage.StorageService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the {@link DependencyGraph} of all configurations.
+ * <p>
+ * The {@link ReferenceGraph} of each configuration is retained, and only retrieved again (which parses the modified files)
+ * after a file of that configuration has changed ({@link FileChangedEvent}), or once it's older than
+ * <code>frank-flow.configurations.refresh-interval</code> seconds to pick up changes made outside of the Frank!Flow.
+ * The dependency graph is then rebuilt from the retained reference graphs, which requires no I/O.
+ * </p>
+ * <p>
+ * Events only record the change, without taking the monitor, so saving a file never has to wait for a graph that's being built.
+ * </p>
+ */
+@Component
+public class DependencyGraphService {
+	private static final Logger log = LogManager.getLogger(DependencyGraphService.class);
+
+	private final Map<String, IndexedGraph> graphs = new HashMap<>();
+	private final Set<String> changed = ConcurrentHashMap.newKeySet();
+	private volatile boolean configurationsChanged = false;
+	private List<ConfigurationDTO> configurations;
+	private DependencyGraph dependencyGraph;
+
+	@Autowired
+	private ReferenceGraphService referenceGraphService;
+
+	@Autowired
+	private StorageService storageService;
+
+	@Value("${frank-flow.configurations.refresh-interval:60}")
+	private long refreshInterval;
+
+	private record IndexedGraph(ReferenceGraph graph, long loadedAt) {}
+
+	public synchronized DependencyGraph getDependencyGraph(List<ConfigurationDTO> configurations) {
+		boolean rebuild = dependencyGraph == null || !configurations.equals(this.configurations);
+		if(configurationsChanged) {
+			configurationsChanged = false;
+			rebuild = true;
+		}
+		long now = System.nanoTime();
+
+		Map<String, ConfigurationDTO> byName = new HashMap<>();
+		configurations.forEach(e -> byName.put(e.getName(), e));
+		rebuild |= graphs.keySet().retainAll(byName.keySet());
+
+		for(ConfigurationDTO configuration : configurations) {
+			IndexedGraph indexed = graphs.get(configuration.getName());
+			// Removed before the graph is retrieved, so changes made in the meantime are picked up by the next call
+			boolean modified = changed.remove(configuration.getName());
+			if(indexed != null && !modified && now - indexed.loadedAt() < TimeUnit.SECONDS.toNanos(refreshInterval)) {
+				continue;
+			}
+
+			try {
+				ReferenceGraph graph = referenceGraphService.getReferenceGraph(configuration.getName(), storageService.getStorage(configuration));
+				rebuild |= indexed == null || indexed.graph() != graph;
+				graphs.put(configuration.getName(), new IndexedGraph(graph, now));
+			} catch (IllegalStateException | UncheckedIOException e) {
+				log.debug("unable to index configuration [{}]", configuration.getName(), e);
+				rebuild |= graphs.remove(configuration.getName()) != null;
+			}
+		}
+
+		if(rebuild) {
+			log.debug("rebuilding dependency graph of [{}] configurations", configurations.size());
+			Map<String, ReferenceGraph> referenceGraphs = new HashMap<>();
+			graphs.forEach((name, indexed) -> referenceGraphs.put(name, indexed.graph()));
+			this.configurations = configurations;
+			dependencyGraph = new DependencyGraph(configurations, referenceGraphs);
+		}
+		return dependencyGraph;
+	}
+
+	@EventListener
+	public void onFileChanged(FileChangedEvent event) {
+		changed.add(event.getConfiguration());
+	}
+
+	@EventListener(ConfigurationsChangedEvent.class)
+	public void onConfigurationsChanged() {
+		configurationsChanged = true;
+	}
+}
@@ -0,0 +1,36 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.analysis;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * The adapters and references found in a single configuration file.
+ * When the file is not well-formed, the summary contains everything up until the parse error.
+ */
+public class FileSummary {
+
+	private final @Getter List<AdapterSummary> adapters = new ArrayList<>();
+	/** References outside of adapters, eg. scheduler jobs. */
+	private final @Getter List<AdapterReference> references = new ArrayList<>();
+
+	private @Getter @Setter String parseError;
+	private @Getter @Setter int parseErrorLine;
+}
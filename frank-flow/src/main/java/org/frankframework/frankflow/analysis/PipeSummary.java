@@ -0,0 +1,44 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.analysis;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Getter;
+
+public class PipeSummary {
+
+	private final @Getter String name;
+	private final @Getter String element;
+	private final @Getter int line;
+	private final @Getter List<ForwardSummary> forwards = new ArrayList<>();
+
+	public PipeSummary(String name, String element, int line) {
+		this.name = name;
+		this.element = element;
+		this.line = line;
+	}
+
+	public boolean hasForward(String forwardName) {
+		return forwards.stream().anyMatch(e -> forwardName.equals(e.name()));
+	}
+
+	@Override
+	public String toString() {
+		return element + " [" + name + "]";
+	}
+}
@@ -0,0 +1,229 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.analysis;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import org.frankframework.frankflow.dto.DiagnosticDTO;
+import org.frankframework.frankflow.dto.DiagnosticDTO.Code;
+import org.frankframework.frankflow.dto.DiagnosticDTO.Severity;
+
+/**
+ * Graph of all adapters (and the references between them) of a single configuration.
+ * Created from the {@link FileSummary FileSummaries} of all files, building it does not require any I/O.
+ */
+public class ReferenceGraph {
+	/** The exit that the Frank!Framework creates when no exits have been configured */
+	private static final String DEFAULT_EXIT = "READY";
+	private static final String SUCCESS_FORWARD = "success";
+
+	private final String configuration;
+	private final Map<String, FileSummary> files;
+	private final Map<String, List<String>> adaptersByName = new HashMap<>();
+	private final Map<String, List<String>> javaListenersByName = new HashMap<>();
+
+	/**
+	 * @param configuration name of the configuration the files belong to
+	 * @param files summaries by (relative) file path
+	 */
+	public ReferenceGraph(String configuration, Map<String, FileSummary> files) {
+		this.configuration = configuration;
+		this.files = new LinkedHashMap<>(files);
+
+		for(Map.Entry<String, FileSummary> entry : this.files.entrySet()) {
+			for(AdapterSummary adapter : entry.getValue().getAdapters()) {
+				if(adapter.getName() != null) {
+					adaptersByName.computeIfAbsent(adapter.getName(), e -> new ArrayList<>()).add(entry.getKey());
+				}
+				for(String listener : adapter.getJavaListeners()) {
+					javaListenersByName.computeIfAbsent(listener, e -> new ArrayList<>()).add(adapter.getName());
+				}
+			}
+		}
+	}
+
+	public Set<String> getAdapterNames() {
+		return adaptersByName.keySet();
+	}
+
+	public Set<String> getJavaListenerNames() {
+		return javaListenersByName.keySet();
+	}
+
+	public Map<String, FileSummary> getFiles() {
+		return files;
+	}
+
+	/**
+	 * @return the files in which the adapter has been defined.
+	 */
+	public List<String> getAdapterFiles(String adapter) {
+		return adaptersByName.getOrDefault(adapter, List.of());
+	}
+
+	/**
+	 * @return the files that define the adapter or refer to it by name (eg. through a FrankSender).
+	 */
+	public Set<String> getFilesUsingAdapter(String adapter) {
+		Set<String> result = new TreeSet<>(getAdapterFiles(adapter));
+		for(Map.Entry<String, FileSummary> entry : files.entrySet()) {
+			FileSummary summary = entry.getValue();
+			Stream<AdapterReference> references = Stream.concat(summary.getReferences().stream(), summary.getAdapters().stream().flatMap(e -> e.getReferences().stream()));
+			if(references.anyMatch(e -> isReferenceTo(e, adapter))) {
+				result.add(entry.getKey());
+			}
+		}
+		return result;
+	}
+
+	private boolean isReferenceTo(AdapterReference reference, String adapter) {
+		if(reference.kind() != AdapterReference.Kind.ADAPTER || !reference.targetName().equals(adapter)) {
+			return false;
+		}
+		return reference.targetConfiguration() == null || reference.targetConfiguration().equals(configuration);
+	}
+
+	public List<DiagnosticDTO> getDiagnostics() {
+		List<DiagnosticDTO> diagnostics = new ArrayList<>();
+		for(Map.Entry<String, FileSummary> entry : files.entrySet()) {
+			String path = entry.getKey();
+			FileSummary summary = entry.getValue();
+			if(summary.getParseError() != null) {
+				diagnostics.add(new DiagnosticDTO(Severity.ERROR, Code.NOT_WELL_FORMED, path, summary.getParseErrorLine(), null, summary.getParseError()));
+			}
+
+			for(AdapterSummary adapter : summary.getAdapters()) {
+				if(adapter.getName() != null && adaptersByName.get(adapter.getName()).size() > 1) {
+					diagnostics.add(new DiagnosticDTO(Severity.ERROR, Code.DUPLICATE_ADAPTER, path, adapter.getLine(), adapter.getName(), "adapter [" + adapter.getName() + "] has been defined more than once"));
+				}
+				validatePipeline(diagnostics, path, adapter);
+				validateReferences(diagnostics, path, adapter.getName(), adapter.getReferences());
+			}
+			validateReferences(diagnostics, path, null, summary.getReferences());
+		}
+		return diagnostics;
+	}
+
+	private void validatePipeline(List<DiagnosticDTO> diagnostics, String path, AdapterSummary adapter) {
+		Map<String, PipeSummary> pipes = new LinkedHashMap<>();
+		for(PipeSummary pipe : adapter.getPipes()) {
+			if(pipe.getName() != null && pipes.putIfAbsent(pipe.getName(), pipe) != null) {
+				diagnostics.add(new DiagnosticDTO(Severity.ERROR, Code.DUPLICATE_PIPE, path, pipe.getLine(), adapter.getName(), "pipe [" + pipe.getName() + "] has been defined more than once"));
+			}
+		}
+		Set<String> exits = adapter.getExits().isEmpty() ? Set.of(DEFAULT_EXIT) : new HashSet<>(adapter.getExits());
+
+		for(PipeSummary pipe : adapter.getPipes()) {
+			for(ForwardSummary forward : pipe.getForwards()) {
+				validateForward(diagnostics, path, adapter, pipes, exits, forward);
+			}
+		}
+		for(ForwardSummary forward : adapter.getGlobalForwards()) {
+			validateForward(diagnostics, path, adapter, pipes, exits, forward);
+		}
+
+		if(adapter.getPipes().isEmpty()) {
+			return;
+		}
+		PipeSummary firstPipe = adapter.getPipes().get(0);
+		if(adapter.getFirstPipe() != null) {
+			firstPipe = pipes.get(adapter.getFirstPipe());
+			if(firstPipe == null) {
+				diagnostics.add(new DiagnosticDTO(Severity.ERROR, Code.UNKNOWN_FIRST_PIPE, path, adapter.getLine(), adapter.getName(), "firstPipe [" + adapter.getFirstPipe() + "] does not exist"));
+				return;
+			}
+		}
+
+		Set<PipeSummary> reachable = findReachablePipes(adapter, pipes, firstPipe);
+		for(PipeSummary pipe : adapter.getPipes()) {
+			if(!reachable.contains(pipe)) {
+				diagnostics.add(new DiagnosticDTO(Severity.WARNING, Code.UNREACHABLE_PIPE, path, pipe.getLine(), adapter.getName(), "pipe [" + pipe.getName() + "] cannot be reached"));
+			}
+		}
+	}
+
+	private void validateForward(List<DiagnosticDTO> diagnostics, String path, AdapterSummary adapter, Map<String, PipeSummary> pipes, Set<String> exits, ForwardSummary forward) {
+		String target = forward.path();
+		if(target != null && !target.contains("${") && !pipes.containsKey(target) && !exits.contains(target)) {
+			diagnostics.add(new DiagnosticDTO(Severity.ERROR, Code.BROKEN_FORWARD, path, forward.line(), adapter.getName(), "forward [" + forward.name() + "] points to non-existing pipe or exit [" + target + "]"));
+		}
+	}
+
+	/**
+	 * Walks all forwards, pipes without a <code>success</code> forward implicitly continue with the next pipe.
+	 * Global forwards can be used by every pipe.
+	 */
+	private Set<PipeSummary> findReachablePipes(AdapterSummary adapter, Map<String, PipeSummary> pipes, PipeSummary firstPipe) {
+		List<PipeSummary> pipeList = adapter.getPipes();
+		Map<PipeSummary, Integer> positions = new HashMap<>();
+		for(int i = 0; i < pipeList.size(); i++) {
+			positions.put(pipeList.get(i), i);
+		}
+		Set<PipeSummary> reachable = new HashSet<>();
+		Deque<PipeSummary> queue = new ArrayDeque<>();
+		queue.add(firstPipe);
+		reachable.add(firstPipe);
+		adapter.getGlobalForwards().stream().map(e -> pipes.get(e.path())).filter(e -> e != null && reachable.add(e)).forEach(queue::add);
+
+		while(!queue.isEmpty()) {
+			PipeSummary pipe = queue.poll();
+			List<PipeSummary> next = new ArrayList<>();
+			for(ForwardSummary forward : pipe.getForwards()) {
+				next.add(pipes.get(forward.path()));
+			}
+			if(!pipe.hasForward(SUCCESS_FORWARD)) {
+				int index = positions.get(pipe);
+				if(index + 1 < pipeList.size()) {
+					next.add(pipeList.get(index + 1));
+				}
+			}
+			for(PipeSummary target : next) {
+				if(target != null && reachable.add(target)) {
+					queue.add(target);
+				}
+			}
+		}
+		return reachable;
+	}
+
+	private void validateReferences(List<DiagnosticDTO> diagnostics, String path, String adapter, Collection<AdapterReference> references) {
+		for(AdapterReference reference : references) {
+			if(reference.kind() == AdapterReference.Kind.ADAPTER) {
+				String targetConfiguration = reference.targetConfiguration();
+				if(targetConfiguration != null && !targetConfiguration.equals(configuration)) {
+					continue; // References to other configurations cannot be resolved here
+				}
+				if(!adaptersByName.containsKey(reference.targetName())) {
+					diagnostics.add(new DiagnosticDTO(Severity.ERROR, Code.DANGLING_REFERENCE, path, reference.line(), adapter, "adapter [" + reference.targetName() + "] does not exist"));
+				}
+			} else if(!javaListenersByName.containsKey(reference.target())) {
+				// JavaListeners are registered JVM wide, it may exist in another configuration
+				diagnostics.add(new DiagnosticDTO(Severity.WARNING, Code.DANGLING_REFERENCE, path, reference.line(), adapter, "JavaListener [" + reference.target() + "] does not exist in this configuration"));
+			}
+		}
+	}
+}
@@ -0,0 +1,196 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.analysis;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.frankframework.frankflow.dto.DiagnosticDTO;
+import org.frankframework.frankflow.event.FileChangedEvent;
+import org.frankframework.frankflow.storage.Storage;
+import org.frankframework.frankflow.storage.Storage.FileStat;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps a {@link FileSummary} per configuration file, and the resulting {@link ReferenceGraph} per configuration.
+ * <p>
+ * The files of a configuration are only walked when the index is cold, after a directory has changed, or once the previous
+ * walk is older than <code>frank-flow.configurations.refresh-interval</code> seconds (to pick up changes that have not been
+ * reported). In between, only the files reported by a {@link FileChangedEvent} (which includes changes picked up by the storage
+ * watcher) are read and parsed again. The graph itself is rebuilt from the cached summaries which requires no I/O.
+ * </p>
+ */
+@Component
+public class ReferenceGraphService {
+	private static final Logger log = LogManager.getLogger(ReferenceGraphService.class);
+	private static final long MAX_FILE_SIZE = 10L * 1024 * 1024;
+
+	private final Map<String, ConfigurationIndex> indexes = new ConcurrentHashMap<>();
+
+	@Value("${frank-flow.configurations.refresh-interval:60}")
+	private long refreshInterval;
+
+	private record IndexedFile(long lastModified, long size, FileSummary summary) {}
+
+	private static class ConfigurationIndex {
+		private final Map<String, IndexedFile> files = new HashMap<>();
+		private final Set<String> dirty = ConcurrentHashMap.newKeySet(); // Recorded without holding the monitor
+		private volatile boolean walkRequired = true;
+		private long walkedAt;
+		private ReferenceGraph graph;
+		private List<DiagnosticDTO> diagnostics;
+	}
+
+	public List<DiagnosticDTO> getDiagnostics(String configuration, Storage storage) {
+		ConfigurationIndex index = indexes.computeIfAbsent(configuration, e -> new ConfigurationIndex());
+		synchronized (index) {
+			refresh(configuration, storage, index);
+			if(index.diagnostics == null) {
+				index.diagnostics = index.graph.getDiagnostics();
+			}
+			return index.diagnostics;
+		}
+	}
+
+	public ReferenceGraph getReferenceGraph(String configuration, Storage storage) {
+		ConfigurationIndex index = indexes.computeIfAbsent(configuration, e -> new ConfigurationIndex());
+		synchronized (index) {
+			refresh(configuration, storage, index);
+			return index.graph;
+		}
+	}
+
+	/**
+	 * Parses the new and modified files (in parallel), found by walking the storage or reported as changed.
+	 */
+	private void refresh(String configuration, Storage storage, ConfigurationIndex index) {
+		// Taken before the files are read, so changes made in the meantime are picked up by the next call
+		List<String> dirty = new ArrayList<>(index.dirty);
+		index.dirty.removeAll(dirty);
+		long now = System.nanoTime();
+		boolean walk = index.walkRequired || now - index.walkedAt >= TimeUnit.SECONDS.toNanos(refreshInterval);
+
+		boolean changed;
+		Map<String, FileStat> modified = new HashMap<>();
+		try {
+			if(walk) {
+				index.walkRequired = false;
+				Map<String, FileStat> found = new HashMap<>();
+				walk(storage, "", found);
+				index.walkedAt = now;
+				changed = index.files.keySet().retainAll(found.keySet());
+				found.forEach((path, stat) -> {
+					IndexedFile indexed = index.files.get(path);
+					if(indexed == null || indexed.lastModified() != stat.lastModified() || indexed.size() != stat.size()) {
+						modified.put(path, stat);
+					}
+				});
+			} else {
+				changed = false;
+			}
+
+			// Files may be modified within the same millisecond (and with the same size), always parse reported files again
+			for(String path : dirty) {
+				FileStat stat = storage.stat(path);
+				if(isIndexed(path, stat)) {
+					modified.put(path, stat);
+				} else {
+					changed |= index.files.remove(path) != null;
+				}
+			}
+		} catch (IOException e) {
+			index.walkRequired = true;
+			index.dirty.addAll(dirty);
+			throw new IllegalStateException("unable to read configuration [" + configuration + "]", e);
+		}
+
+		if(!modified.isEmpty()) {
+			log.debug("parsing [{}] modified files of configuration [{}]", modified.size(), configuration);
+			Map<String, IndexedFile> parsed = new ConcurrentHashMap<>();
+			modified.entrySet().parallelStream().forEach(entry -> {
+				try (InputStream is = storage.read(entry.getKey())) {
+					FileSummary summary = ConfigurationFileParser.parse(is);
+					parsed.put(entry.getKey(), new IndexedFile(entry.getValue().lastModified(), entry.getValue().size(), summary));
+				} catch (IOException e) {
+					log.debug("unable to parse file [{}]", entry.getKey(), e);
+				}
+			});
+			index.files.putAll(parsed);
+			changed = true;
+		}
+
+		if(changed || index.graph == null) {
+			Map<String, FileSummary> summaries = new TreeMap<>();
+			index.files.forEach((path, indexed) -> summaries.put(path, indexed.summary()));
+			index.graph = new ReferenceGraph(configuration, summaries);
+			index.diagnostics = null;
+		}
+	}
+
+	private static boolean isIndexed(String path, FileStat stat) {
+		return stat != null && !stat.directory() && "xml".equalsIgnoreCase(FilenameUtils.getExtension(path)) && stat.size() <= MAX_FILE_SIZE;
+	}
+
+	/**
+	 * Collects the XML files of the directory and its sub-directories.
+	 */
+	private static void walk(Storage storage, String directory, Map<String, FileStat> found) throws IOException {
+		List<String> children;
+		try (Stream<String> stream = storage.list(directory)) {
+			children = stream.toList();
+		}
+		for(String name : children) {
+			String path = directory.isEmpty() ? name : directory + "/" + name;
+			FileStat stat = storage.stat(path);
+			if(stat != null && stat.directory()) {
+				walk(storage, path, found);
+			} else if(isIndexed(path, stat)) {
+				found.put(path, stat);
+			}
+		}
+	}
+
+	/**
+	 * Only records the change, the files are read by the next call. A changed directory may affect any number of files,
+	 * which requires a walk.
+	 */
+	@EventListener
+	public void onFileChanged(FileChangedEvent event) {
+		ConfigurationIndex index = indexes.get(event.getConfiguration());
+		if(index == null) {
+			return;
+		}
+		if(event.isDirectory()) {
+			index.walkRequired = true;
+		} else {
+			index.dirty.add(event.getPath());
+		}
+	}
+}
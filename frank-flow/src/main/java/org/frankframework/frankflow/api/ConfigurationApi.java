@@ -15,57 +15,184 @@
 */
 package org.frankframework.frankflow.api;
 
-import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.frankframework.frankflow.dto.ConfigurationCloneDTO;
+import org.frankframework.frankflow.dto.ConfigurationCloneDTO.Method;
 import org.frankframework.frankflow.dto.ConfigurationDTO;
+import org.frankframework.frankflow.event.ConfigurationsChangedEvent;
+import org.frankframework.frankflow.event.FileChangedEvent;
+import org.frankframework.frankflow.event.FileChangedEvent.ChangeType;
+import org.frankframework.frankflow.storage.Storage;
+import org.frankframework.frankflow.storage.Storage.FileStat;
+import org.frankframework.frankflow.storage.StorageService;
+import org.frankframework.frankflow.util.FileTreeUtils;
+import org.frankframework.frankflow.util.FileTreeUtils.Progress;
+import org.frankframework.frankflow.util.RequestCoalescer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 
 @RestController
 public class ConfigurationApi {
+	private static final Logger log = LogManager.getLogger(ConfigurationApi.class);
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+	private final Map<String, Long> treeGenerations = new ConcurrentHashMap<>();
 
 	@Autowired
 	private Configurations configurations;
 
+	@Autowired
+	private StorageService storageService;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@Autowired
+	private RequestCoalescer requestCoalescer;
+
 	@GetMapping(value = "/configurations", produces = MediaType.APPLICATION_JSON_VALUE)
 	public ResponseEntity<?> getConfigurations() {
 		return ResponseEntity.status(HttpStatus.OK).body(configurations.getAllConfigurations());
 	}
 
+	/**
+	 * Writes the directory tree of the configuration as JSON while walking the file-system, no intermediate representation
+	 * of the tree is created. Identical requests that arrive while the tree is being written share that walk, see
+	 * {@link RequestCoalescer#stream(String, java.io.OutputStream, RequestCoalescer.StreamWriter)}.
+	 */
 	@GetMapping(value = "/configurations/{name}", produces = MediaType.APPLICATION_JSON_VALUE)
-	public ResponseEntity<?> getConfigurations(@PathVariable("name") String configurationName) {
+	public ResponseEntity<StreamingResponseBody> getConfigurations(@PathVariable("name") String configurationName, @RequestParam(value = "pretty", defaultValue = "false") boolean prettyPrint) {
 		ConfigurationDTO config = configurations.getConfiguration(configurationName);
 
 		if(StringUtils.isEmpty(config.getDirectory())) {
 			throw new ApiException("configuration is not readable/writable");
 		}
 
-		File dir = new File(config.getDirectory());
-		return ResponseEntity.status(HttpStatus.OK).body(readDirectory(dir));
+		Storage storage = storageService.getStorage(config);
+		// A request that arrives after the tree changed must not replay a walk that started before the change
+		String key = "tree:" + configurationName + ":" + treeGenerations.getOrDefault(configurationName, 0L) + ":" + prettyPrint;
+		StreamingResponseBody body = outputStream -> requestCoalescer.stream(key, outputStream, out -> {
+			try (JsonGenerator generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+				if(prettyPrint) {
+					generator.useDefaultPrettyPrinter();
+				}
+				writeDirectory(generator, storage, "");
+			}
+		});
+		return ResponseEntity.status(HttpStatus.OK).contentType(MediaType.APPLICATION_JSON).body(body);
 	}
 
-	private static Map<String, Object> readDirectory(File directory) {
-		Map<String, Object> methodBuilder = new HashMap<>();
-		ArrayList<String> files = new ArrayList<String>();
-		for(File file : directory.listFiles()) {
-			if(file.isDirectory()) {
-				methodBuilder.put(file.getName(), readDirectory(file));
+	/**
+	 * Clones the configuration into a new directory next to it, which is picked up as a new configuration.
+	 * <p>
+	 * The files are not copied when possible: reflinks are used when the file-system supports them, otherwise the
+	 * files are hard linked. Files are always replaced (never overwritten) when saved through the API, so changes
+	 * to a file of either configuration never affect the other.
+	 * </p>
+	 */
+	@PostMapping(value = "/configurations/{name}/clone", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<?> cloneConfiguration(@PathVariable("name") String configurationName, @RequestParam("name") String newName) {
+		Storage storage = storageService.getStorage(configurations.getConfiguration(configurationName));
+		Path source = storage.getLocalRoot(); // The files themselves are cloned, eg. not the in-memory copy
+		if(source == null) {
+			throw new ApiException("Cloning is not supported by the storage [" + storage + "] of configuration [" + configurationName + "]", HttpStatus.NOT_IMPLEMENTED);
+		}
+		if(StringUtils.isBlank(newName) || StringUtils.containsAny(newName, '/', '\\', ':') || newName.startsWith(".")) {
+			throw new ApiException("Invalid configuration name [" + newName + "]");
+		}
+
+		source = source.toAbsolutePath();
+		Path target = source.resolveSibling(newName);
+		if(Files.exists(target) || configurations.getAllConfigurations().contains(newName)) {
+			throw new ApiException("Configuration [" + newName + "] already exists", HttpStatus.CONFLICT);
+		}
+
+		ConfigurationCloneDTO result = new ConfigurationCloneDTO();
+		result.setName(newName);
+		try {
+			if(FileTreeUtils.reflink(source, target)) {
+				result.setMethod(Method.REFLINK);
 			} else {
-				files.add(file.getName());
+				Progress progress = FileTreeUtils.link(source, target);
+				result.setMethod(progress.getLinks() > 0 ? Method.HARDLINK : Method.COPY);
+				result.setFiles(progress.getFiles());
+				result.setDirectories(progress.getDirectories());
+			}
+		} catch (IOException e) {
+			try {
+				if(Files.exists(target)) {
+					FileTreeUtils.delete(target);
+				}
+			} catch (IOException suppressed) {
+				e.addSuppressed(suppressed);
 			}
+			throw new ApiException("Unable to clone configuration [" + configurationName + "]", e);
 		}
-		if(!files.isEmpty())
-			methodBuilder.put("_files", files);
+		log.info("cloned configuration [{}] to [{}] using {}", configurationName, newName, result.getMethod());
+
+		eventPublisher.publishEvent(new ConfigurationsChangedEvent(this));
+		return ResponseEntity.status(HttpStatus.CREATED).body(result);
+	}
+
+	@EventListener
+	public void onFileChanged(FileChangedEvent event) {
+		if(event.getChangeType() != ChangeType.MODIFIED || event.isDirectory()) {
+			treeGenerations.merge(event.getConfiguration(), 1L, Long::sum);
+		}
+	}
 
-		return methodBuilder;
+	/**
+	 * Directories are written as nested objects, files are collected (by name) and written in the <code>_files</code> array.
+	 */
+	private static void writeDirectory(JsonGenerator generator, Storage storage, String directory) throws IOException {
+		generator.writeStartObject();
+		List<String> files = new ArrayList<>();
+		List<String> children;
+		try (Stream<String> stream = storage.list(directory)) {
+			children = stream.toList();
+		}
+		for(String name : children) {
+			String path = directory.isEmpty() ? name : directory + "/" + name;
+			FileStat stat = storage.stat(path);
+			if(stat != null && stat.directory()) {
+				generator.writeFieldName(name);
+				writeDirectory(generator, storage, path);
+			} else {
+				files.add(name);
+			}
+		}
+		if(!files.isEmpty()) {
+			generator.writeArrayFieldStart("_files");
+			for(String file : files) {
+				generator.writeString(file);
+			}
+			generator.writeEndArray();
+		}
+		generator.writeEndObject();
 	}
 }
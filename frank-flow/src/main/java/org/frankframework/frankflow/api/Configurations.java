@@ -15,51 +15,97 @@
 */
 package org.frankframework.frankflow.api;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.frankframework.frankflow.dto.ConfigurationDTO;
+import org.frankframework.frankflow.event.ConfigurationsChangedEvent;
 import org.frankframework.management.bus.BusAction;
 import org.frankframework.management.bus.BusMessageUtils;
 import org.frankframework.management.bus.BusTopic;
 import org.frankframework.management.bus.OutboundGateway;
 import org.frankframework.util.JacksonUtils;
-import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Component;
-import org.springframework.web.context.annotation.SessionScope;
 
 /**
- * Lazy-loaded class that contains all Configurations, HTTP Session scoped.
- * Connects to the bus (only-once) in order to retrieve all configurations.
+ * Lazy-loaded class that contains all Configurations, shared by all clients.
+ * Connects to the bus in order to retrieve all configurations, and keeps an (immutable) snapshot of them which is
+ * reloaded once it's older than <code>frank-flow.configurations.refresh-interval</code> seconds.
+ * While one request reloads the snapshot, other requests keep using the previous one.
  * 
  * By default the Frank!Framework configurations are omitted.
  * 
  * @author Niels Meijer
  */
 @Component
-@SessionScope
-public class Configurations implements InitializingBean {
+public class Configurations {
 	private static final String DEFAULT_FF_CONFIGURATION_PREFIX = "IAF_";
 
-	private List<ConfigurationDTO> configurations = new ArrayList<>();
+	private volatile Snapshot snapshot;
+	private final ReentrantLock refreshLock = new ReentrantLock();
 
 	@Autowired
 	private OutboundGateway gateway;
 
+	@Value("${frank-flow.configurations.refresh-interval:60}")
+	private long refreshInterval;
 
-	@Override
-	public void afterPropertiesSet() throws Exception {
+	private record Snapshot(List<ConfigurationDTO> configurations, long loadedAt) {}
+
+	/**
+	 * The bus requires an authenticated user, so the configurations are loaded on a request thread rather than during startup.
+	 */
+	private List<ConfigurationDTO> getSnapshot() {
+		Snapshot current = snapshot;
+		if(current != null && System.nanoTime() - current.loadedAt() < TimeUnit.SECONDS.toNanos(refreshInterval)) {
+			return current.configurations();
+		}
+
+		if(current == null) {
+			refreshLock.lock(); // Nothing to return yet, wait for the first load
+		} else if(!refreshLock.tryLock()) {
+			return current.configurations(); // Another thread is already reloading the snapshot
+		}
+
+		try {
+			if(snapshot == current) {
+				refresh();
+			}
+			return snapshot.configurations();
+		} finally {
+			refreshLock.unlock();
+		}
+	}
+
+	/**
+	 * (Re-)loads the configurations from the bus, eg. after a configuration has been added.
+	 */
+	public void refresh() {
 		Message<String> request = MessageBuilder.withPayload("NONE").setHeader(BusTopic.TOPIC_HEADER_NAME, BusTopic.CONFIGURATION.name()).setHeader(BusAction.ACTION_HEADER_NAME, BusAction.FIND.name()).build();
 
 		Message<Object> response = gateway.sendSyncMessage(request);
 		List<ConfigurationDTO> configs = getConfigurations(response);
 
-		configurations = configs.stream().filter(e -> !e.getName().startsWith(DEFAULT_FF_CONFIGURATION_PREFIX)).toList();
+		snapshot = new Snapshot(configs.stream().filter(e -> !e.getName().startsWith(DEFAULT_FF_CONFIGURATION_PREFIX)).toList(), System.nanoTime());
+	}
+
+	/**
+	 * Discards the snapshot, the configurations are reloaded the next time they are requested.
+	 */
+	@EventListener(ConfigurationsChangedEvent.class)
+	public void invalidate() {
+		Snapshot current = snapshot;
+		if(current != null) {
+			snapshot = new Snapshot(current.configurations(), current.loadedAt() - TimeUnit.SECONDS.toNanos(refreshInterval));
+		}
 	}
 
 	private List<ConfigurationDTO> getConfigurations(Message<?> response) {
@@ -71,12 +117,16 @@ public class Configurations implements InitializingBean {
 		throw new ApiException("unexpected result returned by Bus");
 	}
 
+	public List<ConfigurationDTO> getConfigurations() {
+		return getSnapshot();
+	}
+
 	public List<String> getAllConfigurations() {
-		return configurations.stream().map(ConfigurationDTO::getName).toList();
+		return getSnapshot().stream().map(ConfigurationDTO::getName).toList();
 	}
 
 	public ConfigurationDTO getConfiguration(String name) {
-		return configurations.stream()
+		return getSnapshot().stream()
 				.filter(e -> e.getName().equals(name))
 				.findFirst()
 				.orElseThrow(() -> new ApiException("configuration not found", HttpStatus.NOT_FOUND));
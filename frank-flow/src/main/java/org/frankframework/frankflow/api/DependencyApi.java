@@ -0,0 +1,57 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.api;
+
+import org.frankframework.frankflow.analysis.DependencyGraph;
+import org.frankframework.frankflow.analysis.DependencyGraphService;
+import org.frankframework.frankflow.util.FileUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class DependencyApi {
+
+	@Autowired
+	private Configurations configurations;
+
+	@Autowired
+	private DependencyGraphService dependencyGraphService;
+
+	/**
+	 * Returns the parent, children and (cross-configuration) adapter dependencies of every configuration.
+	 */
+	@GetMapping(value = "/dependencies", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<?> getDependencies() {
+		DependencyGraph graph = dependencyGraphService.getDependencyGraph(configurations.getConfigurations());
+		return ResponseEntity.status(HttpStatus.OK).body(graph.getConfigurations());
+	}
+
+	/**
+	 * Returns the adapters and configurations that are affected by a change of the given file.
+	 */
+	@GetMapping(value = "/configurations/{name}/impact", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<?> getImpact(@PathVariable("name") String configurationName, @RequestParam("path") String path) {
+		configurations.getConfiguration(configurationName); // Throws a 404 when the configuration does not exist
+		DependencyGraph graph = dependencyGraphService.getDependencyGraph(configurations.getConfigurations());
+		return ResponseEntity.status(HttpStatus.OK).body(graph.getImpact(configurationName, FileUtils.normalizeRelativePath(path)));
+	}
+}
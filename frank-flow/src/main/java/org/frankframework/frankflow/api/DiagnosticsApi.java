@@ -0,0 +1,60 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.api;
+
+import java.util.List;
+
+import org.frankframework.frankflow.analysis.ReferenceGraphService;
+import org.frankframework.frankflow.dto.DiagnosticDTO;
+import org.frankframework.frankflow.storage.Storage;
+import org.frankframework.frankflow.storage.StorageService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class DiagnosticsApi {
+
+	@Autowired
+	private Configurations configurations;
+
+	@Autowired
+	private StorageService storageService;
+
+	@Autowired
+	private ReferenceGraphService referenceGraphService;
+
+	/**
+	 * Returns broken forwards, unreachable pipes and dangling references of the entire configuration.
+	 * When a path is specified, only the diagnostics of that file are returned.
+	 */
+	@GetMapping(value = "/configurations/{name}/diagnostics", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<?> getDiagnostics(@PathVariable("name") String configurationName, @RequestParam(value = "path", required = false) String path) {
+		Storage storage = storageService.getStorage(configurations.getConfiguration(configurationName));
+		List<DiagnosticDTO> diagnostics = referenceGraphService.getDiagnostics(configurationName, storage);
+
+		if(path != null) {
+			String relativePath = RequestPaths.getPath(path);
+			diagnostics = diagnostics.stream().filter(e -> relativePath.equals(e.getPath())).toList();
+		}
+		return ResponseEntity.status(HttpStatus.OK).body(diagnostics);
+	}
+}
@@ -15,16 +15,32 @@
 */
 package org.frankframework.frankflow.api;
 
-import java.io.File;
-import java.util.Objects;
+import java.io.IOException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.Stream;
 
-import org.apache.commons.io.FilenameUtils;
-import org.frankframework.frankflow.util.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.frankframework.frankflow.dto.DirectoryEntryDTO;
+import org.frankframework.frankflow.dto.DirectoryListingDTO;
+import org.frankframework.frankflow.dto.DirectoryOperationDTO;
+import org.frankframework.frankflow.event.FileChangedEvent;
+import org.frankframework.frankflow.event.FileChangedEvent.ChangeType;
+import org.frankframework.frankflow.storage.Storage;
+import org.frankframework.frankflow.storage.Storage.FileStat;
+import org.frankframework.frankflow.storage.StorageService;
+import org.frankframework.frankflow.util.FileTreeUtils.Progress;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -34,24 +50,133 @@ import org.springframework.web.bind.annotation.RestController;
 
 @RestController
 public class DirectoryApi {
+	private static final int MAX_DEPTH = 10;
+	private static final int MAX_LIMIT = 1000;
 
 	@Autowired
 	private Configurations configurations;
 
+	@Autowired
+	private StorageService storageService;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	/**
+	 * Lists the (name sorted) content of a single directory, instead of the entire tree.
+	 * Directories contain the number of direct children so the explorer knows if they can be expanded.
+	 * When <code>depth</code> is larger than 1, sub-directories are expanded as well, each level is limited to <code>limit</code> entries.
+	 * The <code>cursor</code> is the name of the last entry of the previous page.
+	 */
+	@GetMapping(value = "/configurations/{name}/directories", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<?> listDirectory(@PathVariable("name") String configurationName, @RequestParam(value = "path", defaultValue = "") String path,
+			@RequestParam(value = "depth", defaultValue = "1") int depth, @RequestParam(value = "cursor", required = false) String cursor,
+			@RequestParam(value = "limit", defaultValue = "100") int limit) {
+		if(depth < 1 || depth > MAX_DEPTH) {
+			throw new ApiException("Parameter [depth] must be between 1 and " + MAX_DEPTH, HttpStatus.BAD_REQUEST);
+		}
+		if(limit < 1 || limit > MAX_LIMIT) {
+			throw new ApiException("Parameter [limit] must be between 1 and " + MAX_LIMIT, HttpStatus.BAD_REQUEST);
+		}
+
+		Storage storage = getStorage(configurationName);
+		String directory = RequestPaths.getPath(path);
+
+		try {
+			FileStat stat = storage.stat(directory);
+			if(stat == null) {
+				return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+			}
+			if(!stat.directory()) {
+				return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+			}
+
+			DirectoryListingDTO listing = new DirectoryListingDTO();
+			listing.setPath(path);
+			DirectoryEntryDTO page = readDirectoryPage(storage, directory, depth, cursor, limit);
+			listing.setEntries(page.getEntries());
+			listing.setNextCursor(page.getNextCursor());
+			return ResponseEntity.status(HttpStatus.OK).body(listing);
+		} catch (IOException e) {
+			throw new ApiException("Unable to list directory [" + path + "]", e);
+		}
+	}
+
+	/**
+	 * Only the first <code>limit</code> names after the cursor are retained while iterating over the directory,
+	 * so large directories don't have to be sorted (or kept in memory) completely.
+	 */
+	private static DirectoryEntryDTO readDirectoryPage(Storage storage, String directory, int depth, String cursor, int limit) throws IOException {
+		TreeSet<String> names = new TreeSet<>();
+		try (Stream<String> stream = storage.list(directory)) {
+			Iterator<String> iterator = stream.iterator();
+			while(iterator.hasNext()) {
+				String name = iterator.next();
+				if(StringUtils.isNotEmpty(cursor) && name.compareTo(cursor) <= 0) {
+					continue;
+				}
+				names.add(name);
+				if(names.size() > limit + 1) {
+					names.pollLast();
+				}
+			}
+		}
+
+		DirectoryEntryDTO page = new DirectoryEntryDTO();
+		List<DirectoryEntryDTO> entries = new ArrayList<>(Math.min(names.size(), limit));
+		for(String name : names) {
+			if(entries.size() == limit) {
+				page.setNextCursor(entries.get(limit - 1).getName());
+				break;
+			}
+			entries.add(readDirectoryEntry(storage, resolve(directory, name), name, depth, limit));
+		}
+		page.setEntries(entries);
+		return page;
+	}
+
+	private static DirectoryEntryDTO readDirectoryEntry(Storage storage, String path, String name, int depth, int limit) throws IOException {
+		DirectoryEntryDTO entry = new DirectoryEntryDTO();
+		entry.setName(name);
+		FileStat stat = storage.stat(path);
+		if(stat != null && stat.directory()) {
+			entry.setDirectory(true);
+			entry.setChildren(countChildren(storage, path));
+			if(depth > 1) {
+				DirectoryEntryDTO page = readDirectoryPage(storage, path, depth - 1, null, limit);
+				entry.setEntries(page.getEntries());
+				entry.setNextCursor(page.getNextCursor());
+			}
+		} else {
+			entry.setSize(stat != null ? stat.size() : 0);
+		}
+		return entry;
+	}
+
+	private static int countChildren(Storage storage, String directory) throws IOException {
+		try (Stream<String> stream = storage.list(directory)) {
+			return (int) stream.count();
+		}
+	}
+
+	private static String resolve(String directory, String name) {
+		return directory.isEmpty() ? name : directory + "/" + name;
+	}
+
 	@PostMapping(value = "/configurations/{name}/directories", produces = MediaType.APPLICATION_JSON_VALUE)
 	public ResponseEntity<?> makeDirectory(@PathVariable("name") String configurationName, @RequestParam("path") String path) {
-		File rootFolder = FileUtils.getConfigurationRoot(configurations.getConfiguration(configurationName));
-		File file = getFile(rootFolder, path);
+		Storage storage = getStorage(configurationName);
+		String directory = RequestPaths.getPath(path);
 
-		if(file.exists()) {
+		try {
+			storage.createDirectory(directory);
+		} catch (FileAlreadyExistsException e) {
 			throw new ApiException("Directory already exists", HttpStatus.CONFLICT);
-		}
-		if(FileUtils.createDir(file)) {
-			return ResponseEntity.status(HttpStatus.CREATED).build();
-		} else {
+		} catch (IOException e) {
 			throw new ApiException("Could not create directory", HttpStatus.CONFLICT);
 		}
-
+		eventPublisher.publishEvent(new FileChangedEvent(this, configurationName, directory, ChangeType.CREATED, true));
+		return ResponseEntity.status(HttpStatus.CREATED).build();
 	}
 
 	@PatchMapping(value = "/configurations/{name}/directories", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -60,69 +185,158 @@ public class DirectoryApi {
 			throw new ApiException("An unexpected error occurred, property [newName] does not exist or is empty");
 		}
 
-		File rootFolder = FileUtils.getConfigurationRoot(configurations.getConfiguration(configurationName));
-		File file = getFile(rootFolder, path);
+		Storage storage = getStorage(configurationName);
+		String oldPath = RequestPaths.getPath(path);
 
 		if(path.contains("/")) {
 			path = path.replaceFirst("(?<=/?.{0,10}/)[^/]*(?!/)$", newName);
 		} else {
 			path = newName;
 		}
-		File destFile = getFile(rootFolder, path);
+		String destination = RequestPaths.getPath(path);
 
-		if(!file.exists()) {
-			return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
-		}
-		if(!file.isDirectory()) {
-			return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
-		}
+		try {
+			FileStat stat = storage.stat(oldPath);
+			if(stat == null) {
+				return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+			}
+			if(!stat.directory() || oldPath.isEmpty()) {
+				return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+			}
 
-		if(file.renameTo(destFile)) {
-			return ResponseEntity.status(HttpStatus.OK).contentType(MediaType.TEXT_PLAIN).body(path);
-		} else {
-			throw new ApiException("An unexpected error occurred, directory can't be renamed");
+			storage.move(oldPath, destination);
+		} catch (IOException e) {
+			throw new ApiException("An unexpected error occurred, directory can't be renamed", e);
 		}
+
+		eventPublisher.publishEvent(new FileChangedEvent(this, configurationName, oldPath, ChangeType.DELETED, true));
+		eventPublisher.publishEvent(new FileChangedEvent(this, configurationName, destination, ChangeType.CREATED, true));
+		return ResponseEntity.status(HttpStatus.OK).contentType(MediaType.TEXT_PLAIN).body(path);
 	}
 
+	/**
+	 * Removes the directory, when <code>recursive</code> is set the directory including all its content is removed.
+	 */
 	@DeleteMapping(value = "/configurations/{name}/directories", produces = MediaType.APPLICATION_JSON_VALUE)
-	public ResponseEntity<?> deleteDirectory(@PathVariable("name") String configurationName, @RequestParam("path") String path) {
-		File rootFolder = FileUtils.getConfigurationRoot(configurations.getConfiguration(configurationName));
-		File file = getFile(rootFolder, path);
+	public ResponseEntity<?> deleteDirectory(@PathVariable("name") String configurationName, @RequestParam("path") String path, @RequestParam(value = "recursive", defaultValue = "false") boolean recursive) {
+		Storage storage = getStorage(configurationName);
+		String directory = RequestPaths.getPath(path);
 
-		if(!file.exists()) {
+		FileStat stat = stat(storage, directory);
+		if(stat == null) {
 			return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
 		}
-		if(!file.isDirectory()) {
+		if(!stat.directory()) {
 			return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
 		}
+		if(directory.isEmpty()) {
+			throw new ApiException("Unable to remove the configuration root directory");
+		}
 
-		if(file.delete()) {
-			return ResponseEntity.status(HttpStatus.OK).build();
-		} else {
-			if(Objects.requireNonNull(file.listFiles()).length > 0) {
-				throw new ApiException("Can't delete directory '" + path + "' with content. Please remove the content first.");
+		if(recursive) {
+			try {
+				Progress progress = storage.deleteRecursively(directory);
+				return ResponseEntity.status(HttpStatus.OK).body(toOperationResult(path, progress));
+			} catch (IOException e) {
+				throw new ApiException("Unable to remove directory [" + path + "]", e);
+			} finally {
+				eventPublisher.publishEvent(new FileChangedEvent(this, configurationName, directory, ChangeType.DELETED, true)); // Might have been partially removed
 			}
-			throw new ApiException("Unable to remove directory [" + path + "]");
+		}
+
+		try {
+			storage.delete(directory);
+		} catch (DirectoryNotEmptyException e) {
+			throw new ApiException("Can't delete directory '" + path + "' with content. Please remove the content first.");
+		} catch (IOException e) {
+			throw new ApiException("Unable to remove directory [" + path + "]", e);
+		}
+		eventPublisher.publishEvent(new FileChangedEvent(this, configurationName, directory, ChangeType.DELETED, true));
+		return ResponseEntity.status(HttpStatus.OK).build();
+	}
+
+	/**
+	 * Copies the directory including all its content to the (non-existing) destination.
+	 */
+	@PostMapping(value = "/configurations/{name}/directories/copy", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<?> copyDirectory(@PathVariable("name") String configurationName, @RequestParam("path") String path, @RequestParam("destination") String destination) {
+		Storage storage = getStorage(configurationName);
+		String source = RequestPaths.getPath(path);
+		String target = getTransferTarget(storage, source, destination);
+
+		try {
+			Progress progress = storage.copy(source, target);
+			return ResponseEntity.status(HttpStatus.CREATED).body(toOperationResult(destination, progress));
+		} catch (IOException e) {
+			throw new ApiException("Unable to copy directory [" + path + "] to [" + destination + "]", e);
+		} finally {
+			eventPublisher.publishEvent(new FileChangedEvent(this, configurationName, target, ChangeType.CREATED, true)); // Might have been partially copied
 		}
 	}
 
 	/**
-	 * Check if file is accessible and is a child of the rootFolder (eq. no ../ in
-	 * path)
+	 * Moves the directory including all its content to the (non-existing) destination.
 	 */
-	private File getFile(File rootFolder, String path) {
-		if(path == null) {
-			throw new ApiException("No (valid) path specified");
+	@PostMapping(value = "/configurations/{name}/directories/move", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<?> moveDirectory(@PathVariable("name") String configurationName, @RequestParam("path") String path, @RequestParam("destination") String destination) {
+		Storage storage = getStorage(configurationName);
+		String source = RequestPaths.getPath(path);
+		String target = getTransferTarget(storage, source, destination);
+
+		try {
+			Progress progress = storage.move(source, target);
+			return ResponseEntity.status(HttpStatus.OK).body(toOperationResult(destination, progress));
+		} catch (IOException e) {
+			throw new ApiException("Unable to move directory [" + path + "] to [" + destination + "]", e);
+		} finally {
+			eventPublisher.publishEvent(new FileChangedEvent(this, configurationName, source, ChangeType.DELETED, true));
+			eventPublisher.publishEvent(new FileChangedEvent(this, configurationName, target, ChangeType.CREATED, true));
 		}
+	}
 
-		File file = new File(rootFolder, path);
-		String normalizedFilename = FilenameUtils.normalize(file.getAbsolutePath());
-		if(normalizedFilename == null) { // non absolute path, perhaps ../ is used?
-			throw new ApiException("Unable to determine normalized filename");
-		} else if(normalizedFilename.equals(file.getPath())) {
-			return file;
+	/**
+	 * Validates the source and destination of a copy or move, the destination may not exist and may not be inside the source.
+	 */
+	private String getTransferTarget(Storage storage, String source, String destination) {
+		String target = RequestPaths.getPath(destination);
+		FileStat sourceStat = stat(storage, source);
+		if(sourceStat == null) {
+			throw new ApiException("Directory [" + source + "] does not exist", HttpStatus.NOT_FOUND);
+		}
+		if(!sourceStat.directory() || source.isEmpty()) {
+			throw new ApiException("Path [" + source + "] is not a (movable) directory");
 		}
+		if(stat(storage, target) != null) {
+			throw new ApiException("Destination [" + destination + "] already exists", HttpStatus.CONFLICT);
+		}
+		if((target + "/").startsWith(source + "/")) {
+			throw new ApiException("Destination [" + destination + "] may not be inside the source directory");
+		}
+		FileStat parent = target.isEmpty() ? null : stat(storage, Storage.getParent(target));
+		if(parent == null || !parent.directory()) {
+			throw new ApiException("Parent directory of destination [" + destination + "] does not exist", HttpStatus.NOT_FOUND);
+		}
+		return target;
+	}
 
-		throw new ApiException("Inaccessible path [" + file + "]");
+	private static DirectoryOperationDTO toOperationResult(String path, Progress progress) {
+		DirectoryOperationDTO result = new DirectoryOperationDTO();
+		result.setPath(path);
+		result.setFiles(progress.getFiles());
+		result.setDirectories(progress.getDirectories());
+		result.setBytes(progress.getBytes());
+		return result;
+	}
+
+	private Storage getStorage(String configurationName) {
+		return storageService.getStorage(configurations.getConfiguration(configurationName));
+	}
+
+	private static FileStat stat(Storage storage, String path) {
+		try {
+			return storage.stat(path);
+		} catch (IOException e) {
+			throw new ApiException("Unable to read [" + path + "]", e);
+		}
 	}
 }
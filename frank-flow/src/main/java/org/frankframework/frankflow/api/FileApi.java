@@ -15,15 +15,42 @@
 */
 package org.frankframework.frankflow.api;
 
-import java.io.*;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.UnsupportedCharsetException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.List;
 
-import jakarta.servlet.annotation.MultipartConfig;
-import org.apache.commons.io.FilenameUtils;
-import org.frankframework.frankflow.util.FileUtils;
+import javax.xml.stream.XMLStreamException;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.frankframework.frankflow.cache.FileContentCache;
+import org.frankframework.frankflow.cache.LineIndex;
+import org.frankframework.frankflow.cache.LineIndexCache;
+import org.frankframework.frankflow.dto.FileLinesDTO;
+import org.frankframework.frankflow.dto.FilePatchDTO;
+import org.frankframework.frankflow.event.FileChangedEvent;
+import org.frankframework.frankflow.event.FileChangedEvent.ChangeType;
+import org.frankframework.frankflow.format.XmlFormatService;
+import org.frankframework.frankflow.history.HistoryStore;
+import org.frankframework.frankflow.history.HistoryStore.Capture;
+import org.frankframework.frankflow.storage.Storage;
+import org.frankframework.frankflow.storage.Storage.FileStat;
+import org.frankframework.frankflow.storage.StorageService;
 import org.frankframework.frankflow.util.MimeTypeUtil;
+import org.frankframework.frankflow.util.TextPatcher;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -33,34 +60,114 @@ import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 public class FileApi {
+	private static final Logger log = LogManager.getLogger(FileApi.class);
+	private static final int MAX_LINES = 10_000;
 
 	@Autowired
 	private Configurations configurations;
 
+	@Autowired
+	private StorageService storageService;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@Autowired
+	private FileContentCache contentCache;
+
+	@Autowired
+	private LineIndexCache lineIndexCache;
+
+	@Autowired
+	private HistoryStore historyStore;
+
+	@Autowired
+	private XmlFormatService formatService;
+
+	@Value("${frank-flow.format.on-save:false}")
+	private boolean formatOnSave;
+
 	@GetMapping(value = "/configurations/{name}/files", produces = MediaType.APPLICATION_JSON_VALUE)
-	public ResponseEntity<?> getFile(@PathVariable("name") String configurationName, @RequestParam("path") String path) {
-		File rootFolder = FileUtils.getConfigurationRoot(configurations.getConfiguration(configurationName));
-		File file = getFile(rootFolder, path);
-		if(!file.exists()) {
+	public ResponseEntity<?> getFile(@PathVariable("name") String configurationName, @RequestParam("path") String path, WebRequest request) {
+		Storage storage = getStorage(configurationName);
+		String file = RequestPaths.getPath(path);
+
+		try {
+			FileStat stat = storage.stat(file);
+			if(stat == null) {
+				return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+			}
+			if(stat.directory()) {
+				return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+			}
+
+			String etag = stat.getWeakETag(); // Allows the response to be compressed
+			if(request.checkNotModified(etag)) {
+				return null;
+			}
+
+			InputStream content = contentCache.getContent(configurationName, file, storage); // Can't wrap this in try, may not auto close!
+			MediaType mediaType = MimeTypeUtil.determineFromPathMimeType(file);
+			return ResponseEntity.status(HttpStatus.OK).contentType(mediaType).eTag(etag).body(content);
+		} catch (IOException e) {
 			return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
 		}
-		if(file.isDirectory()) {
-			return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+	}
+
+	/**
+	 * Returns lines <code>from</code> to <code>to</code> (1-based, inclusive) of the file, so large files don't have to be read entirely.
+	 * At most {@value #MAX_LINES} lines are returned, <code>to</code> is limited to the number of lines in the file.
+	 */
+	@GetMapping(value = "/configurations/{name}/files/lines", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<?> getLines(@PathVariable("name") String configurationName, @RequestParam("path") String path,
+			@RequestParam(value = "from", defaultValue = "1") int from, @RequestParam(value = "to", required = false) Integer to, WebRequest request) {
+		Storage storage = getStorage(configurationName);
+		String file = RequestPaths.getPath(path);
+		if(from < 1 || (to != null && to < from)) {
+			throw new ApiException("Invalid line range [" + from + "-" + to + "]", HttpStatus.BAD_REQUEST);
 		}
 
 		try {
-			FileInputStream fis = new FileInputStream(file); // Can't wrap this in try, may not auto close!
-			MediaType mediaType = MimeTypeUtil.determineFromPathMimeType(file.getName());
-			return ResponseEntity.status(HttpStatus.OK).contentType(mediaType).body(fis);
+			FileStat stat = storage.stat(file);
+			if(stat == null) {
+				return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+			}
+			if(stat.directory()) {
+				return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+			}
+
+			String etag = stat.getWeakETag(); // Allows the response to be compressed
+			if(request.checkNotModified(etag)) {
+				return null;
+			}
+
+			LineIndex index = lineIndexCache.getLineIndex(configurationName, file, storage);
+			FileLinesDTO lines = new FileLinesDTO();
+			lines.setTotalLines(index.getLineCount());
+			lines.setSize(index.getSize());
+			lines.setFrom(from);
+			int last = Math.min(index.getLineCount(), to != null ? Math.min(to, from + MAX_LINES - 1) : from + MAX_LINES - 1);
+			if(from <= last) {
+				lines.setTo(last);
+				try (SeekableByteChannel channel = storage.open(file)) {
+					lines.setLines(index.readLines(channel, from, last));
+				}
+			} else {
+				lines.setTo(from - 1);
+				lines.setLines(List.of());
+			}
+			return ResponseEntity.status(HttpStatus.OK).eTag(etag).body(lines);
 		} catch (IOException e) {
-			return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+			throw new ApiException("Unable to read file [" + path + "]", e);
 		}
 	}
 
@@ -70,33 +177,113 @@ public class FileApi {
 			throw new ApiException("Missing form-data [file] parameter");
 		}
 
-		File rootFolder = FileUtils.getConfigurationRoot(configurations.getConfiguration(configurationName));
-		File file = getFile(rootFolder, path);
-		if(file.exists()) {
-			if(file.isDirectory()) {
+		Storage storage = getStorage(configurationName);
+		String file = RequestPaths.getPath(path);
+		try {
+			FileStat stat = storage.stat(file);
+			if(stat == null) {
+				return ResponseEntity.status(HttpStatus.OK).build();
+			}
+			if(stat.directory()) {
 				return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
 			}
 
-			try(InputStream is = new ByteArrayInputStream(fileAttachment.getBytes())) {
-				Files.copy(is, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
-				return ResponseEntity.status(HttpStatus.OK).build();
-			} catch (IOException e) {
-				throw new ApiException("An error occurred while saving file [" + path + "]", e);
+			historyStore.recordOriginal(configurationName, file, storage);
+			Capture saved = write(storage, file, new ByteArrayInputStream(fileAttachment.getBytes()));
+			historyStore.recordVersion(configurationName, file, saved);
+			eventPublisher.publishEvent(new FileChangedEvent(this, configurationName, file, ChangeType.MODIFIED));
+			return ResponseEntity.status(HttpStatus.OK).eTag(getETag(storage, file)).build();
+		} catch (IOException e) {
+			throw new ApiException("An error occurred while saving file [" + path + "]", e);
+		}
+	}
+
+	/**
+	 * Replaces the contents of an existing file with the raw request body. Unlike the multipart variant the body may be
+	 * compressed (<code>Content-Encoding: gzip</code>), it's decoded while it's being written to the storage.
+	 */
+	@PutMapping(value = "/configurations/{name}/files", consumes = {MediaType.APPLICATION_XML_VALUE, MediaType.TEXT_XML_VALUE, MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE}, produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<?> updateFile(@PathVariable("name") String configurationName, @RequestParam("path") String path, HttpServletRequest request) {
+		Storage storage = getStorage(configurationName);
+		String file = RequestPaths.getPath(path);
+		try {
+			FileStat stat = storage.stat(file);
+			if(stat == null) {
+				return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
 			}
+			if(stat.directory()) {
+				return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+			}
+
+			historyStore.recordOriginal(configurationName, file, storage);
+			Capture saved = write(storage, file, request.getInputStream());
+			historyStore.recordVersion(configurationName, file, saved);
+			eventPublisher.publishEvent(new FileChangedEvent(this, configurationName, file, ChangeType.MODIFIED));
+			return ResponseEntity.status(HttpStatus.OK).eTag(getETag(storage, file)).build();
+		} catch (IOException e) {
+			throw new ApiException("An error occurred while saving file [" + path + "]", e);
 		}
+	}
 
-		return ResponseEntity.status(HttpStatus.OK).build();
+	/**
+	 * Applies range-replace edits to an existing file, instead of uploading the entire file.
+	 * The edits must be based on the current version of the file, passed as <code>If-Match</code> header or <code>baseETag</code> property.
+	 */
+	@PatchMapping(value = "/configurations/{name}/files", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<?> patchFile(@PathVariable("name") String configurationName, @RequestParam("path") String path, @RequestBody FilePatchDTO patch,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		// Compressed responses carry a weak ETag, the (uncompressed) file is still the same version
+		String baseETag = StringUtils.removeStart(StringUtils.defaultIfEmpty(ifMatch, patch.getBaseETag()), "W/");
+		if(StringUtils.isEmpty(baseETag)) {
+			throw new ApiException("Missing base ETag, use the [If-Match] header or [baseETag] property", HttpStatus.PRECONDITION_REQUIRED);
+		}
+		if(patch.getEdits() == null) {
+			throw new ApiException("Missing property [edits]", HttpStatus.BAD_REQUEST);
+		}
+
+		Storage storage = getStorage(configurationName);
+		String file = RequestPaths.getPath(path);
+		String etag;
+		Capture patched = historyStore.capture();
+		try {
+			FileStat stat = storage.stat(file);
+			if(stat == null) {
+				return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+			}
+			if(stat.directory()) {
+				return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+			}
+
+			historyStore.recordOriginal(configurationName, file, storage);
+			synchronized (storage.getLock(file)) {
+				if(!baseETag.equals(getETag(storage, file))) {
+					throw new ApiException("File [" + path + "] has been modified", HttpStatus.PRECONDITION_FAILED);
+				}
+				TextPatcher.apply(storage, file, patch.getEdits(), patched::tee);
+				etag = getETag(storage, file);
+			}
+		} catch (UnsupportedCharsetException | CharacterCodingException e) {
+			throw new ApiException("Unable to apply edits to file [" + path + "], only UTF-8 encoded files can be patched", HttpStatus.UNSUPPORTED_MEDIA_TYPE);
+		} catch (IllegalArgumentException e) {
+			throw new ApiException("Unable to apply edits to file [" + path + "]: " + e.getMessage(), HttpStatus.BAD_REQUEST);
+		} catch (IOException e) {
+			throw new ApiException("An error occurred while saving file [" + path + "]", e);
+		}
+
+		historyStore.recordVersion(configurationName, file, patched);
+		eventPublisher.publishEvent(new FileChangedEvent(this, configurationName, file, ChangeType.MODIFIED));
+		return ResponseEntity.status(HttpStatus.OK).eTag(etag).build();
 	}
 
-	@PatchMapping(value = "/configurations/{name}/files", produces = MediaType.APPLICATION_JSON_VALUE)
+	@PatchMapping(value = "/configurations/{name}/files", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
 	public ResponseEntity<?> renameFolder(@PathVariable("name") String configurationName, @RequestParam("path") String path, @RequestPart("newName") String newName) {
 
 		if(newName == null || newName.isEmpty()) {
 			throw new ApiException("An unexpected error occurred, property [newName] does not exist or is empty");
 		}
 
-		File rootFolder = FileUtils.getConfigurationRoot(configurations.getConfiguration(configurationName));
-		File file = getFile(rootFolder, path);
+		Storage storage = getStorage(configurationName);
+		String oldPath = RequestPaths.getPath(path);
 
 		if(path.contains("/")) {
 			path = path.replaceFirst("(?<=/?.{0,10}/)[^/]*(?!/)$", newName);
@@ -104,20 +291,25 @@ public class FileApi {
 			path = newName;
 		}
 
-		File destFile = getFile(rootFolder, path);
+		String destination = RequestPaths.getPath(path);
 
-		if(!file.exists()) {
-			return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
-		}
-		if(file.isDirectory()) {
-			return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
-		}
+		try {
+			FileStat stat = storage.stat(oldPath);
+			if(stat == null) {
+				return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+			}
+			if(stat.directory()) {
+				return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+			}
 
-		if(file.renameTo(destFile)) {
-			return ResponseEntity.status(HttpStatus.OK).contentType(MediaType.TEXT_PLAIN).body(path);
-		} else {
-			throw new ApiException("An unexpected error occurred, file can't be renamed");
+			storage.move(oldPath, destination);
+		} catch (IOException e) {
+			throw new ApiException("An unexpected error occurred, file can't be renamed", e);
 		}
+
+		eventPublisher.publishEvent(new FileChangedEvent(this, configurationName, oldPath, ChangeType.DELETED));
+		eventPublisher.publishEvent(new FileChangedEvent(this, configurationName, destination, ChangeType.CREATED));
+		return ResponseEntity.status(HttpStatus.OK).contentType(MediaType.TEXT_PLAIN).body(path);
 	}
 
 	@PostMapping(value = "/configurations/{name}/files", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -126,20 +318,17 @@ public class FileApi {
 			throw new ApiException("Missing form-data [file] parameter");
 		}
 
-		File rootFolder = FileUtils.getConfigurationRoot(configurations.getConfiguration(configurationName));
-		File file = getFile(rootFolder, path);
-		if(file.exists()) {
-			throw new ApiException("File already exists", HttpStatus.CONFLICT);
-		}
-
-		try(InputStream is = new ByteArrayInputStream(fileAttachment.getBytes())) {
-			Files.copy(is, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
-
-			// the file should always exist, lets make sure though, you never know...
-			if(file.exists()) {
-				return ResponseEntity.status(HttpStatus.OK).build();
+		Storage storage = getStorage(configurationName);
+		String file = RequestPaths.getPath(path);
+		try {
+			if(storage.stat(file) != null) {
+				throw new ApiException("File already exists", HttpStatus.CONFLICT);
 			}
-			throw new ApiException("An unexpected error occurred, file [" + path + "] does not exists");
+
+			Capture saved = write(storage, file, new ByteArrayInputStream(fileAttachment.getBytes()));
+			historyStore.recordVersion(configurationName, file, saved);
+			eventPublisher.publishEvent(new FileChangedEvent(this, configurationName, file, ChangeType.CREATED));
+			return ResponseEntity.status(HttpStatus.OK).build();
 		} catch (IOException e) {
 			throw new ApiException("An error occurred while creating file [" + path + "]", e);
 		}
@@ -147,41 +336,80 @@ public class FileApi {
 
 	@DeleteMapping(value = "/configurations/{name}/files", produces = MediaType.APPLICATION_JSON_VALUE)
 	public ResponseEntity<?> deleteFile(@PathVariable("name") String configurationName, @RequestParam("path") String path) {
-		File rootFolder = FileUtils.getConfigurationRoot(configurations.getConfiguration(configurationName));
-		File file = getFile(rootFolder, path);
-		if(!file.exists()) {
-			return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
-		}
-		if(file.isDirectory()) {
-			return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
-		}
+		Storage storage = getStorage(configurationName);
+		String file = RequestPaths.getPath(path);
+		try {
+			FileStat stat = storage.stat(file);
+			if(stat == null) {
+				return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+			}
+			if(stat.directory()) {
+				return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+			}
 
-		if(file.delete()) {
-			return ResponseEntity.status(HttpStatus.OK).build();
-		} else {
-			throw new ApiException("Unable to remove file [" + path + "]");
+			storage.delete(file);
+		} catch (IOException e) {
+			throw new ApiException("Unable to remove file [" + path + "]", e);
 		}
+
+		eventPublisher.publishEvent(new FileChangedEvent(this, configurationName, file, ChangeType.DELETED));
+		return ResponseEntity.status(HttpStatus.OK).build();
+	}
+
+	private Storage getStorage(String configurationName) {
+		return storageService.getStorage(configurations.getConfiguration(configurationName));
 	}
 
 	/**
-	 * Check if file is accessible and is a child of the rootFolder (eq. no ../ in
-	 * path)
+	 * Saves the file, XML files are formatted while they are written when <code>frank-flow.format.on-save</code> is enabled.
+	 * The content is spooled to a temporary file first, so files that are not well-formed (yet) can be saved as-is.
+	 * @return the content that has been saved, for the history.
 	 */
-	private File getFile(File rootFolder, String path) {
-		if(path == null) {
-			throw new ApiException("No (valid) path specified");
+	private Capture write(Storage storage, String path, InputStream content) throws IOException {
+		Capture capture = historyStore.capture();
+		if(!formatOnSave || !XmlFormatService.isXml(path)) {
+			try (content) {
+				storage.write(path, capture.tee(out -> content.transferTo(out)));
+			}
+			return capture;
 		}
 
-		File file = new File(rootFolder, path);
-		String normalizedFilename = FilenameUtils.normalize(file.getAbsolutePath());
-		if(normalizedFilename == null) { // non absolute path, perhaps ../ is used?
-			throw new ApiException("Unable to determine normalized filename");
+		Path spool = Files.createTempFile("frank-flow-", ".xml");
+		try {
+			try (content) {
+				Files.copy(content, spool, StandardCopyOption.REPLACE_EXISTING);
+			}
+			try {
+				storage.write(path, capture.tee(out -> {
+					try (InputStream in = Files.newInputStream(spool)) {
+						formatService.getFormatter(false).format(in, out);
+					} catch (XMLStreamException e) {
+						throw new NotWellFormedException(e);
+					}
+				}));
+				return capture;
+			} catch (NotWellFormedException e) {
+				// The storage discards the incomplete output, the file is untouched
+				log.debug("not formatting file [{}] on save: {}", path, e.getCause().getMessage());
+				Capture unformatted = historyStore.capture();
+				try (InputStream in = Files.newInputStream(spool)) {
+					storage.write(path, unformatted.tee(out -> in.transferTo(out)));
+				}
+				return unformatted;
+			}
+		} finally {
+			Files.deleteIfExists(spool);
 		}
-//		else if(normalizedFilename.equals(file.getPath())) {
-		else {
-			return file;
+	}
+
+	private static class NotWellFormedException extends IOException {
+		NotWellFormedException(XMLStreamException cause) {
+			super(cause);
 		}
+	}
 
-//		throw new ApiException("Inaccessible path ["+file+"]");
+	private static String getETag(Storage storage, String path) throws IOException {
+		FileStat stat = storage.stat(path);
+		return stat != null ? stat.getETag() : null;
 	}
 }
@@ -0,0 +1,128 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.frankframework.frankflow.dto.FormatResultDTO;
+import org.frankframework.frankflow.event.FileChangedEvent;
+import org.frankframework.frankflow.event.FileChangedEvent.ChangeType;
+import org.frankframework.frankflow.format.XmlFormatService;
+import org.frankframework.frankflow.storage.Storage;
+import org.frankframework.frankflow.storage.Storage.FileStat;
+import org.frankframework.frankflow.storage.StorageService;
+import org.frankframework.frankflow.util.MimeTypeUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class FormatApi {
+
+	@Autowired
+	private Configurations configurations;
+
+	@Autowired
+	private StorageService storageService;
+
+	@Autowired
+	private XmlFormatService formatService;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	/**
+	 * Returns the formatted file without saving it. When <code>canonical</code> is set the attributes are sorted as well.
+	 * The response has no ETag, it's not the stored version of the file so edits can't be based on it.
+	 */
+	@GetMapping(value = "/configurations/{name}/format")
+	public ResponseEntity<?> getFormattedFile(@PathVariable("name") String configurationName, @RequestParam("path") String path, @RequestParam(value = "canonical", defaultValue = "false") boolean canonical) {
+		Storage storage = getStorage(configurationName);
+		String file = RequestPaths.getPath(path);
+
+		try {
+			FileStat stat = storage.stat(file);
+			if(stat == null) {
+				return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+			}
+			if(stat.directory()) {
+				return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+			}
+
+			byte[] content;
+			try (InputStream in = storage.read(file)) {
+				content = formatService.getFormatter(canonical).format(in.readAllBytes());
+			}
+			MediaType mediaType = MimeTypeUtil.determineFromPathMimeType(file);
+			return ResponseEntity.status(HttpStatus.OK).contentType(mediaType).body(content);
+		} catch (XMLStreamException e) {
+			throw new ApiException("Unable to format file [" + path + "]: " + e.getMessage(), HttpStatus.BAD_REQUEST);
+		} catch (IOException e) {
+			throw new ApiException("Unable to read file [" + path + "]", e);
+		}
+	}
+
+	/**
+	 * Formats and saves the given files, or all XML files in the configuration when no path has been specified.
+	 * Files are formatted in parallel, files that are not well-formed are reported and left untouched.
+	 */
+	@PostMapping(value = "/configurations/{name}/format", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<?> format(@PathVariable("name") String configurationName, @RequestParam(value = "path", required = false) List<String> paths, @RequestParam(value = "canonical", defaultValue = "false") boolean canonical) {
+		Storage storage = getStorage(configurationName);
+
+		List<String> files = new ArrayList<>();
+		try {
+			if(paths == null || paths.isEmpty()) {
+				files.addAll(XmlFormatService.findXmlFiles(storage, ""));
+			} else {
+				for(String path : paths) {
+					String file = RequestPaths.getPath(path);
+					FileStat stat = storage.stat(file);
+					if(stat == null || stat.directory()) {
+						throw new ApiException("File [" + path + "] does not exist", HttpStatus.NOT_FOUND);
+					}
+					files.add(file);
+				}
+			}
+		} catch (IOException e) {
+			throw new ApiException("Unable to read configuration [" + configurationName + "]", e);
+		}
+
+		List<FormatResultDTO> results = formatService.format(configurationName, storage, files, canonical);
+		for(FormatResultDTO result : results) {
+			if(result.isChanged()) {
+				eventPublisher.publishEvent(new FileChangedEvent(this, configurationName, result.getPath(), ChangeType.MODIFIED));
+			}
+		}
+		return ResponseEntity.status(HttpStatus.OK).body(results);
+	}
+
+	private Storage getStorage(String configurationName) {
+		return storageService.getStorage(configurations.getConfiguration(configurationName));
+	}
+}
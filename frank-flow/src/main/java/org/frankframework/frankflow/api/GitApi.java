@@ -0,0 +1,172 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.api;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jgit.diff.DiffEntry;
+import org.frankframework.frankflow.dto.GitBranchesDTO;
+import org.frankframework.frankflow.dto.GitCommitDTO;
+import org.frankframework.frankflow.event.FileChangedEvent;
+import org.frankframework.frankflow.event.FileChangedEvent.ChangeType;
+import org.frankframework.frankflow.storage.GitStorage;
+import org.frankframework.frankflow.storage.GitStorage.Commit;
+import org.frankframework.frankflow.storage.Storage;
+import org.frankframework.frankflow.storage.StorageService;
+import org.frankframework.frankflow.util.MimeTypeUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Branches, commits and older versions of configurations that use the <code>git</code> storage type.
+ * Older versions are read from the object database, the work tree is left untouched.
+ */
+@RestController
+public class GitApi {
+	private static final int MAX_LIMIT = 1000;
+
+	@Autowired
+	private Configurations configurations;
+
+	@Autowired
+	private StorageService storageService;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@GetMapping(value = "/configurations/{name}/git/branches", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<?> getBranches(@PathVariable("name") String configurationName) {
+		GitStorage storage = getGitStorage(configurationName);
+		try {
+			return ResponseEntity.status(HttpStatus.OK).body(toBranches(storage));
+		} catch (IOException e) {
+			throw new ApiException("Unable to read branches", e);
+		}
+	}
+
+	/**
+	 * Commits the pending changes and switches to the branch. All configurations in the same repository switch branch,
+	 * only the files that differ between both branches are updated.
+	 */
+	@PostMapping(value = "/configurations/{name}/git/checkout", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<?> checkout(@PathVariable("name") String configurationName, @RequestParam("branch") String branch) {
+		GitStorage storage = getGitStorage(configurationName);
+		try {
+			List<DiffEntry> changes;
+			try {
+				changes = storage.checkout(branch);
+			} catch (IllegalArgumentException e) {
+				throw new ApiException("Branch [" + branch + "] does not exist", HttpStatus.NOT_FOUND);
+			}
+
+			for(Map.Entry<String, Storage> entry : storageService.getStorages().entrySet()) {
+				if(entry.getValue() instanceof GitStorage other && other.isSameRepository(storage)) {
+					other.getChanges(changes).forEach((path, changeType) -> eventPublisher.publishEvent(new FileChangedEvent(this, entry.getKey(), path, changeType)));
+				}
+			}
+			return ResponseEntity.status(HttpStatus.OK).body(toBranches(storage));
+		} catch (IOException e) {
+			throw new ApiException("Unable to checkout branch [" + branch + "]", e);
+		}
+	}
+
+	/**
+	 * Commits the pending changes straight away, instead of waiting for the next batch.
+	 */
+	@PostMapping(value = "/configurations/{name}/git/commit", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<?> commit(@PathVariable("name") String configurationName) {
+		GitStorage storage = getGitStorage(configurationName);
+		try {
+			Commit commit = storage.commit();
+			if(commit == null) {
+				return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
+			}
+			return ResponseEntity.status(HttpStatus.CREATED).body(toCommit(commit));
+		} catch (IOException e) {
+			throw new ApiException("Unable to commit changes", e);
+		}
+	}
+
+	/**
+	 * Returns the commits that changed the file or directory, newest first. Pending changes are not part of the log.
+	 */
+	@GetMapping(value = "/configurations/{name}/git/log", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<?> getLog(@PathVariable("name") String configurationName, @RequestParam(value = "path", defaultValue = "") String path, @RequestParam(value = "limit", defaultValue = "100") int limit) {
+		if(limit < 1 || limit > MAX_LIMIT) {
+			throw new ApiException("Parameter [limit] must be between 1 and " + MAX_LIMIT, HttpStatus.BAD_REQUEST);
+		}
+
+		GitStorage storage = getGitStorage(configurationName);
+		try {
+			List<GitCommitDTO> commits = storage.getLog(RequestPaths.getPath(path), limit).stream().map(GitApi::toCommit).toList();
+			return ResponseEntity.status(HttpStatus.OK).body(commits);
+		} catch (IOException e) {
+			throw new ApiException("Unable to read log of [" + path + "]", e);
+		}
+	}
+
+	/**
+	 * Returns the file as it was in the revision (a branch, tag or commit id).
+	 */
+	@GetMapping(value = "/configurations/{name}/git/files")
+	public ResponseEntity<?> getFile(@PathVariable("name") String configurationName, @RequestParam("path") String path, @RequestParam(value = "revision", defaultValue = "HEAD") String revision) {
+		GitStorage storage = getGitStorage(configurationName);
+		String file = RequestPaths.getPath(path);
+		if(file.isEmpty()) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+		}
+
+		try {
+			byte[] content = storage.read(revision, file);
+			if(content == null) {
+				return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+			}
+			MediaType mediaType = MimeTypeUtil.determineFromPathMimeType(path);
+			return ResponseEntity.status(HttpStatus.OK).contentType(mediaType).body(content);
+		} catch (IOException e) {
+			throw new ApiException("Unable to read revision [" + revision + "] of file [" + path + "]", e);
+		}
+	}
+
+	private GitStorage getGitStorage(String configurationName) {
+		Storage storage = storageService.getStorage(configurations.getConfiguration(configurationName));
+		if(storage instanceof GitStorage gitStorage) {
+			return gitStorage;
+		}
+		throw new ApiException("Configuration [" + configurationName + "] is not stored in git", HttpStatus.BAD_REQUEST);
+	}
+
+	private static GitBranchesDTO toBranches(GitStorage storage) throws IOException {
+		GitBranchesDTO branches = new GitBranchesDTO();
+		branches.setCurrent(storage.getBranch());
+		branches.setBranches(storage.getBranches());
+		return branches;
+	}
+
+	private static GitCommitDTO toCommit(Commit commit) {
+		return new GitCommitDTO(commit.id(), commit.message(), commit.author(), commit.timestamp());
+	}
+}
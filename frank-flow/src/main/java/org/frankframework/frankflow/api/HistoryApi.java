@@ -0,0 +1,118 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.api;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+
+import org.frankframework.frankflow.dto.FileVersionDTO;
+import org.frankframework.frankflow.event.FileChangedEvent;
+import org.frankframework.frankflow.event.FileChangedEvent.ChangeType;
+import org.frankframework.frankflow.history.HistoryStore;
+import org.frankframework.frankflow.storage.Storage;
+import org.frankframework.frankflow.storage.Storage.FileStat;
+import org.frankframework.frankflow.storage.StorageService;
+import org.frankframework.frankflow.util.MimeTypeUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class HistoryApi {
+
+	@Autowired
+	private Configurations configurations;
+
+	@Autowired
+	private StorageService storageService;
+
+	@Autowired
+	private HistoryStore historyStore;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	/**
+	 * Returns all saved versions of the file, newest first. The file itself does not have to exist (anymore).
+	 */
+	@GetMapping(value = "/configurations/{name}/history", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<?> getHistory(@PathVariable("name") String configurationName, @RequestParam("path") String path) {
+		configurations.getConfiguration(configurationName);
+		String file = RequestPaths.getPath(path);
+		List<FileVersionDTO> versions = historyStore.getVersions(configurationName, file).stream()
+				.map(e -> new FileVersionDTO(e.hash(), e.timestamp(), e.size()))
+				.toList();
+		return ResponseEntity.status(HttpStatus.OK).body(versions);
+	}
+
+	@GetMapping(value = "/configurations/{name}/history/{version}")
+	public ResponseEntity<?> getVersion(@PathVariable("name") String configurationName, @PathVariable("version") String version, @RequestParam("path") String path) {
+		configurations.getConfiguration(configurationName);
+		String file = RequestPaths.getPath(path);
+		try {
+			byte[] content = historyStore.getContent(configurationName, file, version);
+			if(content == null) {
+				return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+			}
+			MediaType mediaType = MimeTypeUtil.determineFromPathMimeType(file);
+			return ResponseEntity.status(HttpStatus.OK).contentType(mediaType).eTag("W/\"" + version + "\"").body(content);
+		} catch (IOException e) {
+			throw new ApiException("Unable to read version [" + version + "] of file [" + path + "]", e);
+		}
+	}
+
+	/**
+	 * Replaces the file with an older version, the current contents remain available in the history.
+	 */
+	@PostMapping(value = "/configurations/{name}/history/{version}/restore", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<?> restoreVersion(@PathVariable("name") String configurationName, @PathVariable("version") String version, @RequestParam("path") String path) {
+		Storage storage = storageService.getStorage(configurations.getConfiguration(configurationName));
+		String file = RequestPaths.getPath(path);
+
+		try {
+			FileStat stat = storage.stat(file);
+			if(stat != null && stat.directory()) {
+				return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+			}
+
+			byte[] content = historyStore.getContent(configurationName, file, version);
+			if(content == null) {
+				return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+			}
+
+			historyStore.recordOriginal(configurationName, file, storage);
+			String parent = Storage.getParent(file);
+			if(storage.stat(parent) == null) {
+				storage.createDirectory(parent);
+			}
+			storage.write(file, new ByteArrayInputStream(content));
+			historyStore.recordVersion(configurationName, file, content);
+
+			eventPublisher.publishEvent(new FileChangedEvent(this, configurationName, file, stat != null ? ChangeType.MODIFIED : ChangeType.CREATED));
+			return ResponseEntity.status(HttpStatus.OK).eTag(storage.stat(file).getETag()).build();
+		} catch (IOException e) {
+			throw new ApiException("An error occurred while restoring file [" + path + "]", e);
+		}
+	}
+}
@@ -0,0 +1,47 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.api;
+
+import org.frankframework.frankflow.dto.LayoutDTO;
+import org.frankframework.frankflow.dto.LayoutRequestDTO;
+import org.frankframework.frankflow.layout.LayoutService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class LayoutApi {
+
+	@Autowired
+	private LayoutService layoutService;
+
+	/**
+	 * Computes the positions of the nodes of a (parsed) adapter. Nodes without a size use the default size of the canvas.
+	 */
+	@PostMapping(value = "/layout", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<?> layout(@RequestBody LayoutRequestDTO request) {
+		try {
+			LayoutDTO layout = layoutService.layout(request);
+			return ResponseEntity.status(HttpStatus.OK).body(layout);
+		} catch (IllegalArgumentException e) {
+			throw new ApiException(e.getMessage(), HttpStatus.BAD_REQUEST);
+		}
+	}
+}
@@ -0,0 +1,49 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.api;
+
+import java.util.Map;
+
+import org.frankframework.frankflow.lifecycle.WarmUp;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class ReadinessApi {
+
+	@Autowired
+	private WarmUp warmUp;
+
+	/**
+	 * Readiness probe for load balancers, returns <code>503</code> until the warm-up has been completed,
+	 * and keeps returning it (with the failed steps) when the configurations could not be loaded.
+	 */
+	@GetMapping(value = "/readiness", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<?> getReadiness() {
+		if(warmUp.isReady()) {
+			return ResponseEntity.status(HttpStatus.OK).body(Map.of("status", "UP"));
+		}
+		if(warmUp.isCompleted()) {
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("status", "DOWN", "failedSteps", warmUp.getFailedSteps()));
+		}
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(Map.of("status", "WARMING_UP"));
+	}
+}
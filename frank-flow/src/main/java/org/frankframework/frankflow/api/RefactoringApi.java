@@ -0,0 +1,151 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.api;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+import org.frankframework.frankflow.analysis.AdapterSummary;
+import org.frankframework.frankflow.analysis.PipeSummary;
+import org.frankframework.frankflow.analysis.ReferenceGraph;
+import org.frankframework.frankflow.analysis.ReferenceGraphService;
+import org.frankframework.frankflow.dto.ConfigurationDTO;
+import org.frankframework.frankflow.dto.FileEditsDTO;
+import org.frankframework.frankflow.dto.RenameResultDTO;
+import org.frankframework.frankflow.event.FileChangedEvent;
+import org.frankframework.frankflow.event.FileChangedEvent.ChangeType;
+import org.frankframework.frankflow.refactoring.RefactoringService;
+import org.frankframework.frankflow.refactoring.RenameRefactoring;
+import org.frankframework.frankflow.refactoring.RenameRefactoring.Kind;
+import org.frankframework.frankflow.storage.Storage;
+import org.frankframework.frankflow.storage.StorageService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class RefactoringApi {
+
+	@Autowired
+	private Configurations configurations;
+
+	@Autowired
+	private StorageService storageService;
+
+	@Autowired
+	private ReferenceGraphService referenceGraphService;
+
+	@Autowired
+	private RefactoringService refactoringService;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	/**
+	 * Renames an adapter, or a pipe or exit of the given adapter, and updates all references to it (FrankSenders, forwards and firstPipe).
+	 * The files that contain references are looked up in the reference graph of the configuration, only the attribute values are rewritten.
+	 * Either all files are changed or none of them. When <code>dryRun</code> is set the edits are returned without saving them.
+	 */
+	@PostMapping(value = "/configurations/{name}/refactor/rename", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<?> rename(@PathVariable("name") String configurationName, @RequestParam("kind") Kind kind, @RequestParam("name") String name,
+			@RequestParam("newName") String newName, @RequestParam(value = "adapter", required = false) String adapter,
+			@RequestParam(value = "dryRun", defaultValue = "false") boolean dryRun) {
+
+		if(StringUtils.isBlank(newName) || newName.contains("${") || !newName.equals(newName.trim())) {
+			throw new ApiException("Invalid name [" + newName + "]", HttpStatus.BAD_REQUEST);
+		}
+		if(newName.equals(name)) {
+			throw new ApiException("The new name is equal to the current name", HttpStatus.BAD_REQUEST);
+		}
+
+		ConfigurationDTO configuration = configurations.getConfiguration(configurationName);
+		Storage storage = storageService.getStorage(configuration);
+		ReferenceGraph graph = referenceGraphService.getReferenceGraph(configurationName, storage);
+		Collection<String> files = switch (kind) {
+		case ADAPTER -> getFilesForAdapterRename(graph, name, newName);
+		case PIPE, EXIT -> getFilesForPipelineRename(graph, kind, adapter, name, newName);
+		};
+
+		RenameRefactoring refactoring = new RenameRefactoring(configurationName, kind, adapter, name, newName);
+		List<FileEditsDTO> edits;
+		try {
+			edits = refactoringService.rename(configurationName, storage, refactoring, files, dryRun);
+		} catch (IllegalArgumentException e) {
+			throw new ApiException(e.getMessage(), HttpStatus.UNPROCESSABLE_ENTITY);
+		} catch (IllegalStateException e) {
+			throw new ApiException("Unable to rename [" + name + "]: " + e.getMessage(), HttpStatus.CONFLICT);
+		}
+
+		if(!dryRun) {
+			for(FileEditsDTO file : edits) {
+				eventPublisher.publishEvent(new FileChangedEvent(this, configurationName, file.getPath(), ChangeType.MODIFIED));
+			}
+		}
+
+		RenameResultDTO result = new RenameResultDTO();
+		result.setKind(kind);
+		result.setAdapter(kind == Kind.ADAPTER ? null : adapter);
+		result.setName(name);
+		result.setNewName(newName);
+		result.setApplied(!dryRun);
+		result.setFiles(edits);
+		return ResponseEntity.status(HttpStatus.OK).body(result);
+	}
+
+	private Collection<String> getFilesForAdapterRename(ReferenceGraph graph, String name, String newName) {
+		if(graph.getAdapterFiles(name).isEmpty()) {
+			throw new ApiException("Adapter [" + name + "] does not exist", HttpStatus.NOT_FOUND);
+		}
+		if(!graph.getAdapterFiles(newName).isEmpty()) {
+			throw new ApiException("Adapter [" + newName + "] already exists", HttpStatus.CONFLICT);
+		}
+		return graph.getFilesUsingAdapter(name);
+	}
+
+	/**
+	 * Pipes and exits can only be referenced from within their own adapter, which must be unique.
+	 */
+	private Collection<String> getFilesForPipelineRename(ReferenceGraph graph, Kind kind, String adapter, String name, String newName) {
+		if(StringUtils.isEmpty(adapter)) {
+			throw new ApiException("An adapter is required to rename a " + kind.name().toLowerCase(), HttpStatus.BAD_REQUEST);
+		}
+		List<String> files = graph.getAdapterFiles(adapter);
+		if(files.isEmpty()) {
+			throw new ApiException("Adapter [" + adapter + "] does not exist", HttpStatus.NOT_FOUND);
+		}
+		if(files.size() > 1) {
+			throw new ApiException("Adapter [" + adapter + "] has been defined more than once", HttpStatus.CONFLICT);
+		}
+
+		AdapterSummary summary = graph.getFiles().get(files.get(0)).getAdapters().stream().filter(e -> adapter.equals(e.getName())).findFirst().orElseThrow();
+		List<String> pipes = summary.getPipes().stream().map(PipeSummary::getName).toList();
+		List<String> existing = kind == Kind.PIPE ? pipes : summary.getExits();
+		if(!existing.contains(name)) {
+			throw new ApiException(StringUtils.capitalize(kind.name().toLowerCase()) + " [" + name + "] does not exist in adapter [" + adapter + "]", HttpStatus.NOT_FOUND);
+		}
+		if(pipes.contains(newName) || summary.getExits().contains(newName)) {
+			throw new ApiException("Pipe or exit [" + newName + "] already exists in adapter [" + adapter + "]", HttpStatus.CONFLICT);
+		}
+		return files;
+	}
+}
@@ -0,0 +1,45 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.api;
+
+import org.frankframework.frankflow.storage.Storage;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Validates the path parameters of the API, see {@link Storage#normalize(String)}.
+ */
+final class RequestPaths {
+
+	private RequestPaths() {
+		// Use the static getPath method
+	}
+
+	/**
+	 * Check if the path is accessible and inside the configuration (eq. no ../ in path)
+	 * @return the normalized path, relative to the root of the configuration.
+	 */
+	static String getPath(String path) {
+		if(path == null) {
+			throw new ApiException("No (valid) path specified", HttpStatus.BAD_REQUEST);
+		}
+
+		try {
+			return Storage.normalize(path);
+		} catch (IllegalArgumentException e) {
+			throw new ApiException("Inaccessible path [" + path + "]", HttpStatus.BAD_REQUEST);
+		}
+	}
+}
@@ -0,0 +1,45 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.api;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.frankframework.frankflow.util.StatisticsProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class StatisticsApi {
+
+	@Autowired(required = false)
+	private List<StatisticsProvider> providers = Collections.emptyList();
+
+	@GetMapping(value = "/statistics", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<?> getStatistics() {
+		Map<String, Object> statistics = new TreeMap<>();
+		for(StatisticsProvider provider : providers) {
+			statistics.put(provider.getStatisticsName(), provider.getStatistics());
+		}
+		return ResponseEntity.status(HttpStatus.OK).body(statistics);
+	}
+}
@@ -0,0 +1,87 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.api;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.FilenameUtils;
+import org.frankframework.frankflow.dto.ValidationResultDTO;
+import org.frankframework.frankflow.storage.Storage;
+import org.frankframework.frankflow.storage.Storage.FileStat;
+import org.frankframework.frankflow.storage.StorageService;
+import org.frankframework.frankflow.validation.XmlValidationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class ValidationApi {
+
+	@Autowired
+	private Configurations configurations;
+
+	@Autowired
+	private StorageService storageService;
+
+	@Autowired
+	private XmlValidationService validationService;
+
+	/**
+	 * Validates the given files, or all XML files in the configuration when no path has been specified.
+	 * Schemas are resolved (relative to the files) by the XML parser, so the files must be stored on the local file-system.
+	 */
+	@PostMapping(value = "/configurations/{name}/validate", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<?> validate(@PathVariable("name") String configurationName, @RequestParam(value = "path", required = false) List<String> paths) {
+		Storage storage = storageService.getStorage(configurations.getConfiguration(configurationName));
+		Path root = storage.getLocalRoot();
+		if(root == null) {
+			throw new ApiException("Validation is not supported by the storage [" + storage + "] of configuration [" + configurationName + "]", HttpStatus.NOT_IMPLEMENTED);
+		}
+
+		List<Path> files = new ArrayList<>();
+		try {
+			if(paths == null || paths.isEmpty()) {
+				try (Stream<Path> stream = Files.walk(root)) {
+					stream.filter(Files::isRegularFile).filter(e -> "xml".equalsIgnoreCase(FilenameUtils.getExtension(e.toString()))).forEach(files::add);
+				}
+			} else {
+				for(String path : paths) {
+					String file = RequestPaths.getPath(path);
+					FileStat stat = storage.stat(file);
+					if(stat == null || stat.directory()) {
+						throw new ApiException("File [" + path + "] does not exist", HttpStatus.NOT_FOUND);
+					}
+					files.add(root.resolve(file));
+				}
+			}
+		} catch (IOException e) {
+			throw new ApiException("Unable to read configuration [" + configurationName + "]", e);
+		}
+
+		List<ValidationResultDTO> results = validationService.validate(root, files);
+		return ResponseEntity.status(HttpStatus.OK).body(results);
+	}
+}
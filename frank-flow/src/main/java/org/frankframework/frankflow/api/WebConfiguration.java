@@ -16,14 +16,12 @@
 package org.frankframework.frankflow.api;
 
 import java.util.List;
-import java.util.Optional;
 
 import org.frankframework.frankflow.util.InputStreamHttpMessageConverter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.converter.FormHttpMessageConverter;
 import org.springframework.http.converter.HttpMessageConverter;
-import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
 import org.springframework.web.multipart.support.StandardServletMultipartResolver;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -37,12 +35,6 @@ public class WebConfiguration implements WebMvcConfigurer {
 
 	@Override
 	public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
-		Optional<HttpMessageConverter<?>> converterFound = converters.stream().filter(AbstractJackson2HttpMessageConverter.class::isInstance).findFirst();
-		if (converterFound.isPresent()) {
-			AbstractJackson2HttpMessageConverter converter = (AbstractJackson2HttpMessageConverter) converterFound.get();
-			converter.setPrettyPrint(true);
-		}
-
 		converters.add(new InputStreamHttpMessageConverter());
 		converters.add(new FormHttpMessageConverter());
 	}
@@ -0,0 +1,176 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.NoSuchFileException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.frankframework.frankflow.event.FileChangedEvent;
+import org.frankframework.frankflow.storage.Storage;
+import org.frankframework.frankflow.storage.Storage.FileStat;
+import org.frankframework.frankflow.util.ByteBufferInputStream;
+import org.frankframework.frankflow.util.FileUtils;
+import org.frankframework.frankflow.util.RequestCoalescer;
+import org.frankframework.frankflow.util.StatisticsProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * LRU cache of file contents, bounded by the total number of bytes.
+ * <p>
+ * Entries are stored per configuration and (relative) path, and are only used when the last modified time and size
+ * of the file in the storage still match. Entries are evicted when the file is changed through the API ({@link FileChangedEvent}).
+ * Concurrent misses for the same version of a file are coalesced into a single read.
+ * When <code>frank-flow.cache.content.off-heap</code> is enabled, the content is stored in direct {@link ByteBuffer ByteBuffers}.
+ * </p>
+ */
+@Component
+public class FileContentCache implements StatisticsProvider {
+	private static final Logger log = LogManager.getLogger(FileContentCache.class);
+
+	private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long currentSize = 0;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	@Autowired
+	private RequestCoalescer requestCoalescer;
+
+	@Value("${frank-flow.cache.content.max-size:33554432}")
+	private long maxSize;
+
+	@Value("${frank-flow.cache.content.max-entry-size:4194304}")
+	private long maxEntrySize;
+
+	@Value("${frank-flow.cache.content.off-heap:false}")
+	private boolean offHeap;
+
+	private record Entry(String configuration, String path, long lastModified, long size, ByteBuffer content) {}
+
+	/**
+	 * Returns the content of the file, from cache when the file has not been modified.
+	 * Files larger than <code>frank-flow.cache.content.max-entry-size</code> are streamed from the storage.
+	 */
+	public InputStream getContent(String configuration, String path, Storage storage) throws IOException {
+		FileStat attributes = storage.stat(path);
+		if(attributes == null) {
+			throw new NoSuchFileException(path);
+		}
+		long lastModified = attributes.lastModified();
+		String key = toKey(configuration, path);
+
+		synchronized (entries) {
+			Entry entry = entries.get(key);
+			if(entry != null && entry.lastModified() == lastModified && entry.size() == attributes.size()) {
+				hits.increment();
+				return new ByteBufferInputStream(entry.content());
+			}
+		}
+
+		misses.increment();
+		if(attributes.size() > maxEntrySize || attributes.size() > maxSize) {
+			return storage.read(path);
+		}
+
+		// Concurrent requests for the same version of the file share a single read
+		ByteBuffer content = requestCoalescer.execute("file:" + key + ":" + lastModified + ":" + attributes.size(), () -> {
+			byte[] bytes;
+			try (InputStream is = storage.read(path)) {
+				bytes = is.readAllBytes();
+			}
+			ByteBuffer buffer = offHeap ? ByteBuffer.allocateDirect(bytes.length).put(bytes).flip() : ByteBuffer.wrap(bytes);
+			put(key, new Entry(configuration, FileUtils.normalizeRelativePath(path), lastModified, bytes.length, buffer.asReadOnlyBuffer()));
+			return buffer.asReadOnlyBuffer();
+		});
+		return new ByteBufferInputStream(content);
+	}
+
+	private void put(String key, Entry entry) {
+		synchronized (entries) {
+			Entry previous = entries.put(key, entry);
+			if(previous != null) {
+				currentSize -= previous.size();
+			}
+			currentSize += entry.size();
+
+			Iterator<Entry> iterator = entries.values().iterator();
+			while(currentSize > maxSize && iterator.hasNext()) {
+				Entry eldest = iterator.next();
+				iterator.remove();
+				currentSize -= eldest.size();
+				evictions.increment();
+			}
+		}
+	}
+
+	private static String toKey(String configuration, String path) {
+		return configuration + ":" + FileUtils.normalizeRelativePath(path);
+	}
+
+	@EventListener
+	public void onFileChanged(FileChangedEvent event) {
+		synchronized (entries) {
+			Iterator<Entry> iterator = entries.values().iterator();
+			while(iterator.hasNext()) {
+				Entry entry = iterator.next();
+				if(entry.configuration().equals(event.getConfiguration()) && event.affects(entry.path())) {
+					log.trace("evicting [{}] after {}", entry.path(), event);
+					iterator.remove();
+					currentSize -= entry.size();
+				}
+			}
+		}
+	}
+
+	public void clear() {
+		synchronized (entries) {
+			entries.clear();
+			currentSize = 0;
+		}
+	}
+
+	@Override
+	public String getStatisticsName() {
+		return "fileContentCache";
+	}
+
+	@Override
+	public Map<String, Object> getStatistics() {
+		Map<String, Object> statistics = new LinkedHashMap<>();
+		synchronized (entries) {
+			statistics.put("entries", entries.size());
+			statistics.put("size", currentSize);
+		}
+		statistics.put("maxSize", maxSize);
+		statistics.put("offHeap", offHeap);
+		statistics.put("hits", hits.sum());
+		statistics.put("misses", misses.sum());
+		statistics.put("evictions", evictions.sum());
+		return statistics;
+	}
+}
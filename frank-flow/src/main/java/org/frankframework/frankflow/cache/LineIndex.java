@@ -0,0 +1,142 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.cache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The start offset of every line of a file, so a range of lines can be read without reading the rest of the file.
+ * Lines are separated by <code>\n</code>, a trailing <code>\r</code> is not part of the line.
+ */
+public class LineIndex {
+	private static final int MAX_REGION_SIZE = 256 * 1024 * 1024;
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final long[] offsets;
+	private final long size;
+
+	private LineIndex(long[] offsets, long size) {
+		this.offsets = offsets;
+		this.size = size;
+	}
+
+	/**
+	 * Scans the file for line breaks. Files are scanned in (memory-mapped) regions of at most 256MB,
+	 * other channels are read in buffers of 64KB.
+	 */
+	public static LineIndex build(SeekableByteChannel channel) throws IOException {
+		long size = channel.size();
+		Offsets offsets = new Offsets();
+
+		if(channel instanceof FileChannel fileChannel) {
+			for(long position = 0; position < size; position += MAX_REGION_SIZE) {
+				long regionSize = Math.min(MAX_REGION_SIZE, size - position);
+				offsets.scan(fileChannel.map(FileChannel.MapMode.READ_ONLY, position, regionSize), position);
+			}
+		} else {
+			ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+			long position = 0;
+			channel.position(0);
+			while(channel.read(buffer) != -1) {
+				buffer.flip();
+				offsets.scan(buffer, position);
+				position += buffer.limit();
+				buffer.clear();
+			}
+		}
+
+		// A line break at the end of the file does not start a new line
+		if(offsets.count > 1 && offsets.offsets[offsets.count - 1] == size) {
+			offsets.count--;
+		}
+		return new LineIndex(Arrays.copyOf(offsets.offsets, offsets.count), size);
+	}
+
+	private static class Offsets {
+		private long[] offsets = new long[1024];
+		private int count = 1; // The first line starts at offset 0
+
+		void scan(ByteBuffer region, long position) {
+			int limit = region.limit();
+			for(int i = 0; i < limit; i++) {
+				if(region.get(i) == '\n') {
+					if(count == offsets.length) {
+						offsets = Arrays.copyOf(offsets, count * 2);
+					}
+					offsets[count++] = position + i + 1;
+				}
+			}
+		}
+	}
+
+	public int getLineCount() {
+		return size == 0 ? 0 : offsets.length;
+	}
+
+	public long getSize() {
+		return size;
+	}
+
+	/** Number of bytes used by the index itself */
+	long getMemorySize() {
+		return offsets.length * 8L;
+	}
+
+	/**
+	 * Reads lines <code>from</code> to <code>to</code> (1-based, inclusive) as UTF-8.
+	 */
+	public List<String> readLines(SeekableByteChannel channel, int from, int to) throws IOException {
+		if(from < 1 || to < from || to > getLineCount()) {
+			throw new IllegalArgumentException("invalid line range [" + from + "-" + to + "] for file with [" + getLineCount() + "] lines");
+		}
+
+		long start = offsets[from - 1];
+		long end = to < offsets.length ? offsets[to] : size;
+		ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(end - start));
+		channel.position(start);
+		while(buffer.hasRemaining() && channel.read(buffer) != -1) {
+			// Keep reading until the range is complete
+		}
+		buffer.flip();
+
+		List<String> lines = new ArrayList<>(to - from + 1);
+		String content = StandardCharsets.UTF_8.decode(buffer).toString();
+		int lineStart = 0;
+		while(lineStart < content.length() && lines.size() <= to - from) {
+			int lineEnd = content.indexOf('\n', lineStart);
+			if(lineEnd == -1) {
+				lineEnd = content.length();
+			}
+			int next = lineEnd + 1;
+			if(lineEnd > lineStart && content.charAt(lineEnd - 1) == '\r') {
+				lineEnd--;
+			}
+			lines.add(content.substring(lineStart, lineEnd));
+			lineStart = next;
+		}
+		while(lines.size() <= to - from) { // Empty lines at the end of the range
+			lines.add("");
+		}
+		return lines;
+	}
+}
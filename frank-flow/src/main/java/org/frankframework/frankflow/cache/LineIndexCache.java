@@ -0,0 +1,134 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.cache;
+
+import java.io.IOException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.frankframework.frankflow.event.FileChangedEvent;
+import org.frankframework.frankflow.storage.Storage;
+import org.frankframework.frankflow.storage.Storage.FileStat;
+import org.frankframework.frankflow.util.FileUtils;
+import org.frankframework.frankflow.util.StatisticsProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * LRU cache of {@link LineIndex LineIndexes}, bounded by their total size.
+ * <p>
+ * Entries are stored per configuration and (relative) path, and are only used when the last modified time and size
+ * of the file in the storage still match. Entries are evicted when the file is changed through the API ({@link FileChangedEvent}).
+ * </p>
+ */
+@Component
+public class LineIndexCache implements StatisticsProvider {
+	private static final Logger log = LogManager.getLogger(LineIndexCache.class);
+
+	private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long currentSize = 0;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	@Value("${frank-flow.cache.line-index.max-size:16777216}")
+	private long maxSize;
+
+	private record Entry(String configuration, String path, long lastModified, long size, LineIndex index) {}
+
+	public LineIndex getLineIndex(String configuration, String path, Storage storage) throws IOException {
+		FileStat attributes = storage.stat(path);
+		if(attributes == null) {
+			throw new NoSuchFileException(path);
+		}
+		long lastModified = attributes.lastModified();
+		String key = configuration + ":" + FileUtils.normalizeRelativePath(path);
+
+		synchronized (entries) {
+			Entry entry = entries.get(key);
+			if(entry != null && entry.lastModified() == lastModified && entry.size() == attributes.size()) {
+				hits.increment();
+				return entry.index();
+			}
+		}
+
+		misses.increment();
+		long start = System.currentTimeMillis();
+		LineIndex index;
+		try (SeekableByteChannel channel = storage.open(path)) {
+			index = LineIndex.build(channel);
+		}
+		log.debug("indexed [{}] lines of file [{}] in [{}] ms", index.getLineCount(), path, System.currentTimeMillis() - start);
+
+		synchronized (entries) {
+			Entry previous = entries.put(key, new Entry(configuration, FileUtils.normalizeRelativePath(path), lastModified, attributes.size(), index));
+			if(previous != null) {
+				currentSize -= previous.index().getMemorySize();
+			}
+			currentSize += index.getMemorySize();
+
+			Iterator<Entry> iterator = entries.values().iterator();
+			while(currentSize > maxSize && iterator.hasNext()) {
+				Entry eldest = iterator.next();
+				if(eldest.index() == index) {
+					continue; // Always keep the index that has just been built
+				}
+				iterator.remove();
+				currentSize -= eldest.index().getMemorySize();
+			}
+		}
+		return index;
+	}
+
+	@EventListener
+	public void onFileChanged(FileChangedEvent event) {
+		synchronized (entries) {
+			Iterator<Entry> iterator = entries.values().iterator();
+			while(iterator.hasNext()) {
+				Entry entry = iterator.next();
+				if(entry.configuration().equals(event.getConfiguration()) && event.affects(entry.path())) {
+					iterator.remove();
+					currentSize -= entry.index().getMemorySize();
+				}
+			}
+		}
+	}
+
+	@Override
+	public String getStatisticsName() {
+		return "lineIndexCache";
+	}
+
+	@Override
+	public Map<String, Object> getStatistics() {
+		Map<String, Object> statistics = new LinkedHashMap<>();
+		synchronized (entries) {
+			statistics.put("entries", entries.size());
+			statistics.put("size", currentSize);
+		}
+		statistics.put("maxSize", maxSize);
+		statistics.put("hits", hits.sum());
+		statistics.put("misses", misses.sum());
+		return statistics;
+	}
+}
@@ -0,0 +1,32 @@
+package org.frankframework.frankflow.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * An adapter, or a file when the reference is not part of an adapter (eg. a scheduler job), that calls the adapter <code>via</code>.
+ */
+public class AffectedAdapterDTO {
+
+	private @Getter @Setter String configuration;
+	private @Getter @Setter String path;
+	private @Getter @Setter String adapter;
+	private @Getter @Setter int line;
+	/** The called adapter, as <code>configuration/adapter</code> */
+	private @Getter @Setter String via;
+	/** Number of calls between this adapter and the changed file */
+	private @Getter @Setter int depth;
+
+	public AffectedAdapterDTO() {
+		// Required for Jackson
+	}
+
+	public AffectedAdapterDTO(String configuration, String path, String adapter, int line, String via, int depth) {
+		this.configuration = configuration;
+		this.path = path;
+		this.adapter = adapter;
+		this.line = line;
+		this.via = via;
+		this.depth = depth;
+	}
+}
@@ -0,0 +1,14 @@
+package org.frankframework.frankflow.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+public class ConfigurationCloneDTO {
+
+	public enum Method { REFLINK, HARDLINK, COPY }
+
+	private @Getter @Setter String name;
+	private @Getter @Setter Method method;
+	private @Getter @Setter long files;
+	private @Getter @Setter long directories;
+}
@@ -0,0 +1,18 @@
+package org.frankframework.frankflow.dto;
+
+import java.util.List;
+
+import lombok.Getter;
+import lombok.Setter;
+
+public class ConfigurationDependenciesDTO {
+
+	private @Getter @Setter String name;
+	private @Getter @Setter String parent;
+	/** Configurations that have this configuration as parent */
+	private @Getter @Setter List<String> children;
+	/** Configurations with adapters that are called by this configuration */
+	private @Getter @Setter List<String> dependsOn;
+	/** Configurations that call adapters of this configuration */
+	private @Getter @Setter List<String> dependents;
+}
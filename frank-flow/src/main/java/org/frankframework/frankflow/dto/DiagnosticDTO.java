@@ -0,0 +1,48 @@
+package org.frankframework.frankflow.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@JsonInclude(Include.NON_NULL)
+public class DiagnosticDTO {
+
+	public enum Severity { WARNING, ERROR }
+
+	public enum Code {
+		NOT_WELL_FORMED,
+		DUPLICATE_ADAPTER,
+		DUPLICATE_PIPE,
+		UNKNOWN_FIRST_PIPE,
+		BROKEN_FORWARD,
+		UNREACHABLE_PIPE,
+		DANGLING_REFERENCE
+	}
+
+	private @Getter @Setter Severity severity;
+	private @Getter @Setter Code code;
+	private @Getter @Setter String path;
+	private @Getter @Setter int line;
+	private @Getter @Setter String adapter;
+	private @Getter @Setter String message;
+
+	public DiagnosticDTO() {
+		// Required for Jackson
+	}
+
+	public DiagnosticDTO(Severity severity, Code code, String path, int line, String adapter, String message) {
+		this.severity = severity;
+		this.code = code;
+		this.path = path;
+		this.line = line;
+		this.adapter = adapter;
+		this.message = message;
+	}
+
+	@Override
+	public String toString() {
+		return code + " " + path + ":" + line + " " + message;
+	}
+}
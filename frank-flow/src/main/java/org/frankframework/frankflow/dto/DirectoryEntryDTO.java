@@ -0,0 +1,30 @@
+package org.frankframework.frankflow.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A single file or directory in a {@link DirectoryListingDTO}.
+ * Directories contain the number of direct children and, when expanded (depth &gt; 1), their entries.
+ */
+@JsonInclude(Include.NON_NULL)
+public class DirectoryEntryDTO {
+
+	private @Getter @Setter String name;
+	private @Getter @Setter boolean directory;
+	private @Getter @Setter Long size;
+	private @Getter @Setter Integer children;
+
+	private @Getter @Setter List<DirectoryEntryDTO> entries;
+	private @Getter @Setter String nextCursor;
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
@@ -0,0 +1,26 @@
+package org.frankframework.frankflow.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * One page of (sorted) directory entries. When more entries are available, the
+ * <code>nextCursor</code> can be used to retrieve the next page.
+ */
+@JsonInclude(Include.NON_NULL)
+public class DirectoryListingDTO {
+
+	private @Getter @Setter String path;
+	private @Getter @Setter List<DirectoryEntryDTO> entries;
+	private @Getter @Setter String nextCursor;
+
+	@Override
+	public String toString() {
+		return path;
+	}
+}
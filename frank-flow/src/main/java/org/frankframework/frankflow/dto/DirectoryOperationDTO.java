@@ -0,0 +1,12 @@
+package org.frankframework.frankflow.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+public class DirectoryOperationDTO {
+
+	private @Getter @Setter String path;
+	private @Getter @Setter long files;
+	private @Getter @Setter long directories;
+	private @Getter @Setter long bytes;
+}
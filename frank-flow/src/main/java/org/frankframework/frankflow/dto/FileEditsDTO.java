@@ -0,0 +1,17 @@
+package org.frankframework.frankflow.dto;
+
+import java.util.List;
+
+import lombok.Getter;
+import lombok.Setter;
+
+public class FileEditsDTO {
+
+	private @Getter @Setter String path;
+	private @Getter @Setter List<TextEditDTO> edits;
+
+	public FileEditsDTO(String path, List<TextEditDTO> edits) {
+		this.path = path;
+		this.edits = edits;
+	}
+}
@@ -0,0 +1,18 @@
+package org.frankframework.frankflow.dto;
+
+import java.util.List;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A range of lines of a file, <code>from</code> and <code>to</code> are 1-based and inclusive.
+ */
+public class FileLinesDTO {
+
+	private @Getter @Setter int from;
+	private @Getter @Setter int to;
+	private @Getter @Setter int totalLines;
+	private @Getter @Setter long size;
+	private @Getter @Setter List<String> lines;
+}
@@ -0,0 +1,13 @@
+package org.frankframework.frankflow.dto;
+
+import java.util.List;
+
+import lombok.Getter;
+import lombok.Setter;
+
+public class FilePatchDTO {
+
+	/** ETag of the content the edits have been based on, may also be passed as <code>If-Match</code> header */
+	private @Getter @Setter String baseETag;
+	private @Getter @Setter List<TextEditDTO> edits;
+}
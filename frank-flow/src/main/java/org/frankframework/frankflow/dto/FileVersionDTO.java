@@ -0,0 +1,17 @@
+package org.frankframework.frankflow.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+public class FileVersionDTO {
+
+	private @Getter @Setter String version;
+	private @Getter @Setter long timestamp;
+	private @Getter @Setter int size;
+
+	public FileVersionDTO(String version, long timestamp, int size) {
+		this.version = version;
+		this.timestamp = timestamp;
+		this.size = size;
+	}
+}
@@ -0,0 +1,19 @@
+package org.frankframework.frankflow.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@JsonInclude(Include.NON_NULL)
+public class FormatResultDTO {
+
+	private @Getter @Setter String path;
+	private @Getter @Setter boolean changed;
+	private @Getter @Setter String error;
+
+	public FormatResultDTO(String path) {
+		this.path = path;
+	}
+}
@@ -0,0 +1,12 @@
+package org.frankframework.frankflow.dto;
+
+import java.util.List;
+
+import lombok.Getter;
+import lombok.Setter;
+
+public class GitBranchesDTO {
+
+	private @Getter @Setter String current;
+	private @Getter @Setter List<String> branches;
+}
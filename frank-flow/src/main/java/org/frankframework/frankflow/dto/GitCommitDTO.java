@@ -0,0 +1,19 @@
+package org.frankframework.frankflow.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+public class GitCommitDTO {
+
+	private @Getter @Setter String id;
+	private @Getter @Setter String message;
+	private @Getter @Setter String author;
+	private @Getter @Setter long timestamp;
+
+	public GitCommitDTO(String id, String message, String author, long timestamp) {
+		this.id = id;
+		this.message = message;
+		this.author = author;
+		this.timestamp = timestamp;
+	}
+}
@@ -0,0 +1,18 @@
+package org.frankframework.frankflow.dto;
+
+import java.util.List;
+
+import lombok.Getter;
+import lombok.Setter;
+
+public class ImpactDTO {
+
+	private @Getter @Setter String configuration;
+	private @Getter @Setter String path;
+	/** Adapters defined in the file */
+	private @Getter @Setter List<String> adapters;
+	/** Adapters that (directly or indirectly) call one of the adapters in the file */
+	private @Getter @Setter List<AffectedAdapterDTO> affectedAdapters;
+	/** Configurations that (directly or indirectly) inherit from the configuration */
+	private @Getter @Setter List<String> affectedConfigurations;
+}
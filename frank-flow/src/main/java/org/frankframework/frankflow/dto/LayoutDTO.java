@@ -0,0 +1,15 @@
+package org.frankframework.frankflow.dto;
+
+import java.util.List;
+
+import lombok.Getter;
+import lombok.Setter;
+
+public class LayoutDTO {
+
+	/** Structural hash of the request, equal requests always result in the same layout */
+	private @Getter @Setter String hash;
+	private @Getter @Setter int width;
+	private @Getter @Setter int height;
+	private @Getter @Setter List<LayoutNodeDTO> nodes;
+}
@@ -0,0 +1,13 @@
+package org.frankframework.frankflow.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A forward from the <code>source</code> node to the <code>target</code> node.
+ */
+public class LayoutEdgeDTO {
+
+	private @Getter @Setter String source;
+	private @Getter @Setter String target;
+}
@@ -0,0 +1,29 @@
+package org.frankframework.frankflow.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A node (pipe, receiver or exit) of the flow. The <code>width</code> and <code>height</code> are optional in a request,
+ * <code>x</code> and <code>y</code> (the top left corner) are set in the result.
+ */
+public class LayoutNodeDTO {
+
+	private @Getter @Setter String id;
+	private @Getter @Setter Integer width;
+	private @Getter @Setter Integer height;
+	private @Getter @Setter Integer x;
+	private @Getter @Setter Integer y;
+
+	public LayoutNodeDTO() {
+		// Required for Jackson
+	}
+
+	public LayoutNodeDTO(String id, int width, int height, int x, int y) {
+		this.id = id;
+		this.width = width;
+		this.height = height;
+		this.x = x;
+		this.y = y;
+	}
+}
@@ -0,0 +1,20 @@
+package org.frankframework.frankflow.dto;
+
+import java.util.List;
+
+import lombok.Getter;
+import lombok.Setter;
+
+public class LayoutRequestDTO {
+
+	public enum Direction {
+		/** Layers are columns, the flow goes from left to right */
+		HORIZONTAL,
+		/** Layers are rows, the flow goes from top to bottom */
+		VERTICAL
+	}
+
+	private @Getter @Setter Direction direction = Direction.HORIZONTAL;
+	private @Getter @Setter List<LayoutNodeDTO> nodes;
+	private @Getter @Setter List<LayoutEdgeDTO> edges;
+}
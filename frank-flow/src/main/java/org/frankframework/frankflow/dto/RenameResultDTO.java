@@ -0,0 +1,24 @@
+package org.frankframework.frankflow.dto;
+
+import java.util.List;
+
+import org.frankframework.frankflow.refactoring.RenameRefactoring.Kind;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@JsonInclude(Include.NON_NULL)
+public class RenameResultDTO {
+
+	private @Getter @Setter Kind kind;
+	/** The adapter that contains the pipe or exit */
+	private @Getter @Setter String adapter;
+	private @Getter @Setter String name;
+	private @Getter @Setter String newName;
+	/** Whether the edits have been saved, or only computed (dry-run) */
+	private @Getter @Setter boolean applied;
+	private @Getter @Setter List<FileEditsDTO> files;
+}
@@ -0,0 +1,30 @@
+package org.frankframework.frankflow.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Replaces <code>length</code> characters at (character) <code>offset</code> with <code>text</code>.
+ * Offsets are relative to the original content, not to the result of previous edits.
+ */
+public class TextEditDTO {
+
+	private @Getter @Setter long offset;
+	private @Getter @Setter long length;
+	private @Getter @Setter String text;
+
+	public TextEditDTO() {
+		// Required for Jackson
+	}
+
+	public TextEditDTO(long offset, long length, String text) {
+		this.offset = offset;
+		this.length = length;
+		this.text = text;
+	}
+
+	@Override
+	public String toString() {
+		return "[" + offset + "+" + length + "]";
+	}
+}
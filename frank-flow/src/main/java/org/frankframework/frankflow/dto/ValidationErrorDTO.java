@@ -0,0 +1,32 @@
+package org.frankframework.frankflow.dto;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+
+@EqualsAndHashCode
+public class ValidationErrorDTO {
+
+	public enum Severity { WARNING, ERROR, FATAL }
+
+	private @Getter @Setter Severity severity;
+	private @Getter @Setter int line;
+	private @Getter @Setter int column;
+	private @Getter @Setter String message;
+
+	public ValidationErrorDTO() {
+		// Required for Jackson
+	}
+
+	public ValidationErrorDTO(Severity severity, int line, int column, String message) {
+		this.severity = severity;
+		this.line = line;
+		this.column = column;
+		this.message = message;
+	}
+
+	@Override
+	public String toString() {
+		return "[" + line + ":" + column + "] " + message;
+	}
+}
@@ -0,0 +1,36 @@
+package org.frankframework.frankflow.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@JsonInclude(Include.NON_NULL)
+public class ValidationResultDTO {
+
+	private @Getter @Setter String path;
+	private @Getter @Setter String schema;
+	private @Getter List<ValidationErrorDTO> errors = new ArrayList<>();
+
+	public boolean isValid() {
+		return errors.stream().noneMatch(e -> e.getSeverity() != ValidationErrorDTO.Severity.WARNING);
+	}
+
+	/**
+	 * The same error may be reported more than once by the validator (eg. for empty elements), duplicates are ignored.
+	 */
+	public void addError(ValidationErrorDTO error) {
+		if(!errors.contains(error)) {
+			errors.add(error);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return path;
+	}
+}
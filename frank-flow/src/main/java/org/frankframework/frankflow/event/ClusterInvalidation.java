@@ -0,0 +1,129 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.event;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.frankframework.frankflow.event.InvalidationMessage.Kind;
+import org.frankframework.frankflow.util.StatisticsProvider;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Shares {@link FileChangedEvent FileChangedEvents} and {@link ConfigurationsChangedEvent ConfigurationsChangedEvents} with the
+ * other Frank!Flow instances, so all caches can be evicted when several instances use the same (shared) configurations directory.
+ * <p>
+ * Local events are sent to the {@link InvalidationChannel}, messages received from other instances are published as local
+ * events (with this class as source, so they are not sent again). The channel is configured with <code>frank-flow.cluster.channel</code>:
+ * <code>hazelcast</code>, <code>local</code> (in-process, for tests) or empty to disable it.
+ * </p>
+ */
+@Component
+public class ClusterInvalidation implements InitializingBean, DisposableBean, StatisticsProvider {
+	private static final Logger log = LogManager.getLogger(ClusterInvalidation.class);
+	private static final String TOPIC_NAME = "frank-flow-invalidation";
+
+	private final String instanceId = UUID.randomUUID().toString();
+	private final LongAdder sent = new LongAdder();
+	private final LongAdder received = new LongAdder();
+	private InvalidationChannel channel;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@Value("${frank-flow.cluster.channel:}")
+	private String channelType;
+
+	@Value("${frank-flow.cluster.name:frank-flow}")
+	private String clusterName;
+
+	@Override
+	public void afterPropertiesSet() {
+		if(StringUtils.isEmpty(channelType)) {
+			return;
+		}
+
+		channel = switch (channelType.toLowerCase()) {
+		case "hazelcast" -> new HazelcastInvalidationChannel(clusterName, TOPIC_NAME);
+		case "local" -> new LocalInvalidationChannel(clusterName);
+		default -> throw new IllegalStateException("unknown cluster channel [" + channelType + "], use [hazelcast] or [local]");
+		};
+		channel.subscribe(this::onMessage);
+		log.info("sharing cache invalidations with cluster [{}] using [{}]", clusterName, channelType);
+	}
+
+	@EventListener
+	public void onFileChanged(FileChangedEvent event) {
+		if(channel != null && event.getSource() != this) {
+			channel.publish(InvalidationMessage.of(instanceId, event));
+			sent.increment();
+		}
+	}
+
+	@EventListener
+	public void onConfigurationsChanged(ConfigurationsChangedEvent event) {
+		if(channel != null && event.getSource() != this) {
+			channel.publish(InvalidationMessage.configurationsChanged(instanceId));
+			sent.increment();
+		}
+	}
+
+	private void onMessage(InvalidationMessage message) {
+		if(instanceId.equals(message.origin())) {
+			return;
+		}
+
+		received.increment();
+		log.trace("received invalidation {}", message);
+		if(message.kind() == Kind.CONFIGURATIONS) {
+			eventPublisher.publishEvent(new ConfigurationsChangedEvent(this));
+		} else {
+			eventPublisher.publishEvent(new FileChangedEvent(this, message.configuration(), message.path(), message.changeType(), message.directory()));
+		}
+	}
+
+	@Override
+	public String getStatisticsName() {
+		return "clusterInvalidation";
+	}
+
+	@Override
+	public Map<String, Object> getStatistics() {
+		Map<String, Object> statistics = new LinkedHashMap<>();
+		statistics.put("channel", StringUtils.defaultIfEmpty(channelType, "none"));
+		statistics.put("sent", sent.sum());
+		statistics.put("received", received.sum());
+		return statistics;
+	}
+
+	@Override
+	public void destroy() {
+		if(channel != null) {
+			channel.close();
+		}
+	}
+}
@@ -0,0 +1,67 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.event;
+
+import org.frankframework.frankflow.util.FileUtils;
+import org.springframework.context.ApplicationEvent;
+
+import lombok.Getter;
+
+/**
+ * Published when a file or directory of a configuration has been created, modified or deleted through the API.
+ * A rename is published as a {@link ChangeType#DELETED} event followed by a {@link ChangeType#CREATED} event.
+ */
+public class FileChangedEvent extends ApplicationEvent {
+	private static final long serialVersionUID = 1L;
+
+	public enum ChangeType { CREATED, MODIFIED, DELETED }
+
+	private final @Getter String configuration;
+	private final @Getter String path;
+	private final @Getter ChangeType changeType;
+	private final @Getter boolean directory;
+
+	public FileChangedEvent(Object source, String configuration, String path, ChangeType changeType) {
+		this(source, configuration, path, changeType, false);
+	}
+
+	public FileChangedEvent(Object source, String configuration, String path, ChangeType changeType, boolean directory) {
+		super(source);
+		this.configuration = configuration;
+		this.path = FileUtils.normalizeRelativePath(path);
+		this.changeType = changeType;
+		this.directory = directory;
+	}
+
+	/**
+	 * Whether the (relative) path is affected by this event, either directly or because a parent directory changed.
+	 * A change of the root directory (an empty path) affects every path.
+	 */
+	public boolean affects(String otherPath) {
+		if(directory) {
+			if(path.isEmpty()) {
+				return true;
+			}
+			return otherPath.equals(path) || otherPath.startsWith(path.endsWith("/") ? path : path + "/");
+		}
+		return otherPath.equals(path);
+	}
+
+	@Override
+	public String toString() {
+		return changeType + " [" + configuration + "] [" + path + "]";
+	}
+}
@@ -0,0 +1,56 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.event;
+
+import java.util.function.Consumer;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.topic.ITopic;
+
+/**
+ * {@link InvalidationChannel} backed by a Hazelcast {@link ITopic}. Starts a (lightweight) Hazelcast member, which
+ * uses the regular Hazelcast configuration (<code>hazelcast.config</code> system property, or <code>hazelcast.xml</code>)
+ * to find the other members.
+ */
+public class HazelcastInvalidationChannel implements InvalidationChannel {
+	private final HazelcastInstance instance;
+	private final ITopic<InvalidationMessage> topic;
+
+	public HazelcastInvalidationChannel(String clusterName, String topicName) {
+		Config config = Config.load();
+		config.setClusterName(clusterName);
+		config.setInstanceName("frank-flow-" + clusterName);
+		instance = Hazelcast.getOrCreateHazelcastInstance(config);
+		topic = instance.getTopic(topicName);
+	}
+
+	@Override
+	public void publish(InvalidationMessage message) {
+		topic.publish(message);
+	}
+
+	@Override
+	public void subscribe(Consumer<InvalidationMessage> listener) {
+		topic.addMessageListener(message -> listener.accept(message.getMessageObject()));
+	}
+
+	@Override
+	public void close() {
+		instance.shutdown();
+	}
+}
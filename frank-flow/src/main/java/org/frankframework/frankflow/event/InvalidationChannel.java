@@ -0,0 +1,31 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.event;
+
+import java.util.function.Consumer;
+
+/**
+ * Publish-subscribe channel between all Frank!Flow instances (that share the same configurations).
+ */
+public interface InvalidationChannel extends AutoCloseable {
+
+	void publish(InvalidationMessage message);
+
+	void subscribe(Consumer<InvalidationMessage> listener);
+
+	@Override
+	void close();
+}
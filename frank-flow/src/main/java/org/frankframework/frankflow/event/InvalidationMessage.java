@@ -0,0 +1,37 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.event;
+
+import java.io.Serializable;
+
+import org.frankframework.frankflow.event.FileChangedEvent.ChangeType;
+
+/**
+ * Message sent to the other Frank!Flow instances in the cluster, so they can evict stale cache entries.
+ * The origin is used to ignore messages sent by the instance itself.
+ */
+public record InvalidationMessage(String origin, Kind kind, String configuration, String path, ChangeType changeType, boolean directory) implements Serializable {
+
+	public enum Kind { FILE, CONFIGURATIONS }
+
+	public static InvalidationMessage of(String origin, FileChangedEvent event) {
+		return new InvalidationMessage(origin, Kind.FILE, event.getConfiguration(), event.getPath(), event.getChangeType(), event.isDirectory());
+	}
+
+	public static InvalidationMessage configurationsChanged(String origin) {
+		return new InvalidationMessage(origin, Kind.CONFIGURATIONS, null, null, null, false);
+	}
+}
@@ -0,0 +1,55 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.event;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-process {@link InvalidationChannel}, delivers messages (synchronously) to all channels with the same name in this JVM.
+ * Allows several application contexts in a single JVM (eg. in a test) to behave like a cluster.
+ */
+public class LocalInvalidationChannel implements InvalidationChannel {
+	private static final Map<String, List<LocalInvalidationChannel>> CHANNELS = new ConcurrentHashMap<>();
+
+	private final String name;
+	private final List<Consumer<InvalidationMessage>> listeners = new CopyOnWriteArrayList<>();
+
+	public LocalInvalidationChannel(String name) {
+		this.name = name;
+		CHANNELS.computeIfAbsent(name, k -> new CopyOnWriteArrayList<>()).add(this);
+	}
+
+	@Override
+	public void publish(InvalidationMessage message) {
+		for(LocalInvalidationChannel channel : CHANNELS.getOrDefault(name, List.of())) {
+			channel.listeners.forEach(listener -> listener.accept(message));
+		}
+	}
+
+	@Override
+	public void subscribe(Consumer<InvalidationMessage> listener) {
+		listeners.add(listener);
+	}
+
+	@Override
+	public void close() {
+		CHANNELS.getOrDefault(name, List.of()).remove(this);
+	}
+}
@@ -0,0 +1,144 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.format;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.frankframework.frankflow.dto.FormatResultDTO;
+import org.frankframework.frankflow.history.HistoryStore;
+import org.frankframework.frankflow.storage.Storage;
+import org.frankframework.frankflow.storage.Storage.FileStat;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Formats (and optionally canonicalizes) configuration files with the {@link XmlFormatter}, files of a configuration
+ * are formatted in parallel. The indentation is configured through <code>frank-flow.format.indent</code>.
+ */
+@Component
+public class XmlFormatService implements DisposableBean {
+	private static final Logger log = LogManager.getLogger(XmlFormatService.class);
+
+	private final ForkJoinPool formatPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+	private XmlFormatter formatter;
+	private XmlFormatter canonicalizer;
+
+	@Autowired
+	private HistoryStore historyStore;
+
+	@Value("${frank-flow.format.indent:\t}")
+	public void setIndent(String indent) {
+		formatter = new XmlFormatter(indent, false);
+		canonicalizer = new XmlFormatter(indent, true);
+	}
+
+	public XmlFormatter getFormatter(boolean canonical) {
+		return canonical ? canonicalizer : formatter;
+	}
+
+	public static boolean isXml(String path) {
+		return "xml".equalsIgnoreCase(FilenameUtils.getExtension(path));
+	}
+
+	/**
+	 * All XML files in the directory (and its sub-directories) of the storage.
+	 */
+	public static List<String> findXmlFiles(Storage storage, String directory) throws IOException {
+		List<String> files = new ArrayList<>();
+		List<String> names;
+		try (Stream<String> stream = storage.list(directory)) {
+			names = stream.sorted().toList();
+		}
+		for(String name : names) {
+			String path = directory.isEmpty() ? name : directory + "/" + name;
+			FileStat stat = storage.stat(path);
+			if(stat != null && stat.directory()) {
+				files.addAll(findXmlFiles(storage, path));
+			} else if(isXml(name)) {
+				files.add(path);
+			}
+		}
+		return files;
+	}
+
+	/**
+	 * Formats the files in parallel, files that have been changed are saved (and added to the history) unless they
+	 * have been modified while being formatted. The order of the results matches the order of the files.
+	 */
+	public List<FormatResultDTO> format(String configuration, Storage storage, List<String> files, boolean canonical) {
+		XmlFormatter xmlFormatter = getFormatter(canonical);
+		try {
+			return formatPool.submit(() -> files.parallelStream().map(file -> format(configuration, storage, file, xmlFormatter)).toList()).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("formatting has been interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("unable to format files", e.getCause());
+		}
+	}
+
+	private FormatResultDTO format(String configuration, Storage storage, String file, XmlFormatter xmlFormatter) {
+		FormatResultDTO result = new FormatResultDTO(file);
+		try {
+			FileStat stat = storage.stat(file);
+			byte[] content;
+			try (InputStream in = storage.read(file)) {
+				content = in.readAllBytes();
+			}
+			byte[] formatted = xmlFormatter.format(content);
+			if(Arrays.equals(content, formatted)) {
+				return result;
+			}
+
+			historyStore.recordOriginal(configuration, file, storage);
+			synchronized (storage.getLock(file)) {
+				FileStat current = storage.stat(file);
+				if(current == null || !current.getETag().equals(stat.getETag())) {
+					result.setError("file has been modified while being formatted");
+					return result;
+				}
+				storage.write(file, out -> out.write(formatted));
+			}
+			historyStore.recordVersion(configuration, file, formatted);
+			result.setChanged(true);
+		} catch (XMLStreamException e) {
+			result.setError(e.getMessage());
+		} catch (IOException e) {
+			log.debug("unable to format file [{}]", file, e);
+			result.setError(e.getMessage());
+		}
+		return result;
+	}
+
+	@Override
+	public void destroy() {
+		formatPool.shutdownNow();
+	}
+}
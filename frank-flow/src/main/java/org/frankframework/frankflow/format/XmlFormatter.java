@@ -0,0 +1,334 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.format;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Re-indents XML documents in a single streaming (StAX) pass, without building a DOM.
+ * <p>
+ * Comments, processing instructions, CDATA sections, entity references and the DOCTYPE are preserved, as are all
+ * attributes including their (namespace) prefixes, eg. the <code>flow:</code> attributes of the Frank!Flow editor.
+ * Elements with text content are left on a single line. Empty elements are collapsed to <code>&lt;element/&gt;</code>.
+ * </p>
+ * <p>
+ * The canonical form additionally sorts the attributes: namespace declarations first, then the unprefixed attributes
+ * and finally the prefixed attributes, each by name. So the same document always results in the same bytes.
+ * </p>
+ * Instances are thread-safe.
+ */
+public class XmlFormatter {
+	private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+	private static final Comparator<Attribute> CANONICAL_ORDER = Comparator.comparingInt(Attribute::rank).thenComparing(Attribute::name);
+
+	private final String indent;
+	private final boolean canonical;
+
+	private record Attribute(String name, String value) {
+		int rank() {
+			if(name.equals("xmlns") || name.startsWith("xmlns:")) {
+				return 0;
+			}
+			return name.indexOf(':') == -1 ? 1 : 2;
+		}
+	}
+
+	/**
+	 * The state of an element that has been started but not yet ended.
+	 */
+	private static class Element {
+		private final String name;
+		private boolean children;
+		private boolean mixed;
+
+		Element(String name) {
+			this.name = name;
+		}
+	}
+
+	public XmlFormatter(String indent, boolean canonical) {
+		this.indent = indent;
+		this.canonical = canonical;
+	}
+
+	private static XMLInputFactory createInputFactory() {
+		XMLInputFactory factory = XMLInputFactory.newFactory();
+		// Not namespace aware, so prefixes and namespace declarations are reported as-is
+		factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		factory.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, false);
+		factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+		if(factory.isPropertySupported("http://java.sun.com/xml/stream/properties/report-cdata-event")) {
+			factory.setProperty("http://java.sun.com/xml/stream/properties/report-cdata-event", true);
+		}
+		return factory;
+	}
+
+	public byte[] format(byte[] content) throws IOException, XMLStreamException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(content.length + content.length / 4);
+		try (InputStream in = new ByteArrayInputStream(content)) {
+			format(in, out);
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Writes the formatted document, in the encoding of the XML declaration (UTF-8 when there is none).
+	 * When the document is not well-formed, the output is incomplete.
+	 */
+	public void format(InputStream in, OutputStream out) throws IOException, XMLStreamException {
+		XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(in);
+		try {
+			String encoding = reader.getCharacterEncodingScheme();
+			Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+			Writer writer = new OutputStreamWriter(out, charset);
+			new Formatting(reader, writer, charset).run();
+			writer.flush();
+		} finally {
+			reader.close();
+		}
+	}
+
+	private class Formatting {
+		private final XMLStreamReader reader;
+		private final Writer writer;
+		private final CharsetEncoder encoder;
+		private final Deque<Element> elements = new ArrayDeque<>();
+		private final StringBuilder text = new StringBuilder();
+		private boolean startTagOpen;
+		private boolean empty = true;
+
+		Formatting(XMLStreamReader reader, Writer writer, Charset charset) {
+			this.reader = reader;
+			this.writer = writer;
+			this.encoder = StandardCharsets.UTF_8.equals(charset) ? null : charset.newEncoder();
+		}
+
+		void run() throws IOException, XMLStreamException {
+			if(reader.getVersion() != null) {
+				write("<?xml version=\"" + reader.getVersion() + "\"");
+				if(reader.getCharacterEncodingScheme() != null) {
+					write(" encoding=\"" + reader.getCharacterEncodingScheme() + "\"");
+				}
+				if(reader.standaloneSet()) {
+					write(" standalone=\"" + (reader.isStandalone() ? "yes" : "no") + "\"");
+				}
+				write("?>");
+			}
+
+			while(reader.hasNext()) {
+				switch (reader.next()) {
+				case XMLStreamConstants.START_ELEMENT -> startElement();
+				case XMLStreamConstants.END_ELEMENT -> endElement();
+				case XMLStreamConstants.CHARACTERS, XMLStreamConstants.SPACE -> characters();
+				case XMLStreamConstants.CDATA -> inline("<![CDATA[" + reader.getText() + "]]>");
+				case XMLStreamConstants.ENTITY_REFERENCE -> inline("&" + reader.getLocalName() + ";");
+				case XMLStreamConstants.COMMENT -> block("<!--" + reader.getText() + "-->");
+				case XMLStreamConstants.PROCESSING_INSTRUCTION -> block("<?" + reader.getPITarget() + (StringUtils.isEmpty(reader.getPIData()) ? "" : " " + reader.getPIData()) + "?>");
+				case XMLStreamConstants.DTD -> block(reader.getText());
+				default -> {
+					// END_DOCUMENT, the remaining events are not reported by the reader
+				}
+				}
+			}
+			write("\n");
+		}
+
+		private void startElement() throws IOException {
+			String name = getName(reader.getPrefix(), reader.getLocalName());
+			block("<" + name);
+
+			List<Attribute> attributes = new ArrayList<>(reader.getAttributeCount());
+			for(int i = 0; i < reader.getAttributeCount(); i++) {
+				attributes.add(new Attribute(getName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)), reader.getAttributeValue(i)));
+			}
+			if(canonical) {
+				attributes.sort(CANONICAL_ORDER);
+			}
+			for(Attribute attribute : attributes) {
+				write(" " + attribute.name() + "=\"");
+				escape(attribute.value(), true);
+				write("\"");
+			}
+
+			startTagOpen = true;
+			elements.push(new Element(name));
+		}
+
+		private void endElement() throws IOException {
+			flushText();
+			Element element = elements.pop();
+			if(startTagOpen) {
+				write("/>");
+				startTagOpen = false;
+				return;
+			}
+			if(element.children && !element.mixed) {
+				newLine();
+			}
+			write("</" + element.name + ">");
+		}
+
+		/**
+		 * Text is buffered until the next markup, whitespace between elements is replaced by the indentation.
+		 */
+		private void characters() {
+			String characters = reader.getText();
+			if(!StringUtils.isBlank(characters)) {
+				markMixed();
+			}
+			StringBuilder escaped = new StringBuilder(characters.length());
+			for(int i = 0; i < characters.length(); i++) {
+				char c = characters.charAt(i);
+				switch (c) {
+				case '&' -> escaped.append("&amp;");
+				case '<' -> escaped.append("&lt;");
+				case '>' -> escaped.append("&gt;");
+				case '\r' -> escaped.append("&#13;");
+				default -> escaped.append(c);
+				}
+			}
+			text.append(escaped);
+		}
+
+		/**
+		 * Content that is always part of the text of the element, such as CDATA sections and entity references.
+		 */
+		private void inline(String markup) {
+			markMixed();
+			text.append(markup);
+		}
+
+		/**
+		 * Markup that is placed on a new line, unless it's part of an element with text.
+		 */
+		private void block(String markup) throws IOException {
+			flushText();
+			closeStartTag();
+			Element parent = elements.peek();
+			if(parent != null) {
+				parent.children = true;
+			}
+			if(parent == null || !parent.mixed) {
+				newLine();
+			}
+			write(markup);
+		}
+
+		private void markMixed() {
+			Element element = elements.peek();
+			if(element != null) {
+				element.mixed = true;
+			}
+		}
+
+		private void flushText() throws IOException {
+			if(text.isEmpty()) {
+				return;
+			}
+			Element element = elements.peek();
+			if(element != null && element.mixed) {
+				closeStartTag();
+				escape(text, false);
+			}
+			text.setLength(0);
+		}
+
+		private void closeStartTag() throws IOException {
+			if(startTagOpen) {
+				write(">");
+				startTagOpen = false;
+			}
+		}
+
+		private void newLine() throws IOException {
+			if(!empty) {
+				write("\n");
+			}
+			for(int i = 0; i < elements.size(); i++) {
+				write(indent);
+			}
+		}
+
+		private void write(String value) throws IOException {
+			writer.write(value);
+			empty = false;
+		}
+
+		/**
+		 * Attribute values are fully escaped, text has already been escaped and is only checked for unmappable characters.
+		 */
+		private void escape(CharSequence value, boolean attribute) throws IOException {
+			for(int i = 0; i < value.length(); i++) {
+				char c = value.charAt(i);
+				String reference = attribute ? getAttributeReference(c) : null;
+				if(reference != null) {
+					writer.write(reference);
+					continue;
+				}
+				if(encoder != null && c >= 0x80) {
+					int codePoint = Character.codePointAt(value, i);
+					String character = new String(Character.toChars(codePoint));
+					if(!encoder.canEncode(character)) {
+						writer.write("&#x" + Integer.toHexString(codePoint) + ";");
+						i += character.length() - 1;
+						continue;
+					}
+				}
+				writer.write(c);
+			}
+			empty = false;
+		}
+	}
+
+	private static String getAttributeReference(char c) {
+		return switch (c) {
+		case '&' -> "&amp;";
+		case '<' -> "&lt;";
+		case '"' -> "&quot;";
+		case '\n' -> "&#10;";
+		case '\r' -> "&#13;";
+		case '\t' -> "&#9;";
+		default -> null;
+		};
+	}
+
+	private static String getName(String prefix, String localName) {
+		return StringUtils.isEmpty(prefix) ? localName : prefix + ":" + localName;
+	}
+}
@@ -0,0 +1,325 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.history;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Content-addressed (SHA-256) blob store, backed by append-only pack files.
+ * <p>
+ * Each blob is stored once, either deflated in full or as a delta against a base blob (usually the previous version of the same file).
+ * A delta only stores the changed region between the common prefix and suffix, which keeps autosaves of large files small.
+ * Delta chains are limited to {@value #MAX_CHAIN_DEPTH} blobs so a blob can always be restored quickly.
+ * </p>
+ * <p>
+ * Blobs are written by a single thread, while reads may happen concurrently. The blob index is rebuilt by scanning the
+ * pack files on startup. A partially written record (eg. after a crash) is truncated.
+ * </p>
+ */
+class BlobStore implements Closeable {
+	private static final Logger log = LogManager.getLogger(BlobStore.class);
+
+	private static final int MAGIC = 0x46464842; // FFHB
+	private static final byte TYPE_FULL = 0;
+	private static final byte TYPE_DELTA = 1;
+	private static final int HASH_LENGTH = 32;
+	private static final int FULL_HEADER_LENGTH = 4 + 1 + HASH_LENGTH + 4 + 4;
+	private static final int DELTA_HEADER_LENGTH = FULL_HEADER_LENGTH + HASH_LENGTH + 4 + 4;
+	static final int MAX_CHAIN_DEPTH = 32;
+	private static final long MAX_PACK_SIZE = 64L * 1024 * 1024;
+
+	private final Path directory;
+	private final Map<String, Location> blobs = new ConcurrentHashMap<>();
+	private final List<FileChannel> packs = new ArrayList<>();
+	private FileChannel currentPack;
+
+	private record Location(int pack, long offset, byte type, String base, int prefix, int suffix, int size, int dataLength, int depth) {}
+
+	BlobStore(Path directory) throws IOException {
+		this.directory = Files.createDirectories(directory);
+
+		TreeSet<Path> packFiles = new TreeSet<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "pack-*.pack")) {
+			stream.forEach(packFiles::add);
+		}
+		for(Path packFile : packFiles) {
+			FileChannel channel = FileChannel.open(packFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			packs.add(channel);
+			scan(packs.size() - 1, channel);
+		}
+		if(packs.isEmpty()) {
+			newPack();
+		} else {
+			currentPack = packs.get(packs.size() - 1);
+		}
+	}
+
+	private void scan(int pack, FileChannel channel) throws IOException {
+		long position = 0;
+		long size = channel.size();
+		ByteBuffer header = ByteBuffer.allocate(DELTA_HEADER_LENGTH);
+		while(position < size) {
+			header.clear();
+			if(size - position < FULL_HEADER_LENGTH) {
+				break;
+			}
+			header.limit(FULL_HEADER_LENGTH);
+			readFully(channel, header, position);
+			header.flip();
+			if(header.getInt() != MAGIC) {
+				break;
+			}
+			byte type = header.get();
+			String hash = readHash(header);
+			int rawLength = header.getInt();
+			int dataLength = header.getInt();
+			String base = null;
+			int prefix = 0;
+			int suffix = 0;
+			int headerLength = FULL_HEADER_LENGTH;
+			if(type == TYPE_DELTA) {
+				if(size - position < DELTA_HEADER_LENGTH) {
+					break;
+				}
+				header.clear().limit(DELTA_HEADER_LENGTH - FULL_HEADER_LENGTH);
+				readFully(channel, header, position + FULL_HEADER_LENGTH);
+				header.flip();
+				base = readHash(header);
+				prefix = header.getInt();
+				suffix = header.getInt();
+				headerLength = DELTA_HEADER_LENGTH;
+			} else if(type != TYPE_FULL) {
+				break;
+			}
+			if(dataLength < 0 || position + headerLength + dataLength > size) {
+				break;
+			}
+
+			Location baseLocation = base != null ? blobs.get(base) : null;
+			if(base != null && baseLocation == null) {
+				log.warn("base [{}] of blob [{}] is missing, ignoring blob", base, hash);
+			} else {
+				int depth = baseLocation != null ? baseLocation.depth() + 1 : 0;
+				blobs.putIfAbsent(hash, new Location(pack, position + headerLength, type, base, prefix, suffix, rawLength, dataLength, depth));
+			}
+			position += headerLength + dataLength;
+		}
+
+		if(position < size) {
+			log.warn("truncating pack [{}] at offset [{}], the remaining [{}] bytes are incomplete or corrupt", pack, position, size - position);
+			channel.truncate(position);
+		}
+	}
+
+	private static String readHash(ByteBuffer buffer) {
+		byte[] hash = new byte[HASH_LENGTH];
+		buffer.get(hash);
+		return HexFormat.of().formatHex(hash);
+	}
+
+	private void newPack() throws IOException {
+		Path packFile = directory.resolve("pack-%06d.pack".formatted(packs.size()));
+		currentPack = FileChannel.open(packFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		packs.add(currentPack);
+	}
+
+	boolean contains(String hash) {
+		return blobs.containsKey(hash);
+	}
+
+	int size() {
+		return blobs.size();
+	}
+
+	long getPackSize() throws IOException {
+		long size = 0;
+		for(FileChannel pack : packs) {
+			size += pack.size();
+		}
+		return size;
+	}
+
+	static String hash(byte[] content) {
+		try {
+			return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not supported", e);
+		}
+	}
+
+	/**
+	 * Stores the content, as delta against the base when that's (considerably) smaller. Must only be called by a single thread.
+	 * @return the hash of the content
+	 */
+	String store(byte[] content, String baseHash) throws IOException {
+		String hash = hash(content);
+		if(blobs.containsKey(hash)) {
+			return hash;
+		}
+
+		Location baseLocation = baseHash != null ? blobs.get(baseHash) : null;
+		byte type = TYPE_FULL;
+		int prefix = 0;
+		int suffix = 0;
+		byte[] data = content;
+		if(baseLocation != null && baseLocation.depth() < MAX_CHAIN_DEPTH) {
+			byte[] base = load(baseHash);
+			int max = Math.min(base.length, content.length);
+			while(prefix < max && base[prefix] == content[prefix]) {
+				prefix++;
+			}
+			while(suffix < max - prefix && base[base.length - suffix - 1] == content[content.length - suffix - 1]) {
+				suffix++;
+			}
+			if(content.length - prefix - suffix <= content.length / 2) {
+				type = TYPE_DELTA;
+				data = new byte[content.length - prefix - suffix];
+				System.arraycopy(content, prefix, data, 0, data.length);
+			} else {
+				prefix = 0;
+				suffix = 0;
+			}
+		}
+		byte[] compressed = deflate(data);
+
+		int headerLength = type == TYPE_DELTA ? DELTA_HEADER_LENGTH : FULL_HEADER_LENGTH;
+		ByteBuffer record = ByteBuffer.allocate(headerLength + compressed.length);
+		record.putInt(MAGIC).put(type).put(HexFormat.of().parseHex(hash));
+		record.putInt(content.length).putInt(compressed.length);
+		if(type == TYPE_DELTA) {
+			record.put(HexFormat.of().parseHex(baseHash)).putInt(prefix).putInt(suffix);
+		}
+		record.put(compressed).flip();
+
+		if(currentPack.size() + record.remaining() > MAX_PACK_SIZE && currentPack.size() > 0) {
+			newPack();
+		}
+		long position = currentPack.size();
+		while(record.hasRemaining()) {
+			currentPack.write(record, position + record.position());
+		}
+
+		int depth = type == TYPE_DELTA ? baseLocation.depth() + 1 : 0;
+		blobs.put(hash, new Location(packs.size() - 1, position + headerLength, type, type == TYPE_DELTA ? baseHash : null, prefix, suffix, content.length, compressed.length, depth));
+		return hash;
+	}
+
+	/**
+	 * @return the content of the blob, or <code>null</code> when it does not exist.
+	 */
+	byte[] load(String hash) throws IOException {
+		Location location = blobs.get(hash);
+		if(location == null) {
+			return null;
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate(location.dataLength());
+		readFully(packs.get(location.pack()), buffer, location.offset());
+		int dataSize = location.type() == TYPE_DELTA ? location.size() - location.prefix() - location.suffix() : location.size();
+		byte[] data = inflate(buffer.array(), dataSize);
+		if(location.type() == TYPE_FULL) {
+			return data;
+		}
+
+		byte[] base = load(location.base());
+		if(base == null) {
+			throw new IOException("base [" + location.base() + "] of blob [" + hash + "] is missing");
+		}
+		byte[] content = new byte[location.size()];
+		System.arraycopy(base, 0, content, 0, location.prefix());
+		System.arraycopy(data, 0, content, location.prefix(), data.length);
+		System.arraycopy(base, base.length - location.suffix(), content, location.prefix() + data.length, location.suffix());
+		return content;
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		int start = buffer.position();
+		while(buffer.hasRemaining()) {
+			if(channel.read(buffer, position + buffer.position() - start) < 0) {
+				throw new IOException("unexpected end of pack file");
+			}
+		}
+	}
+
+	private static byte[] deflate(byte[] data) {
+		Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+		try {
+			deflater.setInput(data);
+			deflater.finish();
+			ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+			byte[] buffer = new byte[8192];
+			while(!deflater.finished()) {
+				out.write(buffer, 0, deflater.deflate(buffer));
+			}
+			return out.toByteArray();
+		} finally {
+			deflater.end();
+		}
+	}
+
+	private static byte[] inflate(byte[] data, int size) throws IOException {
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(data);
+			byte[] result = new byte[size];
+			int offset = 0;
+			while(offset < size && !inflater.finished()) {
+				int inflated = inflater.inflate(result, offset, size - offset);
+				if(inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+				offset += inflated;
+			}
+			if(offset != size) {
+				throw new IOException("blob is corrupt, expected [" + size + "] bytes but got [" + offset + "]");
+			}
+			return result;
+		} catch (DataFormatException e) {
+			throw new IOException("blob is corrupt", e);
+		} finally {
+			inflater.end();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		for(FileChannel pack : packs) {
+			pack.close();
+		}
+	}
+}
@@ -0,0 +1,498 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.history;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.commons.io.file.PathUtils;
+import org.apache.commons.io.output.TeeOutputStream;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.frankframework.frankflow.storage.Storage;
+import org.frankframework.frankflow.storage.Storage.ContentWriter;
+import org.frankframework.frankflow.storage.Storage.FileStat;
+import org.frankframework.frankflow.util.FileUtils;
+import org.frankframework.frankflow.util.StatisticsProvider;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Local history of all files saved through the API.
+ * <p>
+ * File contents are stored in a content-addressed {@link BlobStore}, so identical versions are only stored once.
+ * The versions of each file are kept in an append-only log (<code>versions.log</code>), which is read on startup.
+ * The contents are captured from what the save writes, so the file is not read again, and hashed, compressed and stored
+ * on a single background thread. Saves never wait for the history to be loaded, their work is queued behind it.
+ * </p>
+ * <p>
+ * Only the newest <code>max-versions</code> versions of each file are kept. Once more than half of the log consists of
+ * removed versions, the log and the blobs are rewritten (compacted) in the background.
+ * </p>
+ */
+@Component
+public class HistoryStore implements InitializingBean, DisposableBean, StatisticsProvider {
+	private static final Logger log = LogManager.getLogger(HistoryStore.class);
+	private static final String VERSIONS_LOG = "versions.log";
+	private static final String BLOBS = "blobs";
+	private static final String COMPACT_SUFFIX = ".compact";
+	private static final int MIN_COMPACTION_ENTRIES = 1000;
+
+	private final Map<FileKey, List<FileVersion>> versions = new ConcurrentHashMap<>();
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "frank-flow-history");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final CompletableFuture<Void> loaded = new CompletableFuture<>();
+	private final ReadWriteLock blobLock = new ReentrantReadWriteLock(); // Prevents reads while the blobs are being swapped after a compaction
+
+	private Path historyDirectory;
+	private BlobStore blobStore;
+	private BufferedWriter versionLog;
+	private int logEntries = 0; // Only used by the history thread
+	private int removedEntries = 0; // Only used by the history thread
+
+	@Value("${frank-flow.history.enabled:true}")
+	private volatile boolean enabled;
+
+	@Value("${frank-flow.history.directory:}")
+	private String directory;
+
+	@Value("${frank-flow.history.max-versions:500}")
+	private int maxVersions;
+
+	public record FileVersion(String hash, long timestamp, int size) {}
+
+	private record FileKey(String configuration, String path) {}
+
+	private record Content(byte[] content, long lastModified) {}
+
+	@Override
+	public void afterPropertiesSet() {
+		if(!enabled) {
+			loaded.complete(null);
+			return;
+		}
+
+		historyDirectory = StringUtils.isNotEmpty(directory) ? Path.of(directory) : Path.of(System.getProperty("user.home"), ".frank-flow", "history");
+		executor.execute(() -> {
+			try {
+				recoverCompaction();
+				blobStore = new BlobStore(historyDirectory.resolve(BLOBS));
+				readVersionLog(historyDirectory.resolve(VERSIONS_LOG));
+				for(List<FileVersion> fileVersions : versions.values()) {
+					removedEntries += removeOldVersions(fileVersions);
+				}
+				openVersionLog();
+				log.info("loaded history of [{}] files from [{}]", versions.size(), historyDirectory);
+				loaded.complete(null);
+			} catch (IOException | RuntimeException e) {
+				log.error("unable to open history store [{}], history is disabled", historyDirectory, e);
+				enabled = false;
+				loaded.complete(null);
+			}
+			compactIfNeeded();
+		});
+	}
+
+	private void readVersionLog(Path versionLogFile) throws IOException {
+		if(!Files.exists(versionLogFile)) {
+			return;
+		}
+
+		try (BufferedReader reader = Files.newBufferedReader(versionLogFile, StandardCharsets.UTF_8)) {
+			String line;
+			while((line = reader.readLine()) != null) {
+				logEntries++;
+				String[] fields = line.split("\t");
+				if(fields.length != 5 || !blobStore.contains(fields[1])) {
+					log.debug("ignoring invalid history entry [{}]", line);
+					removedEntries++;
+					continue;
+				}
+				try {
+					FileVersion version = new FileVersion(fields[1], Long.parseLong(fields[0]), Integer.parseInt(fields[2]));
+					FileKey key = toKey(URLDecoder.decode(fields[3], StandardCharsets.UTF_8), URLDecoder.decode(fields[4], StandardCharsets.UTF_8));
+					versions.computeIfAbsent(key, k -> Collections.synchronizedList(new ArrayList<>())).add(version);
+				} catch (IllegalArgumentException e) {
+					log.debug("ignoring invalid history entry [{}]", line, e);
+					removedEntries++;
+				}
+			}
+		}
+	}
+
+	private void openVersionLog() throws IOException {
+		versionLog = Files.newBufferedWriter(historyDirectory.resolve(VERSIONS_LOG), StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+	}
+
+	/**
+	 * The same path as used by the API, eg. <code>a/./b.xml</code> and <code>a//b.xml</code> share the history of <code>a/b.xml</code>.
+	 * @throws IllegalArgumentException when the path points outside of the configuration.
+	 */
+	private static FileKey toKey(String configuration, String path) {
+		return new FileKey(configuration, Storage.normalize(path));
+	}
+
+	/**
+	 * Reading the history has to wait until it has been loaded, recording a version only has to be queued behind it.
+	 */
+	private boolean awaitLoaded() {
+		loaded.join();
+		return enabled;
+	}
+
+	/**
+	 * Records the current contents of a file, before it's modified for the first time. Files that already
+	 * have a history are ignored. Since the file is about to change, it's read synchronously, this only happens once per file.
+	 */
+	public void recordOriginal(String configuration, String path, Storage storage) {
+		FileKey key = toKey(configuration, path);
+		if(!enabled || loaded.isDone() && versions.containsKey(key)) {
+			return;
+		}
+
+		try {
+			Content content = readContent(storage, path);
+			if(content != null) {
+				long timestamp = TimeUnit.NANOSECONDS.toMillis(content.lastModified());
+				schedule(() -> {
+					if(!versions.containsKey(key)) {
+						store(key, content.content(), timestamp);
+					}
+				});
+			}
+		} catch (IOException e) {
+			log.warn("unable to record original version of [{}] in configuration [{}]", path, configuration, e);
+		}
+	}
+
+	/**
+	 * Records the contents of a file after it has been saved, as written by the save. The file is not read again,
+	 * only hashing and compressing the content is done in the background.
+	 */
+	public void recordVersion(String configuration, String path, byte[] content) {
+		if(!enabled) {
+			return;
+		}
+
+		long timestamp = System.currentTimeMillis();
+		FileKey key = toKey(configuration, path);
+		schedule(() -> store(key, content, timestamp));
+	}
+
+	/**
+	 * @see #recordVersion(String, String, byte[])
+	 */
+	public void recordVersion(String configuration, String path, Capture capture) {
+		if(capture.content != null) {
+			recordVersion(configuration, path, capture.content.toByteArray());
+		}
+	}
+
+	/**
+	 * Starts capturing the content of a save, for saves that stream the content into the storage.
+	 * Nothing is captured when the history is disabled.
+	 */
+	public Capture capture() {
+		return new Capture(enabled ? new ByteArrayOutputStream() : null);
+	}
+
+	/**
+	 * Copies the content while it's being written, see {@link HistoryStore#recordVersion(String, String, Capture)}.
+	 */
+	public static class Capture {
+		private final ByteArrayOutputStream content;
+
+		private Capture(ByteArrayOutputStream content) {
+			this.content = content;
+		}
+
+		public OutputStream tee(OutputStream out) {
+			return content != null ? new TeeOutputStream(out, content) : out;
+		}
+
+		public ContentWriter tee(ContentWriter writer) {
+			return out -> writer.writeTo(tee(out));
+		}
+	}
+
+	/**
+	 * Reads the file while holding its lock, so the content is never a mix of two saves.
+	 */
+	private static Content readContent(Storage storage, String path) throws IOException {
+		synchronized (storage.getLock(path)) {
+			FileStat stat = storage.stat(path);
+			if(stat == null || stat.directory()) {
+				return null;
+			}
+			try (InputStream is = storage.read(path)) {
+				return new Content(is.readAllBytes(), stat.lastModified());
+			}
+		}
+	}
+
+	private void schedule(Runnable task) {
+		try {
+			executor.execute(task);
+		} catch (RejectedExecutionException e) {
+			log.debug("history store has been closed, ignoring version", e);
+		}
+	}
+
+	private void store(FileKey key, byte[] content, long timestamp) {
+		if(!enabled) {
+			return; // Loading the history failed
+		}
+
+		try {
+			List<FileVersion> fileVersions = versions.computeIfAbsent(key, k -> Collections.synchronizedList(new ArrayList<>()));
+			FileVersion latest = fileVersions.isEmpty() ? null : fileVersions.get(fileVersions.size() - 1);
+			String hash = blobStore.store(content, latest != null ? latest.hash() : null);
+			if(latest != null && latest.hash().equals(hash)) {
+				return; // Nothing has changed
+			}
+
+			FileVersion version = new FileVersion(hash, timestamp, content.length);
+			writeEntry(versionLog, key, version);
+			versionLog.flush();
+			fileVersions.add(version);
+			logEntries++;
+			removedEntries += removeOldVersions(fileVersions);
+		} catch (IOException e) {
+			log.warn("unable to store version of [{}] in configuration [{}]", key.path(), key.configuration(), e);
+		}
+		compactIfNeeded();
+	}
+
+	private static void writeEntry(BufferedWriter writer, FileKey key, FileVersion version) throws IOException {
+		writer.write(version.timestamp() + "\t" + version.hash() + "\t" + version.size() + "\t" + URLEncoder.encode(key.configuration(), StandardCharsets.UTF_8) + "\t" + URLEncoder.encode(key.path(), StandardCharsets.UTF_8));
+		writer.newLine();
+	}
+
+	/**
+	 * @return the number of versions that have been removed.
+	 */
+	private int removeOldVersions(List<FileVersion> fileVersions) {
+		if(maxVersions <= 0) {
+			return 0;
+		}
+		synchronized (fileVersions) {
+			int remove = fileVersions.size() - maxVersions;
+			if(remove <= 0) {
+				return 0;
+			}
+			fileVersions.subList(0, remove).clear();
+			return remove;
+		}
+	}
+
+	private void compactIfNeeded() {
+		if(!enabled || removedEntries < MIN_COMPACTION_ENTRIES || removedEntries * 2 < logEntries) {
+			return;
+		}
+
+		try {
+			long start = System.currentTimeMillis();
+			int retained = compact();
+			log.info("compacted history, removed [{}] versions and retained [{}] in [{}] ms", removedEntries, retained, System.currentTimeMillis() - start);
+			logEntries = retained;
+			removedEntries = 0;
+		} catch (IOException | RuntimeException e) {
+			log.warn("unable to compact history store [{}]", historyDirectory, e);
+			removedEntries = 0; // Try again once the same amount of versions have been removed
+		}
+	}
+
+	/**
+	 * Copies the retained versions into a new blob store and log, and then swaps them with the current ones.
+	 * Unlike the pack files of the current blob store, the deltas are computed between the retained versions only.
+	 * @return the number of retained versions.
+	 */
+	private int compact() throws IOException {
+		Path blobs = historyDirectory.resolve(BLOBS);
+		Path compactedBlobs = historyDirectory.resolve(BLOBS + COMPACT_SUFFIX);
+		Path versionLogFile = historyDirectory.resolve(VERSIONS_LOG);
+		Path compactedLog = historyDirectory.resolve(VERSIONS_LOG + COMPACT_SUFFIX);
+		deleteIfExists(compactedBlobs);
+
+		int retained = 0;
+		try (BlobStore target = new BlobStore(compactedBlobs);
+				BufferedWriter writer = Files.newBufferedWriter(compactedLog, StandardCharsets.UTF_8)) {
+			for(Map.Entry<FileKey, List<FileVersion>> entry : versions.entrySet()) {
+				List<FileVersion> fileVersions;
+				synchronized (entry.getValue()) {
+					fileVersions = new ArrayList<>(entry.getValue());
+				}
+				String base = null;
+				for(FileVersion version : fileVersions) {
+					base = target.store(blobStore.load(version.hash()), base);
+					writeEntry(writer, entry.getKey(), version);
+					retained++;
+				}
+			}
+		}
+
+		blobLock.writeLock().lock();
+		try {
+			versionLog.close();
+			blobStore.close();
+			Path oldBlobs = historyDirectory.resolve(BLOBS + ".old");
+			Files.move(blobs, oldBlobs);
+			Files.move(compactedBlobs, blobs);
+			FileUtils.replace(compactedLog, versionLogFile);
+			blobStore = new BlobStore(blobs);
+			openVersionLog();
+			deleteIfExists(oldBlobs);
+		} catch (IOException e) {
+			enabled = false; // Recovered on the next startup
+			throw e;
+		} finally {
+			blobLock.writeLock().unlock();
+		}
+		return retained;
+	}
+
+	/**
+	 * Finishes or discards a compaction that has been interrupted, eg. by a crash.
+	 */
+	private void recoverCompaction() throws IOException {
+		Path blobs = historyDirectory.resolve(BLOBS);
+		Path compactedBlobs = historyDirectory.resolve(BLOBS + COMPACT_SUFFIX);
+		Path compactedLog = historyDirectory.resolve(VERSIONS_LOG + COMPACT_SUFFIX);
+		if(Files.exists(compactedBlobs)) {
+			if(Files.exists(blobs)) {
+				deleteIfExists(compactedBlobs); // Not finished, the original blobs are still complete
+				Files.deleteIfExists(compactedLog);
+			} else {
+				Files.move(compactedBlobs, blobs);
+			}
+		}
+		if(Files.exists(compactedLog)) {
+			FileUtils.replace(compactedLog, historyDirectory.resolve(VERSIONS_LOG));
+		}
+		deleteIfExists(historyDirectory.resolve(BLOBS + ".old"));
+	}
+
+	private static void deleteIfExists(Path directory) throws IOException {
+		if(Files.exists(directory)) {
+			PathUtils.deleteDirectory(directory);
+		}
+	}
+
+	/**
+	 * @return all versions of the file, newest first.
+	 */
+	public List<FileVersion> getVersions(String configuration, String path) {
+		if(!awaitLoaded()) {
+			return Collections.emptyList();
+		}
+
+		List<FileVersion> fileVersions = versions.get(toKey(configuration, path));
+		if(fileVersions == null) {
+			return Collections.emptyList();
+		}
+		List<FileVersion> result;
+		synchronized (fileVersions) {
+			result = new ArrayList<>(fileVersions);
+		}
+		Collections.reverse(result);
+		return result;
+	}
+
+	/**
+	 * @return the content of the version, or <code>null</code> when the file does not have such a version.
+	 */
+	public byte[] getContent(String configuration, String path, String hash) throws IOException {
+		boolean exists = getVersions(configuration, path).stream().anyMatch(e -> e.hash().equals(hash));
+		if(!exists) {
+			return null;
+		}
+		blobLock.readLock().lock();
+		try {
+			return blobStore.load(hash);
+		} finally {
+			blobLock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public String getStatisticsName() {
+		return "history";
+	}
+
+	@Override
+	public Map<String, Object> getStatistics() {
+		Map<String, Object> statistics = new LinkedHashMap<>();
+		statistics.put("enabled", enabled);
+		if(loaded.isDone() && enabled) {
+			statistics.put("files", versions.size());
+			statistics.put("versions", versions.values().stream().mapToInt(List::size).sum());
+			statistics.put("maxVersions", maxVersions);
+			blobLock.readLock().lock();
+			try {
+				statistics.put("blobs", blobStore.size());
+				statistics.put("size", blobStore.getPackSize());
+			} catch (IOException e) {
+				log.debug("unable to determine size of history", e);
+			} finally {
+				blobLock.readLock().unlock();
+			}
+		}
+		return statistics;
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		executor.shutdown();
+		if(!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+			log.warn("not all versions have been recorded");
+		}
+		if(versionLog != null) {
+			versionLog.close();
+		}
+		if(blobStore != null) {
+			blobStore.close();
+		}
+	}
+}
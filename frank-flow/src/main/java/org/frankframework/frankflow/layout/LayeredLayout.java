@@ -0,0 +1,481 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.layout;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Sugiyama style layered graph layout.
+ * <ol>
+ * <li>Cycles are broken by reversing the back edges found by a depth-first search, starting at the sources.</li>
+ * <li>Nodes are assigned to layers by their longest path from a source.</li>
+ * <li>Edges spanning more than one layer are split up using (zero sized) dummy nodes.</li>
+ * <li>Crossings are reduced by ordering the layers using the barycenter heuristic, in alternating sweeps.</li>
+ * <li>Nodes are positioned within their layer, as close to their neighbours as the order and spacing allows.</li>
+ * </ol>
+ * The <i>breadth</i> of a node is its size within a layer, the <i>depth</i> its size along the layers.
+ * All steps are deterministic, the same input always results in the same layout.
+ */
+class LayeredLayout {
+	private static final int MAX_ORDERING_SWEEPS = 24;
+	private static final int MAX_SWEEPS_WITHOUT_IMPROVEMENT = 4;
+	private static final int POSITIONING_SWEEPS = 8;
+
+	private final int nodeCount;
+	private final int nodeSpacing;
+	private final int layerSpacing;
+	private final int dummySpacing;
+
+	private int vertexCount;
+	private int[] breadth;
+	private int[] depth;
+	private int[] layer;
+	private int[][] upper;
+	private int[][] lower;
+	private int[][] layers;
+	private int[] order;
+
+	/**
+	 * @param edges pairs of (source, target) node indexes
+	 */
+	LayeredLayout(int[] breadth, int[] depth, List<int[]> edges, int nodeSpacing, int layerSpacing) {
+		this.nodeCount = breadth.length;
+		this.breadth = breadth;
+		this.depth = depth;
+		this.nodeSpacing = nodeSpacing;
+		this.layerSpacing = layerSpacing;
+		this.dummySpacing = Math.max(1, nodeSpacing / 2);
+
+		List<int[]> acyclic = removeCycles(edges);
+		assignLayers(acyclic);
+		createVertices(acyclic);
+	}
+
+	/**
+	 * The top left corners of the nodes, as (position along the layers, position within the layer).
+	 */
+	record Result(int[] layerPositions, int[] positions) {}
+
+	Result compute() {
+		orderLayers();
+		double[] centers = positionWithinLayers();
+
+		int layerCount = layers.length;
+		int[] layerStart = new int[layerCount];
+		int[] layerDepth = new int[layerCount];
+		for(int v = 0; v < nodeCount; v++) {
+			layerDepth[layer[v]] = Math.max(layerDepth[layer[v]], depth[v]);
+		}
+		for(int l = 1; l < layerCount; l++) {
+			layerStart[l] = layerStart[l - 1] + layerDepth[l - 1] + layerSpacing;
+		}
+
+		double min = Double.MAX_VALUE;
+		for(int v = 0; v < nodeCount; v++) {
+			min = Math.min(min, centers[v] - breadth[v] / 2d);
+		}
+
+		int[] layerPositions = new int[nodeCount];
+		int[] positions = new int[nodeCount];
+		for(int v = 0; v < nodeCount; v++) {
+			layerPositions[v] = layerStart[layer[v]] + (layerDepth[layer[v]] - depth[v]) / 2;
+			positions[v] = (int) Math.round(centers[v] - breadth[v] / 2d - min);
+		}
+		return new Result(layerPositions, positions);
+	}
+
+	/**
+	 * Reverses the edges that point back to a node on the stack of a depth-first search. Self references are removed.
+	 */
+	private List<int[]> removeCycles(List<int[]> edges) {
+		List<List<Integer>> outgoing = createAdjacencyLists(nodeCount);
+		boolean[] hasIncoming = new boolean[nodeCount];
+		for(int e = 0; e < edges.size(); e++) {
+			int[] edge = edges.get(e);
+			if(edge[0] != edge[1]) {
+				outgoing.get(edge[0]).add(e);
+				hasIncoming[edge[1]] = true;
+			}
+		}
+
+		int[] state = new int[nodeCount]; // 0 = unvisited, 1 = on the stack, 2 = done
+		boolean[] reversed = new boolean[edges.size()];
+		List<Integer> roots = new ArrayList<>();
+		for(int v = 0; v < nodeCount; v++) {
+			if(!hasIncoming[v]) {
+				roots.add(v);
+			}
+		}
+		for(int v = 0; v < nodeCount; v++) {
+			roots.add(v);
+		}
+
+		Deque<int[]> stack = new ArrayDeque<>(); // (node, index of the next outgoing edge)
+		for(int root : roots) {
+			if(state[root] != 0) {
+				continue;
+			}
+			state[root] = 1;
+			stack.push(new int[] { root, 0 });
+			while(!stack.isEmpty()) {
+				int[] frame = stack.peek();
+				List<Integer> out = outgoing.get(frame[0]);
+				if(frame[1] == out.size()) {
+					state[frame[0]] = 2;
+					stack.pop();
+					continue;
+				}
+				int e = out.get(frame[1]++);
+				int target = edges.get(e)[1];
+				if(state[target] == 1) {
+					reversed[e] = true;
+				} else if(state[target] == 0) {
+					state[target] = 1;
+					stack.push(new int[] { target, 0 });
+				}
+			}
+		}
+
+		List<int[]> result = new ArrayList<>();
+		Set<Long> seen = new HashSet<>();
+		for(int e = 0; e < edges.size(); e++) {
+			int[] edge = edges.get(e);
+			if(edge[0] == edge[1]) {
+				continue;
+			}
+			int source = reversed[e] ? edge[1] : edge[0];
+			int target = reversed[e] ? edge[0] : edge[1];
+			if(seen.add(((long) source << 32) | target)) {
+				result.add(new int[] { source, target });
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Longest path layering, in topological order.
+	 */
+	private void assignLayers(List<int[]> edges) {
+		List<List<Integer>> successors = createAdjacencyLists(nodeCount);
+		int[] incoming = new int[nodeCount];
+		for(int[] edge : edges) {
+			successors.get(edge[0]).add(edge[1]);
+			incoming[edge[1]]++;
+		}
+
+		layer = new int[nodeCount];
+		Deque<Integer> queue = new ArrayDeque<>();
+		for(int v = 0; v < nodeCount; v++) {
+			if(incoming[v] == 0) {
+				queue.add(v);
+			}
+		}
+		while(!queue.isEmpty()) {
+			int v = queue.poll();
+			for(int w : successors.get(v)) {
+				layer[w] = Math.max(layer[w], layer[v] + 1);
+				if(--incoming[w] == 0) {
+					queue.add(w);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Creates the layers, adding a dummy vertex for every layer an edge passes through.
+	 */
+	private void createVertices(List<int[]> edges) {
+		int dummies = 0;
+		int layerCount = 0;
+		for(int v = 0; v < nodeCount; v++) {
+			layerCount = Math.max(layerCount, layer[v] + 1);
+		}
+		for(int[] edge : edges) {
+			dummies += layer[edge[1]] - layer[edge[0]] - 1;
+		}
+
+		vertexCount = nodeCount + dummies;
+		breadth = Arrays.copyOf(breadth, vertexCount);
+		depth = Arrays.copyOf(depth, vertexCount);
+		layer = Arrays.copyOf(layer, vertexCount);
+		List<List<Integer>> upperLists = createAdjacencyLists(vertexCount);
+		List<List<Integer>> lowerLists = createAdjacencyLists(vertexCount);
+
+		int next = nodeCount;
+		for(int[] edge : edges) {
+			int previous = edge[0];
+			for(int l = layer[edge[0]] + 1; l < layer[edge[1]]; l++) {
+				layer[next] = l;
+				lowerLists.get(previous).add(next);
+				upperLists.get(next).add(previous);
+				previous = next++;
+			}
+			lowerLists.get(previous).add(edge[1]);
+			upperLists.get(edge[1]).add(previous);
+		}
+		upper = toArrays(upperLists);
+		lower = toArrays(lowerLists);
+
+		int[] layerSizes = new int[layerCount];
+		for(int v = 0; v < vertexCount; v++) {
+			layerSizes[layer[v]]++;
+		}
+		layers = new int[layerCount][];
+		for(int l = 0; l < layerCount; l++) {
+			layers[l] = new int[layerSizes[l]];
+			layerSizes[l] = 0;
+		}
+		for(int v = 0; v < vertexCount; v++) {
+			layers[layer[v]][layerSizes[layer[v]]++] = v;
+		}
+		order = new int[vertexCount];
+		updateOrder();
+	}
+
+	private void orderLayers() {
+		double[] barycenters = new double[vertexCount];
+		int[] buffer = new int[vertexCount];
+		long best = countCrossings();
+		int[][] bestLayers = copy(layers);
+		int withoutImprovement = 0;
+		for(int sweep = 0; sweep < MAX_ORDERING_SWEEPS && best > 0 && withoutImprovement < MAX_SWEEPS_WITHOUT_IMPROVEMENT; sweep++) {
+			if(sweep % 2 == 0) {
+				for(int l = 1; l < layers.length; l++) {
+					sortByBarycenter(layers[l], upper, barycenters, buffer);
+				}
+			} else {
+				for(int l = layers.length - 2; l >= 0; l--) {
+					sortByBarycenter(layers[l], lower, barycenters, buffer);
+				}
+			}
+
+			long crossings = countCrossings();
+			if(crossings < best) {
+				best = crossings;
+				bestLayers = copy(layers);
+				withoutImprovement = 0;
+			} else {
+				withoutImprovement++;
+			}
+		}
+		layers = bestLayers;
+		updateOrder();
+	}
+
+	private void sortByBarycenter(int[] vertices, int[][] neighbours, double[] barycenters, int[] buffer) {
+		for(int v : vertices) {
+			int[] adjacent = neighbours[v];
+			if(adjacent.length == 0) {
+				barycenters[v] = order[v];
+			} else {
+				double sum = 0;
+				for(int w : adjacent) {
+					sum += order[w];
+				}
+				barycenters[v] = sum / adjacent.length;
+			}
+		}
+		mergeSort(vertices, buffer, 0, vertices.length, barycenters);
+		for(int i = 0; i < vertices.length; i++) {
+			order[vertices[i]] = i;
+		}
+	}
+
+	/**
+	 * Stable sort, vertices with the same key keep their current order.
+	 */
+	private static void mergeSort(int[] vertices, int[] buffer, int from, int to, double[] keys) {
+		if(to - from < 2) {
+			return;
+		}
+		int middle = (from + to) >>> 1;
+		mergeSort(vertices, buffer, from, middle, keys);
+		mergeSort(vertices, buffer, middle, to, keys);
+		if(keys[vertices[middle - 1]] <= keys[vertices[middle]]) {
+			return;
+		}
+
+		System.arraycopy(vertices, from, buffer, from, to - from);
+		int left = from;
+		int right = middle;
+		for(int i = from; i < to; i++) {
+			if(right >= to || left < middle && keys[buffer[left]] <= keys[buffer[right]]) {
+				vertices[i] = buffer[left++];
+			} else {
+				vertices[i] = buffer[right++];
+			}
+		}
+	}
+
+	/**
+	 * Counts the inversions of the edges between each pair of layers, using a Fenwick tree.
+	 */
+	private long countCrossings() {
+		long crossings = 0;
+		for(int l = 0; l + 1 < layers.length; l++) {
+			int count = 0;
+			for(int v : layers[l]) {
+				count += lower[v].length;
+			}
+			long[] edges = new long[count]; // (upper position, lower position), sorted on both
+			int e = 0;
+			for(int v : layers[l]) {
+				for(int w : lower[v]) {
+					edges[e++] = ((long) order[v] << 32) | order[w];
+				}
+			}
+			Arrays.sort(edges);
+
+			int size = layers[l + 1].length;
+			int[] tree = new int[size + 1];
+			for(int i = 0; i < edges.length; i++) {
+				int position = (int) edges[i] + 1;
+				int smallerOrEqual = 0;
+				for(int j = position; j > 0; j -= j & -j) {
+					smallerOrEqual += tree[j];
+				}
+				crossings += i - smallerOrEqual;
+				for(int j = position; j <= size; j += j & -j) {
+					tree[j]++;
+				}
+			}
+		}
+		return crossings;
+	}
+
+	/**
+	 * Returns the centers of all vertices within their layer. Starts packed, then moves each vertex towards the average of
+	 * its neighbours in alternating sweeps. The last sweep takes the neighbours on both sides into account.
+	 */
+	private double[] positionWithinLayers() {
+		double[] centers = new double[vertexCount];
+		for(int[] vertices : layers) {
+			double center = 0;
+			for(int i = 0; i < vertices.length; i++) {
+				if(i > 0) {
+					center += separation(vertices[i - 1], vertices[i]);
+				}
+				centers[vertices[i]] = center;
+			}
+		}
+
+		for(int sweep = 0; sweep <= POSITIONING_SWEEPS; sweep++) {
+			boolean downwards = sweep % 2 == 0;
+			boolean last = sweep == POSITIONING_SWEEPS;
+			for(int i = 0; i < layers.length; i++) {
+				int[] vertices = layers[downwards ? i : layers.length - 1 - i];
+				double[] desired = new double[vertices.length];
+				for(int j = 0; j < vertices.length; j++) {
+					int v = vertices[j];
+					double sum = 0;
+					int count = 0;
+					if(downwards || last) {
+						for(int w : upper[v]) {
+							sum += centers[w];
+						}
+						count += upper[v].length;
+					}
+					if(!downwards || last) {
+						for(int w : lower[v]) {
+							sum += centers[w];
+						}
+						count += lower[v].length;
+					}
+					desired[j] = count == 0 ? centers[v] : sum / count;
+				}
+				balance(vertices, desired, centers);
+			}
+		}
+		return centers;
+	}
+
+	/**
+	 * Places the vertices as close as possible to their desired centers (least squares), while keeping their order and
+	 * separation. Subtracting the minimal offsets turns this into an isotonic regression, solved by pooling adjacent violators.
+	 */
+	private void balance(int[] vertices, double[] desired, double[] centers) {
+		int size = vertices.length;
+		double[] offsets = new double[size];
+		for(int i = 1; i < size; i++) {
+			offsets[i] = offsets[i - 1] + separation(vertices[i - 1], vertices[i]);
+		}
+
+		double[] blockSum = new double[size];
+		int[] blockCount = new int[size];
+		int blocks = 0;
+		for(int i = 0; i < size; i++) {
+			blockSum[blocks] = desired[i] - offsets[i];
+			blockCount[blocks] = 1;
+			blocks++;
+			while(blocks > 1 && blockSum[blocks - 2] / blockCount[blocks - 2] > blockSum[blocks - 1] / blockCount[blocks - 1]) {
+				blockSum[blocks - 2] += blockSum[blocks - 1];
+				blockCount[blocks - 2] += blockCount[blocks - 1];
+				blocks--;
+			}
+		}
+
+		int i = 0;
+		for(int b = 0; b < blocks; b++) {
+			double value = blockSum[b] / blockCount[b];
+			for(int j = 0; j < blockCount[b]; j++, i++) {
+				centers[vertices[i]] = value + offsets[i];
+			}
+		}
+	}
+
+	private double separation(int a, int b) {
+		boolean dummy = a >= nodeCount || b >= nodeCount;
+		return (breadth[a] + breadth[b]) / 2d + (dummy ? dummySpacing : nodeSpacing);
+	}
+
+	private void updateOrder() {
+		for(int[] vertices : layers) {
+			for(int i = 0; i < vertices.length; i++) {
+				order[vertices[i]] = i;
+			}
+		}
+	}
+
+	private static int[][] copy(int[][] layers) {
+		int[][] copy = new int[layers.length][];
+		for(int l = 0; l < layers.length; l++) {
+			copy[l] = layers[l].clone();
+		}
+		return copy;
+	}
+
+	private static int[][] toArrays(List<List<Integer>> lists) {
+		int[][] arrays = new int[lists.size()][];
+		for(int i = 0; i < arrays.length; i++) {
+			arrays[i] = lists.get(i).stream().mapToInt(Integer::intValue).toArray();
+		}
+		return arrays;
+	}
+
+	private static List<List<Integer>> createAdjacencyLists(int size) {
+		List<List<Integer>> lists = new ArrayList<>(size);
+		for(int i = 0; i < size; i++) {
+			lists.add(new ArrayList<>());
+		}
+		return lists;
+	}
+}
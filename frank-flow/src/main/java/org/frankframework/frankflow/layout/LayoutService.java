@@ -0,0 +1,183 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.layout;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.frankframework.frankflow.dto.LayoutDTO;
+import org.frankframework.frankflow.dto.LayoutEdgeDTO;
+import org.frankframework.frankflow.dto.LayoutNodeDTO;
+import org.frankframework.frankflow.dto.LayoutRequestDTO;
+import org.frankframework.frankflow.dto.LayoutRequestDTO.Direction;
+import org.frankframework.frankflow.util.StatisticsProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Computes the layout of a flow using the {@link LayeredLayout}.
+ * <p>
+ * Layouts are cached by the structural hash of the request (direction, nodes and their sizes, and edges, in order), so
+ * large adapters are only laid out once and every client gets the same result.
+ * The size of the LRU cache is configured with <code>frank-flow.layout.cache-size</code>.
+ * </p>
+ */
+@Component
+public class LayoutService implements StatisticsProvider {
+	private static final Logger log = LogManager.getLogger(LayoutService.class);
+
+	// Same as the canvas in the frontend
+	static final int DEFAULT_NODE_WIDTH = 200;
+	static final int DEFAULT_NODE_HEIGHT = 100;
+	static final int MARGIN = 100;
+	static final int NODE_SPACING = 100;
+	static final int LAYER_SPACING = 100;
+
+	private final Map<String, LayoutDTO> cache = new LinkedHashMap<>(16, 0.75f, true);
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	@Value("${frank-flow.layout.cache-size:500}")
+	private int cacheSize;
+
+	/**
+	 * @throws IllegalArgumentException when a node has no or a duplicate id, or an edge refers to an unknown node
+	 */
+	public LayoutDTO layout(LayoutRequestDTO request) {
+		Direction direction = request.getDirection() != null ? request.getDirection() : Direction.HORIZONTAL;
+		List<LayoutNodeDTO> nodes = request.getNodes() != null ? request.getNodes() : List.of();
+		List<LayoutEdgeDTO> edges = request.getEdges() != null ? request.getEdges() : List.of();
+
+		Map<String, Integer> indexes = new HashMap<>();
+		int[] widths = new int[nodes.size()];
+		int[] heights = new int[nodes.size()];
+		for(int i = 0; i < nodes.size(); i++) {
+			LayoutNodeDTO node = nodes.get(i);
+			if(StringUtils.isEmpty(node.getId())) {
+				throw new IllegalArgumentException("node at index [" + i + "] has no id");
+			}
+			if(indexes.put(node.getId(), i) != null) {
+				throw new IllegalArgumentException("duplicate node [" + node.getId() + "]");
+			}
+			widths[i] = node.getWidth() != null ? Math.max(0, node.getWidth()) : DEFAULT_NODE_WIDTH;
+			heights[i] = node.getHeight() != null ? Math.max(0, node.getHeight()) : DEFAULT_NODE_HEIGHT;
+		}
+
+		List<int[]> edgeIndexes = new ArrayList<>(edges.size());
+		for(LayoutEdgeDTO edge : edges) {
+			Integer source = indexes.get(edge.getSource());
+			Integer target = indexes.get(edge.getTarget());
+			if(source == null || target == null) {
+				throw new IllegalArgumentException("edge [" + edge.getSource() + "] -> [" + edge.getTarget() + "] refers to an unknown node");
+			}
+			edgeIndexes.add(new int[] { source, target });
+		}
+
+		String hash = hash(direction, nodes, widths, heights, edgeIndexes);
+		synchronized (cache) {
+			LayoutDTO cached = cache.get(hash);
+			if(cached != null) {
+				hits.increment();
+				return cached;
+			}
+		}
+
+		misses.increment();
+		long start = System.currentTimeMillis();
+		LayoutDTO layout = compute(direction, nodes, widths, heights, edgeIndexes);
+		layout.setHash(hash);
+		log.debug("computed layout of [{}] nodes and [{}] edges in [{}] ms", nodes.size(), edges.size(), System.currentTimeMillis() - start);
+
+		synchronized (cache) {
+			cache.put(hash, layout);
+			Iterator<String> iterator = cache.keySet().iterator();
+			while(cache.size() > cacheSize && iterator.hasNext()) {
+				iterator.next();
+				iterator.remove();
+			}
+		}
+		return layout;
+	}
+
+	private LayoutDTO compute(Direction direction, List<LayoutNodeDTO> nodes, int[] widths, int[] heights, List<int[]> edges) {
+		boolean horizontal = direction == Direction.HORIZONTAL;
+		int[] breadth = horizontal ? heights : widths;
+		int[] depth = horizontal ? widths : heights;
+		LayeredLayout.Result result = new LayeredLayout(breadth, depth, edges, NODE_SPACING, LAYER_SPACING).compute();
+
+		LayoutDTO layout = new LayoutDTO();
+		List<LayoutNodeDTO> positioned = new ArrayList<>(nodes.size());
+		int width = 0;
+		int height = 0;
+		for(int i = 0; i < nodes.size(); i++) {
+			int x = MARGIN + (horizontal ? result.layerPositions()[i] : result.positions()[i]);
+			int y = MARGIN + (horizontal ? result.positions()[i] : result.layerPositions()[i]);
+			positioned.add(new LayoutNodeDTO(nodes.get(i).getId(), widths[i], heights[i], x, y));
+			width = Math.max(width, x + widths[i] + MARGIN);
+			height = Math.max(height, y + heights[i] + MARGIN);
+		}
+		layout.setNodes(positioned);
+		layout.setWidth(width);
+		layout.setHeight(height);
+		return layout;
+	}
+
+	private static String hash(Direction direction, List<LayoutNodeDTO> nodes, int[] widths, int[] heights, List<int[]> edges) {
+		StringBuilder structure = new StringBuilder(direction.name()).append('\n');
+		for(int i = 0; i < nodes.size(); i++) {
+			String id = nodes.get(i).getId();
+			structure.append(id.length()).append(':').append(id).append(' ').append(widths[i]).append('x').append(heights[i]).append('\n');
+		}
+		for(int[] edge : edges) {
+			structure.append(edge[0]).append("->").append(edge[1]).append('\n');
+		}
+
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(structure.toString().getBytes(StandardCharsets.UTF_8));
+			return HexFormat.of().formatHex(digest);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@Override
+	public String getStatisticsName() {
+		return "layout";
+	}
+
+	@Override
+	public Map<String, Object> getStatistics() {
+		Map<String, Object> statistics = new LinkedHashMap<>();
+		synchronized (cache) {
+			statistics.put("entries", cache.size());
+		}
+		statistics.put("hits", hits.sum());
+		statistics.put("misses", misses.sum());
+		return statistics;
+	}
+}
@@ -15,22 +15,32 @@
 */
 package org.frankframework.frankflow.lifecycle;
 
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.MultipartConfigElement;
 import org.apache.commons.lang3.StringUtils;
+import org.frankframework.frankflow.util.AuditLogFilter;
+import org.frankframework.frankflow.util.BulkheadFilter;
+import org.frankframework.frankflow.util.ConcurrencyLimiter;
+import org.frankframework.frankflow.util.DecompressionFilter;
 import org.frankframework.management.bus.LocalGateway;
 import org.frankframework.management.bus.OutboundGatewayFactory;
 import org.frankframework.management.gateway.HazelcastOutboundGateway;
 import org.ibissource.frankflow.FrontendServlet;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.servlet.DelegatingFilterProxyRegistrationBean;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.boot.web.servlet.ServletRegistrationBean;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Scope;
+import org.springframework.security.web.context.AbstractSecurityWebApplicationInitializer;
 import org.springframework.web.servlet.DispatcherServlet;
 
 @Configuration
 public class AnnotationConfig {
+	/** Same as the default order of Spring Boot, the filters below are ordered relative to it */
+	public static final int SECURITY_FILTER_ORDER = -100;
 
 	@Autowired
 	private ApplicationContext applicationContext;
@@ -41,6 +51,7 @@ public class AnnotationConfig {
 		FrontendServlet frontendServlet = applicationContext.getAutowireCapableBeanFactory().createBean(FrontendServlet.class);
 		ServletRegistrationBean<FrontendServlet> servlet = new ServletRegistrationBean<>(frontendServlet);
 		servlet.addUrlMappings("/*");
+		servlet.setLoadOnStartup(1);
 		return servlet;
 	}
 
@@ -49,11 +60,71 @@ public class AnnotationConfig {
 	public ServletRegistrationBean<DispatcherServlet> backend() {
 		DispatcherServlet backendServlet = applicationContext.getAutowireCapableBeanFactory().createBean(DispatcherServlet.class);
 		ServletRegistrationBean<DispatcherServlet> servlet = new ServletRegistrationBean<>(backendServlet);
-		servlet.setMultipartConfig(new MultipartConfigElement(""));
+		long maxFileSize = applicationContext.getEnvironment().getProperty("frank-flow.upload.max-file-size", Long.class, -1L);
+		long maxRequestSize = applicationContext.getEnvironment().getProperty("frank-flow.upload.max-request-size", Long.class, -1L);
+		servlet.setMultipartConfig(new MultipartConfigElement("", maxFileSize, maxRequestSize, 0));
 		servlet.addUrlMappings("/api/*");
+		servlet.setLoadOnStartup(1);
 		return servlet;
 	}
 
+	/**
+	 * Registers the Spring Security filter chain (see {@link SecurityChainConfigurer}) explicitly, so the other filters can be
+	 * ordered relative to it. Otherwise it would be registered after them.
+	 */
+	@Bean
+	@Scope("singleton")
+	public DelegatingFilterProxyRegistrationBean securityFilterChain() {
+		DelegatingFilterProxyRegistrationBean filter = new DelegatingFilterProxyRegistrationBean(AbstractSecurityWebApplicationInitializer.DEFAULT_FILTER_NAME);
+		filter.setOrder(SECURITY_FILTER_ORDER);
+		return filter;
+	}
+
+	/**
+	 * Decodes compressed request bodies, responses are compressed by the container (see <code>SpringBootContext.xml</code>).
+	 * Runs after the bulkhead, which limits the size of the (compressed) request body, this filter limits the decoded size.
+	 */
+	@Bean
+	@Scope("singleton")
+	public FilterRegistrationBean<DecompressionFilter> decompression() {
+		long maxRequestSize = applicationContext.getEnvironment().getProperty("frank-flow.upload.max-request-size", Long.class, -1L);
+		FilterRegistrationBean<DecompressionFilter> filter = new FilterRegistrationBean<>(new DecompressionFilter(maxRequestSize));
+		filter.setEnabled(applicationContext.getEnvironment().getProperty("frank-flow.compression.enabled", Boolean.class, true));
+		filter.setOrder(SECURITY_FILTER_ORDER + 3);
+		filter.addUrlPatterns("/api/*");
+		return filter;
+	}
+
+	/**
+	 * Runs after the Spring Security filter chain so the authenticated user is known.
+	 */
+	@Bean
+	@Scope("singleton")
+	public FilterRegistrationBean<AuditLogFilter> auditLog() {
+		FilterRegistrationBean<AuditLogFilter> filter = new FilterRegistrationBean<>(new AuditLogFilter());
+		filter.setEnabled(applicationContext.getEnvironment().getProperty("frank-flow.audit.enabled", Boolean.class, true));
+		filter.setOrder(SECURITY_FILTER_ORDER + 1);
+		filter.setDispatcherTypes(DispatcherType.REQUEST, DispatcherType.ASYNC);
+		filter.addUrlPatterns("/api/*");
+		return filter;
+	}
+
+	/**
+	 * Registered after the audit log, so rejected requests are audited as well.
+	 */
+	@Bean
+	@Scope("singleton")
+	public FilterRegistrationBean<BulkheadFilter> bulkhead() {
+		ConcurrencyLimiter limiter = applicationContext.getBean(ConcurrencyLimiter.class);
+		long maxRequestSize = applicationContext.getEnvironment().getProperty("frank-flow.upload.max-request-size", Long.class, -1L);
+		FilterRegistrationBean<BulkheadFilter> filter = new FilterRegistrationBean<>(new BulkheadFilter(limiter, maxRequestSize));
+		filter.setEnabled(applicationContext.getEnvironment().getProperty("frank-flow.bulkhead.enabled", Boolean.class, true));
+		filter.setOrder(SECURITY_FILTER_ORDER + 2);
+		filter.setDispatcherTypes(DispatcherType.REQUEST, DispatcherType.ASYNC);
+		filter.addUrlPatterns("/api/*");
+		return filter;
+	}
+
 	@Bean
 	@Scope("singleton")
 	public OutboundGatewayFactory createOutboundGatewayFactory() {
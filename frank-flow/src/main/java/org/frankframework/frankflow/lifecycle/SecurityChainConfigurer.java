@@ -32,14 +32,23 @@ import org.springframework.security.authorization.AuthenticatedAuthorizationMana
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.annotation.web.configurers.AnonymousConfigurer;
+import org.springframework.security.config.annotation.web.configurers.CorsConfigurer;
 import org.springframework.security.config.annotation.web.configurers.CsrfConfigurer;
+import org.springframework.security.config.annotation.web.configurers.ExceptionHandlingConfigurer;
 import org.springframework.security.config.annotation.web.configurers.FormLoginConfigurer;
 import org.springframework.security.config.annotation.web.configurers.HeadersConfigurer;
 import org.springframework.security.config.annotation.web.configurers.LogoutConfigurer;
+import org.springframework.security.config.annotation.web.configurers.RequestCacheConfigurer;
+import org.springframework.security.config.annotation.web.configurers.SecurityContextConfigurer;
+import org.springframework.security.config.annotation.web.configurers.ServletApiConfigurer;
+import org.springframework.security.config.annotation.web.configurers.SessionManagementConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.web.SecurityFilterChain;
-import org.springframework.security.web.util.matcher.AnyRequestMatcher;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.NegatedRequestMatcher;
 import org.springframework.security.web.util.matcher.RequestMatcher;
 
 import lombok.Setter;
@@ -47,34 +56,66 @@ import lombok.Setter;
 /**
  * Enable security, although.. it's anonymous on all endpoints, but at least sets the 
  * <code>SecurityContextHolder.getContext().getAuthentication();</code> object.
+ * <p>
+ * The static frontend resources use a separate, minimal, chain without a SecurityContext or (anonymous) authentication.
+ * </p>
  */
 @Configuration
 @EnableWebSecurity //Enables Spring Security (classpath)
 @EnableMethodSecurity(jsr250Enabled = true, prePostEnabled = false) //Enables JSR 250 (JAX-RS) annotations
 @Order(Ordered.HIGHEST_PRECEDENCE)
 public class SecurityChainConfigurer implements ApplicationContextAware, EnvironmentAware {
+	private static final RequestMatcher API_REQUEST_MATCHER = new AntPathRequestMatcher("/api/**");
+
 	private @Setter ApplicationContext applicationContext;
 	private @Setter Environment environment;
 
 	@Bean
+	@Order(1)
 	public SecurityFilterChain configureChain(HttpSecurity http) throws Exception {
 		//Apply defaults to disable bloated filters, see DefaultSecurityFilterChain.getFilters for the actual list.
 		http.headers(headers -> headers.frameOptions(HeadersConfigurer.FrameOptionsConfig::sameOrigin)); //Allow same origin iframe request
 		http.csrf(CsrfConfigurer::disable);
-		RequestMatcher securityRequestMatcher = AnyRequestMatcher.INSTANCE;
-		http.securityMatcher(securityRequestMatcher); //Triggers the SecurityFilterChain, also for OPTIONS requests!
+		http.securityMatcher(API_REQUEST_MATCHER); //Triggers the SecurityFilterChain, also for OPTIONS requests!
 		http.formLogin(FormLoginConfigurer::disable); //Disable the form login filter
 		http.logout(LogoutConfigurer::disable); //Disable the logout endpoint on every filter
+		http.sessionManagement(management -> management.sessionCreationPolicy(SessionCreationPolicy.STATELESS)); //The API is stateless, never create a HttpSession
 
 		http.anonymous(anonymous -> anonymous.authorities(getAuthorities()));
 
-		// Enables security for all servlet endpoints
-		http.authorizeHttpRequests(requests -> requests.requestMatchers(securityRequestMatcher).access(AuthenticatedAuthorizationManager.anonymous()));
+		// Enables security for all API endpoints
+		http.authorizeHttpRequests(requests -> requests.requestMatchers(API_REQUEST_MATCHER).access(AuthenticatedAuthorizationManager.anonymous()));
+
+		return http.build();
+	}
+
+	/**
+	 * Everything outside of the API is served by the FrontendServlet, these resources are public and don't need
+	 * a SecurityContext, only the security headers are written.
+	 */
+	@Bean
+	@Order(2)
+	public SecurityFilterChain configureFrontendChain(HttpSecurity http) throws Exception {
+		http.securityMatcher(new NegatedRequestMatcher(API_REQUEST_MATCHER));
+		http.headers(headers -> headers.frameOptions(HeadersConfigurer.FrameOptionsConfig::sameOrigin)); //Allow same origin iframe request
+		http.csrf(CsrfConfigurer::disable);
+		http.cors(CorsConfigurer::disable);
+		http.formLogin(FormLoginConfigurer::disable);
+		http.logout(LogoutConfigurer::disable);
+		http.sessionManagement(SessionManagementConfigurer::disable);
+		http.securityContext(SecurityContextConfigurer::disable);
+		http.anonymous(AnonymousConfigurer::disable);
+		http.requestCache(RequestCacheConfigurer::disable);
+		http.servletApi(ServletApiConfigurer::disable);
+		http.exceptionHandling(ExceptionHandlingConfigurer::disable);
 
 		return http.build();
 	}
 
-	private List<GrantedAuthority> getAuthorities() {
+	/**
+	 * Authorities of the anonymous user, which has all roles.
+	 */
+	static List<GrantedAuthority> getAuthorities() {
 		Set<String> securityRoles = Set.of(Servlet.ALL_IBIS_USER_ROLES);
 		List<GrantedAuthority> grantedAuthorities = new ArrayList<>(securityRoles.size());
 		for (String role : securityRoles) {
@@ -0,0 +1,238 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.lifecycle;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.frankframework.frankflow.analysis.ReferenceGraphService;
+import org.frankframework.frankflow.api.ConfigurationApi;
+import org.frankframework.frankflow.api.Configurations;
+import org.frankframework.frankflow.api.DirectoryApi;
+import org.frankframework.frankflow.dto.ConfigurationDTO;
+import org.frankframework.frankflow.storage.StorageService;
+import org.frankframework.frankflow.util.MimeTypeUtil;
+import org.frankframework.frankflow.util.StatisticsProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Warms up the application in the background once it has started, so the first users don't pay for cold
+ * class-loading and empty caches. Loads the configurations through the bus, walks the directory tree and builds the
+ * reference graph of every configuration, and reads the frontend resources and MediaType mapping.
+ * <p>
+ * Failing steps are logged and skipped, the application is reported ready once all steps have been executed,
+ * see {@link #isReady()}. When the configurations can't be loaded the application isn't reported ready, loading them
+ * is retried with a backoff of up to a minute until it succeeds, see {@link #isCompleted()} and
+ * {@link #getFailedSteps()}. Disabled through <code>frank-flow.warm-up.enabled</code>.
+ * </p>
+ */
+@Component
+public class WarmUp implements StatisticsProvider {
+	private static final Logger log = LogManager.getLogger(WarmUp.class);
+	private static final String FRONTEND_RESOURCES = "classpath*:flow-frontend/**";
+	private static final long INITIAL_RETRY_INTERVAL = TimeUnit.SECONDS.toMillis(1);
+	private static final long MAX_RETRY_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+
+	private final AtomicBoolean started = new AtomicBoolean();
+	private final Set<String> failedSteps = new LinkedHashSet<>();
+	private volatile boolean completed;
+	private volatile boolean ready;
+	private volatile long duration = -1;
+
+	@Autowired
+	private ApplicationContext applicationContext;
+
+	@Autowired
+	private Configurations configurations;
+
+	@Autowired
+	private ConfigurationApi configurationApi;
+
+	@Autowired
+	private DirectoryApi directoryApi;
+
+	@Autowired
+	private ReferenceGraphService referenceGraphService;
+
+	@Autowired
+	private StorageService storageService;
+
+	@Value("${frank-flow.warm-up.enabled:true}")
+	private boolean enabled;
+
+	private interface Step {
+		void run() throws Exception;
+	}
+
+	/**
+	 * Only once, the embedded webserver has already been started when the context has been refreshed.
+	 */
+	@EventListener
+	public void onContextRefreshed(ContextRefreshedEvent event) {
+		if(event.getApplicationContext() != applicationContext || !started.compareAndSet(false, true)) {
+			return;
+		}
+		if(!enabled) {
+			completed = true;
+			ready = true;
+			return;
+		}
+
+		Thread thread = new Thread(this::warmUp, "frank-flow-warm-up");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	private void warmUp() {
+		long start = System.nanoTime();
+		run("MediaType mapping", () -> MimeTypeUtil.findMediaType("xml"));
+		run("frontend resources", this::readFrontendResources);
+
+		// The bus requires an authenticated user, the same (anonymous) user as used by the API
+		SecurityContextHolder.getContext().setAuthentication(new AnonymousAuthenticationToken("warm-up", "anonymousUser", SecurityChainConfigurer.getAuthorities()));
+		try {
+			List<ConfigurationDTO> configs = new ArrayList<>();
+			long interval = INITIAL_RETRY_INTERVAL;
+			while(!run("configurations", () -> configs.addAll(configurations.getConfigurations()))) {
+				if(!completed) {
+					completed = true;
+					log.error("unable to load the configurations, the application is not ready, retrying in the background");
+				}
+				try {
+					Thread.sleep(interval);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				interval = Math.min(interval * 2, MAX_RETRY_INTERVAL);
+			}
+			for(ConfigurationDTO config : configs) {
+				run("configuration [" + config.getName() + "]", () -> warmUp(config));
+			}
+		} finally {
+			SecurityContextHolder.clearContext();
+		}
+
+		duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		ready = true;
+		completed = true;
+		log.info("warm-up completed in [{}] ms", duration);
+	}
+
+	/**
+	 * Walks the tree (which also creates the storage), lists the root directory and builds the reference graph.
+	 */
+	private void warmUp(ConfigurationDTO config) throws IOException {
+		ResponseEntity<StreamingResponseBody> tree = configurationApi.getConfigurations(config.getName(), false);
+		tree.getBody().writeTo(OutputStream.nullOutputStream());
+		directoryApi.listDirectory(config.getName(), "", 1, null, 100);
+		referenceGraphService.getReferenceGraph(config.getName(), storageService.getStorage(config));
+	}
+
+	private void readFrontendResources() throws IOException {
+		long bytes = 0;
+		int count = 0;
+		for(Resource resource : new PathMatchingResourcePatternResolver().getResources(FRONTEND_RESOURCES)) {
+			if(resource.isReadable()) {
+				try (InputStream in = resource.getInputStream()) {
+					bytes += in.transferTo(OutputStream.nullOutputStream());
+					count++;
+				}
+			}
+		}
+		log.debug("read [{}] frontend resources, [{}] bytes", count, bytes);
+	}
+
+	/**
+	 * @return <code>false</code> when the step has failed.
+	 */
+	private boolean run(String name, Step step) {
+		long start = System.nanoTime();
+		try {
+			step.run();
+			log.debug("warmed up [{}] in [{}] ms", name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+			synchronized (failedSteps) {
+				failedSteps.remove(name);
+			}
+			return true;
+		} catch (Exception e) {
+			log.warn("unable to warm up [{}]", name, e);
+			synchronized (failedSteps) {
+				failedSteps.add(name);
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Whether the warm-up has been completed (or is disabled) and the configurations have been loaded, regardless of
+	 * other failing steps.
+	 */
+	public boolean isReady() {
+		return ready;
+	}
+
+	/**
+	 * Whether all steps have been executed (or the warm-up is disabled), also when the application is not ready yet
+	 * because loading the configurations is being retried.
+	 */
+	public boolean isCompleted() {
+		return completed;
+	}
+
+	public List<String> getFailedSteps() {
+		synchronized (failedSteps) {
+			return List.copyOf(failedSteps);
+		}
+	}
+
+	@Override
+	public String getStatisticsName() {
+		return "warm-up";
+	}
+
+	@Override
+	public Map<String, Object> getStatistics() {
+		Map<String, Object> statistics = new LinkedHashMap<>();
+		statistics.put("enabled", enabled);
+		statistics.put("ready", ready);
+		statistics.put("duration", duration);
+		statistics.put("failedSteps", getFailedSteps());
+		return statistics;
+	}
+}
@@ -0,0 +1,208 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.refactoring;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.frankframework.frankflow.dto.FileEditsDTO;
+import org.frankframework.frankflow.dto.TextEditDTO;
+import org.frankframework.frankflow.history.HistoryStore;
+import org.frankframework.frankflow.storage.Storage;
+import org.frankframework.frankflow.storage.Storage.FileStat;
+import org.frankframework.frankflow.util.TextPatcher;
+import org.frankframework.frankflow.util.XmlEncoding;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Applies a {@link RenameRefactoring} to the (candidate) files of a configuration.
+ * <p>
+ * The edits of all files are computed in parallel, before anything is saved. The files are then saved in parallel as well,
+ * when one of them fails (eg. because it has been modified in the meantime) the files that have already been saved are restored,
+ * so either all files are renamed or none of them. Only one refactoring per configuration runs at a time.
+ * Files keep the encoding of their XML declaration.
+ * </p>
+ */
+@Component
+public class RefactoringService implements DisposableBean {
+	private static final Logger log = LogManager.getLogger(RefactoringService.class);
+
+	private final ForkJoinPool refactoringPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+	private final Map<String, Object> locks = new ConcurrentHashMap<>();
+
+	@Autowired
+	private HistoryStore historyStore;
+
+	private record FileEdits(String path, byte[] original, Charset charset, String content, String eTag, List<TextEditDTO> edits) {}
+
+	/** The ETag and content of the renamed file, to only restore it when it hasn't been modified since and to record its history */
+	private record Outcome(String path, Exception error, String eTag, byte[] content) {}
+
+	/**
+	 * @param files the files that (may) contain references, files without references are left untouched.
+	 * @param dryRun only compute the edits, without saving them.
+	 * @return the edits per file, in the order of the files.
+	 * @throws IllegalArgumentException when one of the files is not well-formed, or can't be decoded or encoded in the encoding of its XML declaration.
+	 * @throws IllegalStateException when one of the files has been modified while being renamed, none of the files are changed.
+	 */
+	public List<FileEditsDTO> rename(String configuration, Storage storage, RenameRefactoring refactoring, Collection<String> files, boolean dryRun) {
+		synchronized (locks.computeIfAbsent(configuration, e -> new Object())) {
+			List<FileEdits> plan = inParallel(() -> files.parallelStream().map(file -> computeEdits(storage, refactoring, file)).filter(e -> !e.edits().isEmpty()).toList());
+			if(!dryRun && !plan.isEmpty()) {
+				apply(configuration, storage, plan);
+			}
+			return plan.stream().map(e -> new FileEditsDTO(e.path(), e.edits())).toList();
+		}
+	}
+
+	private FileEdits computeEdits(Storage storage, RenameRefactoring refactoring, String file) {
+		try {
+			FileStat stat = storage.stat(file);
+			if(stat == null) {
+				throw new IllegalStateException("file [" + file + "] has been removed");
+			}
+			byte[] original;
+			try (InputStream in = storage.read(file)) {
+				original = in.readAllBytes();
+			}
+			// Decoded (and encoded again) in the encoding of the XML declaration, characters that can't be decoded are refused
+			Charset charset;
+			String content;
+			try {
+				charset = XmlEncoding.detect(original);
+				content = charset.newDecoder().decode(ByteBuffer.wrap(original)).toString();
+			} catch (CharacterCodingException | UnsupportedCharsetException e) {
+				throw new IllegalArgumentException("file [" + file + "] does not match its encoding: " + e.getMessage(), e);
+			}
+			try {
+				return new FileEdits(file, original, charset, content, stat.getETag(), refactoring.computeEdits(content));
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException("file [" + file + "] is not well-formed: " + e.getMessage(), e);
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("unable to read file [" + file + "]", e);
+		}
+	}
+
+	private void apply(String configuration, Storage storage, List<FileEdits> plan) {
+		for(FileEdits file : plan) {
+			historyStore.recordOriginal(configuration, file.path(), storage);
+		}
+
+		List<Outcome> outcomes = inParallel(() -> plan.parallelStream().map(file -> write(storage, file)).toList());
+		Exception error = outcomes.stream().map(Outcome::error).filter(e -> e != null).findFirst().orElse(null);
+		if(error == null) {
+			for(Outcome outcome : outcomes) {
+				historyStore.recordVersion(configuration, outcome.path(), outcome.content());
+			}
+			return;
+		}
+
+		for(int i = 0; i < plan.size(); i++) {
+			if(outcomes.get(i).error() == null) {
+				restore(storage, plan.get(i), outcomes.get(i).eTag());
+			}
+		}
+		if(error instanceof IllegalStateException ise) {
+			throw ise;
+		}
+		if(error instanceof IllegalArgumentException iae) {
+			throw iae;
+		}
+		throw new IllegalStateException("unable to save file [" + outcomes.stream().filter(e -> e.error() == error).findFirst().map(Outcome::path).orElse(null) + "]", error);
+	}
+
+	private Outcome write(Storage storage, FileEdits file) {
+		try {
+			StringWriter writer = new StringWriter(file.content().length());
+			TextPatcher.apply(new StringReader(file.content()), writer, file.edits());
+			byte[] patched;
+			try {
+				ByteBuffer encoded = file.charset().newEncoder().encode(CharBuffer.wrap(writer.getBuffer()));
+				patched = new byte[encoded.remaining()];
+				encoded.get(patched);
+			} catch (CharacterCodingException e) {
+				return new Outcome(file.path(), new IllegalArgumentException("file [" + file.path() + "] can't contain the new name in encoding [" + file.charset() + "]", e), null, null);
+			}
+
+			synchronized (storage.getLock(file.path())) {
+				FileStat current = storage.stat(file.path());
+				if(current == null || !current.getETag().equals(file.eTag())) {
+					return new Outcome(file.path(), new IllegalStateException("file [" + file.path() + "] has been modified while being renamed"), null, null);
+				}
+				storage.write(file.path(), out -> out.write(patched));
+				return new Outcome(file.path(), null, storage.stat(file.path()).getETag(), patched);
+			}
+		} catch (IOException | RuntimeException e) {
+			return new Outcome(file.path(), e, null, null);
+		}
+	}
+
+	/**
+	 * Writes the original content back, unless the file has been modified since it has been renamed.
+	 */
+	private void restore(Storage storage, FileEdits file, String renamedETag) {
+		try {
+			synchronized (storage.getLock(file.path())) {
+				FileStat current = storage.stat(file.path());
+				if(current == null || !current.getETag().equals(renamedETag)) {
+					log.warn("not restoring file [{}] after a failed rename, it has been modified in the meantime", file.path());
+					return;
+				}
+				storage.write(file.path(), out -> out.write(file.original()));
+			}
+		} catch (IOException e) {
+			log.error("unable to restore file [{}] after a failed rename", file.path(), e);
+		}
+	}
+
+	private <T> T inParallel(Callable<T> task) {
+		try {
+			return refactoringPool.submit(task).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("rename has been interrupted", e);
+		} catch (ExecutionException e) {
+			if(e.getCause() instanceof RuntimeException re) {
+				throw re;
+			}
+			throw new IllegalStateException("unable to rename", e.getCause());
+		}
+	}
+
+	@Override
+	public void destroy() {
+		refactoringPool.shutdownNow();
+	}
+}
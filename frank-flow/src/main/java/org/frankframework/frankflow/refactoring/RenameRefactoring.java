@@ -0,0 +1,178 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.refactoring;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+import org.frankframework.frankflow.analysis.ConfigurationFileParser;
+import org.frankframework.frankflow.dto.TextEditDTO;
+import org.frankframework.frankflow.refactoring.XmlTagScanner.Attribute;
+
+/**
+ * Determines which attribute values of a configuration file refer to the adapter, pipe or exit that is being renamed,
+ * and returns the edits to rename them. Only the attribute values are replaced, the rest of the file is left untouched.
+ * <ul>
+ * <li>Adapters: the <code>name</code> of the adapter and the <code>target</code> of FrankSenders (with ADAPTER scope).</li>
+ * <li>Pipes: the <code>name</code> of the pipe, the <code>firstPipe</code> of the pipeline and the <code>path</code> of forwards.</li>
+ * <li>Exits: the <code>name</code> (or <code>path</code>) of the exit and the <code>path</code> of forwards.</li>
+ * </ul>
+ * Pipes and exits are only renamed within the given adapter.
+ */
+public class RenameRefactoring {
+
+	public enum Kind {
+		ADAPTER, PIPE, EXIT
+	}
+
+	private final String configuration;
+	private final Kind kind;
+	private final String adapter;
+	private final String name;
+	private final String newName;
+
+	/**
+	 * @param adapter the adapter that contains the pipe or exit, not used when renaming adapters.
+	 */
+	public RenameRefactoring(String configuration, Kind kind, String adapter, String name, String newName) {
+		this.configuration = configuration;
+		this.kind = kind;
+		this.adapter = adapter;
+		this.name = name;
+		this.newName = newName;
+	}
+
+	/**
+	 * @throws IllegalArgumentException when the content is not well-formed.
+	 */
+	public List<TextEditDTO> computeEdits(String content) {
+		EditCollector collector = new EditCollector();
+		XmlTagScanner.scan(content, collector);
+		return collector.edits;
+	}
+
+	private class EditCollector implements XmlTagScanner.Handler {
+		private final List<TextEditDTO> edits = new ArrayList<>();
+		private final Deque<String> elements = new ArrayDeque<>();
+		private String currentAdapter;
+		private int adapterDepth = -1;
+		private int pipelineDepth = -1;
+
+		@Override
+		public void startElement(String qName, List<Attribute> attributes) {
+			String element = qName.substring(qName.indexOf(':') + 1).toLowerCase();
+			int depth = elements.size();
+			elements.push(element);
+
+			if("adapter".equals(element)) {
+				currentAdapter = getValue(attributes, "name");
+				adapterDepth = depth;
+				if(kind == Kind.ADAPTER) {
+					rename(attributes, "name");
+				}
+				return;
+			}
+			if(kind == Kind.ADAPTER) {
+				if(isFrankSender(element, attributes)) {
+					renameTarget(attributes);
+				}
+				return;
+			}
+			if(currentAdapter == null || !currentAdapter.equals(adapter)) {
+				return;
+			}
+
+			if("pipeline".equals(element)) {
+				pipelineDepth = depth;
+				if(kind == Kind.PIPE) {
+					rename(attributes, "firstPipe");
+				}
+			} else if("forward".equals(element)) {
+				rename(attributes, "path");
+			} else if("exit".equals(element)) {
+				if(kind == Kind.EXIT) {
+					rename(attributes, getValue(attributes, "name") != null ? "name" : "path");
+				}
+			} else if(kind == Kind.PIPE && pipelineDepth >= 0 && depth == pipelineDepth + 1 && ConfigurationFileParser.isPipe(element)) {
+				rename(attributes, "name");
+			}
+		}
+
+		@Override
+		public void endElement(String qName) {
+			elements.pop();
+			int depth = elements.size();
+			if(depth == pipelineDepth) {
+				pipelineDepth = -1;
+			}
+			if(depth == adapterDepth) {
+				currentAdapter = null;
+				adapterDepth = -1;
+			}
+		}
+
+		private boolean isFrankSender(String element, List<Attribute> attributes) {
+			if(!"franksender".equals(element) && !StringUtils.endsWith(getValue(attributes, "className"), ".FrankSender")) {
+				return false;
+			}
+			String scope = getValue(attributes, "scope");
+			return scope == null || "ADAPTER".equalsIgnoreCase(scope);
+		}
+
+		/**
+		 * The target may be prefixed with the name of the configuration, which is preserved.
+		 */
+		private void renameTarget(List<Attribute> attributes) {
+			Attribute target = getAttribute(attributes, "target");
+			if(target == null) {
+				return;
+			}
+			if(target.value().equals(name)) {
+				replace(target, newName);
+			} else if(target.value().equals(configuration + "/" + name)) {
+				replace(target, configuration + "/" + newName);
+			}
+		}
+
+		private void rename(List<Attribute> attributes, String attributeName) {
+			Attribute attribute = getAttribute(attributes, attributeName);
+			if(attribute != null && attribute.value().equals(name)) {
+				replace(attribute, newName);
+			}
+		}
+
+		private void replace(Attribute attribute, String value) {
+			edits.add(new TextEditDTO(attribute.start(), attribute.end() - attribute.start(), XmlTagScanner.escape(value, attribute.quote())));
+		}
+	}
+
+	private static String getValue(List<Attribute> attributes, String name) {
+		Attribute attribute = getAttribute(attributes, name);
+		return attribute != null ? attribute.value() : null;
+	}
+
+	private static Attribute getAttribute(List<Attribute> attributes, String name) {
+		for(Attribute attribute : attributes) {
+			if(attribute.name().equals(name)) {
+				return attribute;
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,213 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.refactoring;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lexical scanner that reports the start and end tags of an XML document, including the exact (character) position of
+ * every attribute value. Unlike a StAX reader the original text is retained, so values can be replaced without touching
+ * the formatting of the rest of the document. Comments, CDATA sections, processing instructions and the DOCTYPE are skipped.
+ */
+class XmlTagScanner {
+
+	/**
+	 * @param value the unescaped value, <code>start</code> and <code>end</code> delimit the (escaped) value in the document.
+	 */
+	record Attribute(String name, String value, int start, int end, char quote) {}
+
+	interface Handler {
+		void startElement(String name, List<Attribute> attributes);
+
+		void endElement(String name);
+	}
+
+	private final String content;
+	private final Handler handler;
+	private int position;
+
+	private XmlTagScanner(String content, Handler handler) {
+		this.content = content;
+		this.handler = handler;
+	}
+
+	/**
+	 * @throws IllegalArgumentException when a tag, comment or other construct is not terminated.
+	 */
+	static void scan(String content, Handler handler) {
+		new XmlTagScanner(content, handler).scan();
+	}
+
+	private void scan() {
+		while((position = content.indexOf('<', position)) != -1) {
+			if(content.startsWith("<!--", position)) {
+				skipPast("-->");
+			} else if(content.startsWith("<![CDATA[", position)) {
+				skipPast("]]>");
+			} else if(content.startsWith("<?", position)) {
+				skipPast("?>");
+			} else if(content.startsWith("<!", position)) {
+				skipDoctype();
+			} else if(content.startsWith("</", position)) {
+				position += 2;
+				String name = readName();
+				skipPast(">");
+				handler.endElement(name);
+			} else {
+				position++;
+				startElement();
+			}
+		}
+	}
+
+	private void startElement() {
+		String name = readName();
+		List<Attribute> attributes = new ArrayList<>();
+		while(true) {
+			skipWhitespace();
+			if(content.startsWith("/>", position)) {
+				position += 2;
+				handler.startElement(name, attributes);
+				handler.endElement(name);
+				return;
+			}
+			if(content.startsWith(">", position)) {
+				position++;
+				handler.startElement(name, attributes);
+				return;
+			}
+
+			String attribute = readName();
+			skipWhitespace();
+			expect('=');
+			skipWhitespace();
+			char quote = position < content.length() ? content.charAt(position) : 0;
+			if(quote != '"' && quote != '\'') {
+				throw new IllegalArgumentException("expected quoted value of attribute [" + attribute + "] at offset " + position);
+			}
+			int start = position + 1;
+			int end = content.indexOf(quote, start);
+			if(end == -1) {
+				throw new IllegalArgumentException("value of attribute [" + attribute + "] is not terminated");
+			}
+			attributes.add(new Attribute(attribute, unescape(content.substring(start, end)), start, end, quote));
+			position = end + 1;
+		}
+	}
+
+	private String readName() {
+		int start = position;
+		while(position < content.length()) {
+			char c = content.charAt(position);
+			if(Character.isWhitespace(c) || c == '=' || c == '>' || c == '/') {
+				break;
+			}
+			position++;
+		}
+		if(start == position) {
+			throw new IllegalArgumentException("expected a name at offset " + start);
+		}
+		return content.substring(start, position);
+	}
+
+	private void skipWhitespace() {
+		while(position < content.length() && Character.isWhitespace(content.charAt(position))) {
+			position++;
+		}
+	}
+
+	private void expect(char c) {
+		if(position >= content.length() || content.charAt(position) != c) {
+			throw new IllegalArgumentException("expected [" + c + "] at offset " + position);
+		}
+		position++;
+	}
+
+	private void skipPast(String terminator) {
+		int end = content.indexOf(terminator, position);
+		if(end == -1) {
+			throw new IllegalArgumentException("missing [" + terminator + "] after offset " + position);
+		}
+		position = end + terminator.length();
+	}
+
+	/**
+	 * The DOCTYPE may contain an internal subset (between square brackets) with <code>&gt;</code> characters.
+	 */
+	private void skipDoctype() {
+		int end = content.indexOf('>', position);
+		int subset = content.indexOf('[', position);
+		if(subset != -1 && (end == -1 || subset < end)) {
+			position = subset;
+			skipPast("]");
+		}
+		skipPast(">");
+	}
+
+	static String unescape(String value) {
+		if(value.indexOf('&') == -1) {
+			return value;
+		}
+		StringBuilder result = new StringBuilder(value.length());
+		int i = 0;
+		while(i < value.length()) {
+			char c = value.charAt(i);
+			int end = c == '&' ? value.indexOf(';', i) : -1;
+			if(end == -1) {
+				result.append(c);
+				i++;
+				continue;
+			}
+			String entity = value.substring(i + 1, end);
+			switch (entity) {
+			case "amp" -> result.append('&');
+			case "lt" -> result.append('<');
+			case "gt" -> result.append('>');
+			case "quot" -> result.append('"');
+			case "apos" -> result.append('\'');
+			default -> {
+				if(entity.startsWith("#x")) {
+					result.appendCodePoint(Integer.parseInt(entity.substring(2), 16));
+				} else if(entity.startsWith("#")) {
+					result.appendCodePoint(Integer.parseInt(entity.substring(1)));
+				} else {
+					result.append('&').append(entity).append(';'); // Custom entities are left as-is
+				}
+			}
+			}
+			i = end + 1;
+		}
+		return result.toString();
+	}
+
+	static String escape(String value, char quote) {
+		StringBuilder result = new StringBuilder(value.length());
+		for(int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if(c == '&') {
+				result.append("&amp;");
+			} else if(c == '<') {
+				result.append("&lt;");
+			} else if(c == quote) {
+				result.append(quote == '"' ? "&quot;" : "&apos;");
+			} else {
+				result.append(c);
+			}
+		}
+		return result.toString();
+	}
+}
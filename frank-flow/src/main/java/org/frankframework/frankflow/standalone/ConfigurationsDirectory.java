@@ -25,8 +25,10 @@ import org.frankframework.frankflow.dto.ConfigurationDTO;
 import org.frankframework.management.bus.BusAction;
 import org.frankframework.management.bus.BusTopic;
 import org.frankframework.management.bus.message.JsonMessage;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
 import org.springframework.integration.core.MessageSelector;
 import org.springframework.integration.dispatcher.MessageDispatcher;
 import org.springframework.integration.dsl.IntegrationFlow;
@@ -47,6 +49,9 @@ public class ConfigurationsDirectory {
 	@Value("${configurations.directory}")
 	private String configurationsDirectory;
 
+	@Autowired
+	private Environment environment;
+
 	/**
 	 * This method is picked up by the IbisInitializer annotation and autowired via the SpringEnvironmentContext.
 	 */
@@ -94,6 +99,7 @@ public class ConfigurationsDirectory {
 			ConfigurationDTO dto = new ConfigurationDTO();
 			dto.setName(folder.getName());
 			dto.setDirectory(folder.getAbsolutePath());
+			dto.setParent(environment.getProperty("configurations." + folder.getName() + ".parentConfig")); // Same property as the Frank!Framework
 			configurations.add(dto);
 		}
 
@@ -0,0 +1,341 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.storage;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.eclipse.jgit.api.AddCommand;
+import org.eclipse.jgit.api.CommitCommand;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.EmptyCommitException;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.frankframework.frankflow.storage.GitStorage.Commit;
+
+/**
+ * A local git repository, shared by all configurations (eg. directories) that are part of its work tree.
+ * <p>
+ * Changed paths are collected and committed in batches on a single background thread, either once
+ * <code>batchSize</code> paths have changed or after the <code>commitInterval</code>, so saving a file never waits for git.
+ * The commits are made on the branch that is checked out and only contain the changed paths, other changes that have been
+ * staged by hand are left in the index.
+ * Switching branches and reading older versions is done through the object database; a checkout only touches the files
+ * that differ between both branches.
+ * </p>
+ */
+class GitRepository implements Closeable {
+	private static final Logger log = LogManager.getLogger(GitRepository.class);
+
+	private final Git git;
+	private final Repository repository;
+	private final Path workTree;
+	private final int batchSize;
+	private final PersonIdent author;
+	private final ScheduledExecutorService committer;
+
+	private final Set<String> pending = new LinkedHashSet<>();
+	private final Object commitLock = new Object();
+
+	/**
+	 * The work tree of the repository that contains the directory, or the directory itself when it's not part of a repository.
+	 */
+	static Path findWorkTree(Path directory) throws IOException {
+		FileRepositoryBuilder builder = new FileRepositoryBuilder().readEnvironment().findGitDir(directory.toFile());
+		if(builder.getGitDir() == null) {
+			return directory.toAbsolutePath().normalize();
+		}
+		return builder.setup().getWorkTree().toPath().toAbsolutePath().normalize();
+	}
+
+	/**
+	 * Opens the repository that contains the directory, or creates a new repository in the directory when there is none.
+	 */
+	static GitRepository open(Path directory, Duration commitInterval, int batchSize, PersonIdent author) throws IOException {
+		FileRepositoryBuilder builder = new FileRepositoryBuilder().readEnvironment().findGitDir(directory.toFile());
+		Repository repository;
+		if(builder.getGitDir() != null) {
+			repository = builder.build();
+		} else {
+			try {
+				repository = Git.init().setDirectory(directory.toFile()).call().getRepository();
+			} catch (GitAPIException e) {
+				throw new IOException("unable to create repository in [" + directory + "]", e);
+			}
+			log.info("created git repository in [{}]", directory);
+		}
+		if(repository.isBare()) {
+			repository.close();
+			throw new IOException("repository [" + repository.getDirectory() + "] has no work tree");
+		}
+		return new GitRepository(repository, commitInterval, batchSize, author);
+	}
+
+	private GitRepository(Repository repository, Duration commitInterval, int batchSize, PersonIdent author) {
+		this.repository = repository;
+		this.git = new Git(repository);
+		this.workTree = repository.getWorkTree().toPath().toAbsolutePath().normalize();
+		this.batchSize = batchSize;
+		this.author = author;
+
+		committer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "git-committer-" + workTree.getFileName());
+			thread.setDaemon(true);
+			return thread;
+		});
+		long interval = commitInterval.toMillis();
+		committer.scheduleWithFixedDelay(this::commitQuietly, interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+	Path getWorkTree() {
+		return workTree;
+	}
+
+	/**
+	 * The path of the directory relative to the work tree, with a trailing <code>/</code> unless it's the work tree itself.
+	 */
+	String getPrefix(Path directory) {
+		Path relative = workTree.relativize(directory.toAbsolutePath().normalize());
+		String prefix = relative.toString().replace(File.separatorChar, '/');
+		return prefix.isEmpty() ? "" : prefix + "/";
+	}
+
+	/**
+	 * Marks the file or directory (relative to the work tree) as changed, it will be part of the next commit.
+	 */
+	void changed(String path) {
+		boolean full;
+		synchronized (pending) {
+			pending.add(path);
+			full = pending.size() >= batchSize;
+		}
+		if(full) {
+			committer.execute(this::commitQuietly);
+		}
+	}
+
+	private void commitQuietly() {
+		try {
+			commit();
+		} catch (Exception e) {
+			log.warn("unable to commit changes to [{}]", workTree, e);
+		}
+	}
+
+	/**
+	 * Commits all pending changes, and only those.
+	 * @return the commit, or <code>null</code> when there were no changes.
+	 */
+	Commit commit() throws IOException {
+		synchronized (commitLock) {
+			List<String> paths;
+			synchronized (pending) {
+				if(pending.isEmpty()) {
+					return null;
+				}
+				paths = new ArrayList<>(pending);
+				pending.clear();
+			}
+
+			try {
+				// Adds new and modified files, the update adds removed files
+				AddCommand add = git.add();
+				AddCommand update = git.add().setUpdate(true);
+				for(String path : paths) {
+					String pattern = path.isEmpty() ? "." : path;
+					add.addFilepattern(pattern);
+					update.addFilepattern(pattern);
+				}
+				add.call();
+				update.call();
+
+				// Only commit the changed paths, changes that have been staged by hand stay in the index
+				String message = paths.size() == 1 ? "Update " + paths.get(0) : "Update " + paths.size() + " files";
+				PersonIdent ident = new PersonIdent(author, Instant.now());
+				CommitCommand command = git.commit().setMessage(message).setAuthor(ident).setCommitter(ident).setAllowEmpty(false);
+				if(!paths.contains("")) {
+					List<String> only = new ArrayList<>();
+					for(String path : paths) {
+						if(exists(path)) { // Eg. not a file that has been created and removed again
+							only.add(path);
+						}
+					}
+					if(only.isEmpty()) {
+						return null;
+					}
+					only.forEach(command::setOnly);
+				}
+				RevCommit commit = command.call();
+				log.debug("committed [{}] changes to [{}] as [{}]", paths.size(), workTree, commit.name());
+				return toCommit(commit);
+			} catch (EmptyCommitException e) {
+				return null; // Eg. the file has been saved without changes
+			} catch (GitAPIException | RuntimeException e) {
+				synchronized (pending) {
+					pending.addAll(paths); // Retry them with the next batch
+				}
+				throw new IOException("unable to commit changes to [" + workTree + "]", e);
+			}
+		}
+	}
+
+	/**
+	 * Whether the file or directory (relative to the work tree) exists in the work tree or in the last commit.
+	 */
+	private boolean exists(String path) throws IOException {
+		if(Files.exists(workTree.resolve(path))) {
+			return true;
+		}
+		ObjectId head = repository.resolve(Constants.HEAD + "^{tree}");
+		if(head == null) {
+			return false;
+		}
+		try (TreeWalk walk = TreeWalk.forPath(repository, path, head)) {
+			return walk != null;
+		}
+	}
+
+	String getBranch() throws IOException {
+		return repository.getBranch();
+	}
+
+	List<String> getBranches() throws IOException {
+		return repository.getRefDatabase().getRefsByPrefix(Constants.R_HEADS).stream()
+				.map(ref -> Repository.shortenRefName(ref.getName()))
+				.toList();
+	}
+
+	/**
+	 * Commits the pending changes and switches to the (existing) branch.
+	 * @return the files that differ between both branches, with paths relative to the work tree.
+	 */
+	List<DiffEntry> checkout(String branch) throws IOException {
+		synchronized (commitLock) {
+			commit();
+
+			Ref ref = repository.exactRef(Constants.R_HEADS + branch);
+			if(ref == null) {
+				throw new IllegalArgumentException("branch [" + branch + "] does not exist");
+			}
+			ObjectId oldHead = repository.resolve(Constants.HEAD + "^{tree}");
+			ObjectId newHead = repository.resolve(ref.getName() + "^{tree}");
+			try {
+				git.checkout().setName(branch).call();
+
+				try (ObjectReader reader = repository.newObjectReader()) {
+					CanonicalTreeParser oldTree = new CanonicalTreeParser();
+					if(oldHead != null) {
+						oldTree.reset(reader, oldHead);
+					}
+					CanonicalTreeParser newTree = new CanonicalTreeParser();
+					newTree.reset(reader, newHead);
+					return git.diff().setOldTree(oldTree).setNewTree(newTree).setShowNameAndStatusOnly(true).call();
+				}
+			} catch (GitAPIException e) {
+				throw new IOException("unable to checkout branch [" + branch + "]", e);
+			}
+		}
+	}
+
+	/**
+	 * The commits that changed the file (relative to the work tree), newest first.
+	 */
+	List<Commit> getLog(String path, int limit) throws IOException {
+		try {
+			List<Commit> commits = new ArrayList<>();
+			if(repository.resolve(Constants.HEAD) == null) {
+				return commits; // No commits yet
+			}
+			for(RevCommit commit : git.log().addPath(path.isEmpty() ? "." : path).setMaxCount(limit).call()) {
+				commits.add(toCommit(commit));
+			}
+			return commits;
+		} catch (GitAPIException e) {
+			throw new IOException("unable to read log of [" + path + "]", e);
+		}
+	}
+
+	/**
+	 * Reads the file (relative to the work tree) from the object database.
+	 * @param revision a branch, tag or (abbreviated) commit id.
+	 * @return <code>null</code> when the revision or the file in that revision does not exist.
+	 */
+	byte[] read(String revision, String path) throws IOException {
+		ObjectId commitId = repository.resolve(revision + "^{commit}");
+		if(commitId == null) {
+			return null;
+		}
+		try (RevWalk walk = new RevWalk(repository)) {
+			RevCommit commit = walk.parseCommit(commitId);
+			try (TreeWalk treeWalk = TreeWalk.forPath(repository, path, commit.getTree())) {
+				if(treeWalk == null || treeWalk.isSubtree()) {
+					return null;
+				}
+				return repository.open(treeWalk.getObjectId(0), Constants.OBJ_BLOB).getBytes();
+			}
+		}
+	}
+
+	private static Commit toCommit(RevCommit commit) {
+		PersonIdent ident = commit.getAuthorIdent();
+		return new Commit(commit.name(), commit.getFullMessage().trim(), ident.getName(), ident.getWhenAsInstant().toEpochMilli());
+	}
+
+	/**
+	 * Commits the pending changes before the repository is closed.
+	 */
+	@Override
+	public void close() {
+		committer.shutdown();
+		try {
+			committer.awaitTermination(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		commitQuietly();
+		git.close();
+	}
+
+	@Override
+	public String toString() {
+		return "GitRepository [" + workTree + "]";
+	}
+}
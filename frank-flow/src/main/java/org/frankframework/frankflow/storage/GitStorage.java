@@ -0,0 +1,231 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.lib.Constants;
+import org.frankframework.frankflow.event.FileChangedEvent.ChangeType;
+import org.frankframework.frankflow.util.FileTreeUtils.Progress;
+
+/**
+ * Stores the files in the work tree of a local git repository, all changes are committed in batches on a background
+ * thread by the (shared) {@link GitRepository}. Reads and writes are served by the work tree, so they never wait for git.
+ * The <code>.git</code> directory is not part of the storage.
+ */
+public class GitStorage implements Storage {
+	private final LocalStorage workTree;
+	private final GitRepository repository;
+	private final String prefix;
+
+	public record Commit(String id, String message, String author, long timestamp) {}
+
+	GitStorage(LocalStorage workTree, GitRepository repository) {
+		this.workTree = workTree;
+		this.repository = repository;
+		this.prefix = repository.getPrefix(workTree.getRoot());
+	}
+
+	private boolean isGitDirectory(String path) {
+		String normalized = Storage.normalize(path);
+		return prefix.isEmpty() && (normalized.equals(Constants.DOT_GIT) || normalized.startsWith(Constants.DOT_GIT + "/"));
+	}
+
+	private String checkPath(String path) {
+		if(isGitDirectory(path)) {
+			throw new IllegalArgumentException("inaccessible path [" + path + "]");
+		}
+		return path;
+	}
+
+	private void changed(String path) {
+		repository.changed(toRepositoryPath(path));
+	}
+
+	@Override
+	public FileStat stat(String path) throws IOException {
+		return isGitDirectory(path) ? null : workTree.stat(path);
+	}
+
+	@Override
+	public InputStream read(String path) throws IOException {
+		return workTree.read(checkPath(path));
+	}
+
+	@Override
+	public SeekableByteChannel open(String path) throws IOException {
+		return workTree.open(checkPath(path));
+	}
+
+	@Override
+	public void write(String path, ContentWriter content) throws IOException {
+		workTree.write(checkPath(path), content);
+		changed(path);
+	}
+
+	@Override
+	public Object getLock(String path) {
+		return workTree.getLock(path);
+	}
+
+	@Override
+	public Stream<String> list(String directory) throws IOException {
+		Stream<String> names = workTree.list(checkPath(directory));
+		if(prefix.isEmpty() && Storage.normalize(directory).isEmpty()) {
+			return names.filter(name -> !name.equals(Constants.DOT_GIT));
+		}
+		return names;
+	}
+
+	@Override
+	public void createDirectory(String path) throws IOException {
+		workTree.createDirectory(checkPath(path)); // Git does not track (empty) directories
+	}
+
+	@Override
+	public void delete(String path) throws IOException {
+		workTree.delete(checkPath(path));
+		changed(path);
+	}
+
+	@Override
+	public Progress deleteRecursively(String directory) throws IOException {
+		try {
+			return workTree.deleteRecursively(checkPath(directory));
+		} finally {
+			changed(directory);
+		}
+	}
+
+	@Override
+	public Progress copy(String source, String target) throws IOException {
+		try {
+			return workTree.copy(checkPath(source), checkPath(target));
+		} finally {
+			changed(target);
+		}
+	}
+
+	@Override
+	public Progress move(String source, String target) throws IOException {
+		try {
+			return workTree.move(checkPath(source), checkPath(target));
+		} finally {
+			changed(source);
+			changed(target);
+		}
+	}
+
+	@Override
+	public Path getLocalRoot() {
+		return workTree.getLocalRoot();
+	}
+
+	@Override
+	public Closeable watch(Listener listener) throws IOException {
+		return workTree.watch((path, changeType, directory) -> {
+			if(!isGitDirectory(path)) {
+				listener.onChange(path, changeType, directory);
+			}
+		});
+	}
+
+	/**
+	 * Commits all pending changes of the repository, not just the changes of this configuration.
+	 * @return the commit, or <code>null</code> when there were no changes.
+	 */
+	public Commit commit() throws IOException {
+		return repository.commit();
+	}
+
+	public String getBranch() throws IOException {
+		return repository.getBranch();
+	}
+
+	public List<String> getBranches() throws IOException {
+		return repository.getBranches();
+	}
+
+	/**
+	 * Switches the work tree (of all configurations in the repository) to the branch, after committing the pending changes.
+	 * @return the files that differ between both branches, see {@link #getChanges(List)}.
+	 */
+	public List<DiffEntry> checkout(String branch) throws IOException {
+		return repository.checkout(branch);
+	}
+
+	/**
+	 * @return the changed files that are part of this configuration, with paths relative to the configuration.
+	 */
+	public Map<String, ChangeType> getChanges(List<DiffEntry> changes) {
+		Map<String, ChangeType> result = new LinkedHashMap<>();
+		for(DiffEntry change : changes) {
+			String path = change.getChangeType() == DiffEntry.ChangeType.DELETE ? change.getOldPath() : change.getNewPath();
+			if(path.startsWith(prefix)) {
+				ChangeType changeType = switch (change.getChangeType()) {
+					case ADD -> ChangeType.CREATED;
+					case DELETE -> ChangeType.DELETED;
+					default -> ChangeType.MODIFIED;
+				};
+				result.put(path.substring(prefix.length()), changeType);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Whether both configurations are part of the same repository, and thus share their branch and commits.
+	 */
+	public boolean isSameRepository(GitStorage other) {
+		return repository == other.repository;
+	}
+
+	/**
+	 * The commits that changed the file or directory, newest first.
+	 */
+	public List<Commit> getLog(String path, int limit) throws IOException {
+		return repository.getLog(toRepositoryPath(checkPath(path)), limit);
+	}
+
+	/**
+	 * Reads the file as it was in the revision, from the object database.
+	 * @param revision a branch, tag or (abbreviated) commit id.
+	 * @return <code>null</code> when the revision or the file in that revision does not exist.
+	 */
+	public byte[] read(String revision, String path) throws IOException {
+		return repository.read(revision, toRepositoryPath(checkPath(path)));
+	}
+
+	private String toRepositoryPath(String path) {
+		String normalized = Storage.normalize(path);
+		return normalized.isEmpty() ? StringUtils.removeEnd(prefix, "/") : prefix + normalized;
+	}
+
+	@Override
+	public String toString() {
+		return "GitStorage [" + workTree.getRoot() + "] in " + repository;
+	}
+}
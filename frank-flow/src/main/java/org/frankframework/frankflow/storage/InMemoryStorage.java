@@ -0,0 +1,485 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import org.frankframework.frankflow.event.FileChangedEvent.ChangeType;
+import org.frankframework.frankflow.util.FileTreeUtils.Progress;
+
+/**
+ * Keeps all files in memory, for tests and benchmarks that should not depend on (the speed of) the disk.
+ * <p>
+ * Files are immutable byte arrays that are replaced when written, so readers never see a partially written file.
+ * The tree is guarded by a single read-write lock. All listeners are notified (synchronously) of every change.
+ * </p>
+ */
+public class InMemoryStorage implements Storage {
+
+	private final Node root = Node.directory(0);
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final Object fileLock = new Object();
+	private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+	private long clock = 0;
+
+	/** Files have content, directories have children */
+	private static class Node {
+		private final Map<String, Node> children;
+		private final byte[] content;
+		private final long lastModified;
+
+		private Node(Map<String, Node> children, byte[] content, long lastModified) {
+			this.children = children;
+			this.content = content;
+			this.lastModified = lastModified;
+		}
+
+		static Node directory(long lastModified) {
+			return new Node(new TreeMap<>(), null, lastModified);
+		}
+
+		static Node file(byte[] content, long lastModified) {
+			return new Node(null, content, lastModified);
+		}
+
+		boolean isDirectory() {
+			return children != null;
+		}
+
+		Node deepCopy() {
+			if(!isDirectory()) {
+				return this; // Files are immutable
+			}
+			Node copy = directory(lastModified);
+			children.forEach((name, child) -> copy.children.put(name, child.deepCopy()));
+			return copy;
+		}
+	}
+
+	/**
+	 * Creates a storage with a copy of all files in the directory.
+	 */
+	public static InMemoryStorage copyOf(Path directory) throws IOException {
+		InMemoryStorage storage = new InMemoryStorage();
+		Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+				if(!dir.equals(directory)) {
+					storage.createDirectory(toRelativePath(directory, dir));
+				}
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+				byte[] content = Files.readAllBytes(file);
+				storage.write(toRelativePath(directory, file), out -> out.write(content));
+				return FileVisitResult.CONTINUE;
+			}
+		});
+		return storage;
+	}
+
+	private static String toRelativePath(Path root, Path file) {
+		return root.relativize(file).toString().replace(File.separatorChar, '/');
+	}
+
+	/**
+	 * Nanosecond timestamp that is unique for every change, so the ETag changes even when the size does not.
+	 */
+	private long tick() {
+		clock = Math.max(clock + 1, System.currentTimeMillis() * 1_000_000L);
+		return clock;
+	}
+
+	/**
+	 * @return <code>null</code> when the path does not exist. Must be called while holding the (read) lock.
+	 */
+	private Node find(String path) {
+		Node node = root;
+		if(path.isEmpty()) {
+			return node;
+		}
+		for(String name : path.split("/")) {
+			if(!node.isDirectory()) {
+				return null;
+			}
+			node = node.children.get(name);
+			if(node == null) {
+				return null;
+			}
+		}
+		return node;
+	}
+
+	private Node getDirectory(String path) throws IOException {
+		Node node = find(path);
+		if(node == null) {
+			throw new NoSuchFileException(path);
+		}
+		if(!node.isDirectory()) {
+			throw new NotDirectoryException(path);
+		}
+		return node;
+	}
+
+	private Node getFile(String path) throws IOException {
+		Node node = find(Storage.normalize(path));
+		if(node == null) {
+			throw new NoSuchFileException(path);
+		}
+		if(node.isDirectory()) {
+			throw new IOException("path [" + path + "] is a directory");
+		}
+		return node;
+	}
+
+	private static String getName(String path) {
+		return path.substring(path.lastIndexOf('/') + 1);
+	}
+
+	@Override
+	public FileStat stat(String path) {
+		lock.readLock().lock();
+		try {
+			Node node = find(Storage.normalize(path));
+			if(node == null) {
+				return null;
+			}
+			return new FileStat(node.isDirectory(), node.isDirectory() ? 0 : node.content.length, node.lastModified);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public InputStream read(String path) throws IOException {
+		return new ByteArrayInputStream(readContent(path));
+	}
+
+	@Override
+	public SeekableByteChannel open(String path) throws IOException {
+		return new ByteArrayChannel(readContent(path));
+	}
+
+	private byte[] readContent(String path) throws IOException {
+		lock.readLock().lock();
+		try {
+			return getFile(path).content;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public void write(String path, ContentWriter content) throws IOException {
+		String normalized = Storage.normalize(path);
+		if(normalized.isEmpty()) {
+			throw new IOException("unable to write to the root directory");
+		}
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		content.writeTo(buffer);
+
+		boolean created;
+		lock.writeLock().lock();
+		try {
+			Node parent = getDirectory(Storage.getParent(normalized));
+			Node existing = parent.children.get(getName(normalized));
+			if(existing != null && existing.isDirectory()) {
+				throw new IOException("path [" + path + "] is a directory");
+			}
+			created = existing == null;
+			parent.children.put(getName(normalized), Node.file(buffer.toByteArray(), tick()));
+		} finally {
+			lock.writeLock().unlock();
+		}
+		notifyListeners(normalized, created ? ChangeType.CREATED : ChangeType.MODIFIED, false);
+	}
+
+	/**
+	 * A single monitor for all files.
+	 */
+	@Override
+	public Object getLock(String path) {
+		return fileLock;
+	}
+
+	@Override
+	public Stream<String> list(String directory) throws IOException {
+		lock.readLock().lock();
+		try {
+			return new ArrayList<>(getDirectory(Storage.normalize(directory)).children.keySet()).stream();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public void createDirectory(String path) throws IOException {
+		String normalized = Storage.normalize(path);
+		lock.writeLock().lock();
+		try {
+			if(find(normalized) != null) {
+				throw new FileAlreadyExistsException(path);
+			}
+			Node node = root;
+			for(String name : normalized.split("/")) {
+				Node child = node.children.get(name);
+				if(child == null) {
+					child = Node.directory(tick());
+					node.children.put(name, child);
+				} else if(!child.isDirectory()) {
+					throw new NotDirectoryException(path);
+				}
+				node = child;
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+		notifyListeners(normalized, ChangeType.CREATED, true);
+	}
+
+	@Override
+	public void delete(String path) throws IOException {
+		String normalized = Storage.normalize(path);
+		boolean directory;
+		lock.writeLock().lock();
+		try {
+			Node node = find(normalized);
+			if(node == null) {
+				throw new NoSuchFileException(path);
+			}
+			if(node.isDirectory() && !node.children.isEmpty()) {
+				throw new DirectoryNotEmptyException(path);
+			}
+			directory = node.isDirectory();
+			detach(normalized);
+		} finally {
+			lock.writeLock().unlock();
+		}
+		notifyListeners(normalized, ChangeType.DELETED, directory);
+	}
+
+	@Override
+	public Progress deleteRecursively(String directory) throws IOException {
+		String normalized = Storage.normalize(directory);
+		Progress progress = new Progress();
+		lock.writeLock().lock();
+		try {
+			Node node = getDirectory(normalized);
+			count(node, normalized, progress);
+			detach(normalized);
+		} finally {
+			lock.writeLock().unlock();
+		}
+		notifyListeners(normalized, ChangeType.DELETED, true);
+		return progress;
+	}
+
+	@Override
+	public Progress copy(String source, String target) throws IOException {
+		String normalizedTarget = Storage.normalize(target);
+		Progress progress = new Progress();
+		boolean directory;
+		lock.writeLock().lock();
+		try {
+			Node node = find(Storage.normalize(source));
+			if(node == null) {
+				throw new NoSuchFileException(source);
+			}
+			directory = node.isDirectory();
+			count(node, normalizedTarget, progress);
+			attach(normalizedTarget, node.deepCopy());
+		} finally {
+			lock.writeLock().unlock();
+		}
+		notifyListeners(normalizedTarget, ChangeType.CREATED, directory);
+		return progress;
+	}
+
+	@Override
+	public Progress move(String source, String target) throws IOException {
+		String normalizedSource = Storage.normalize(source);
+		String normalizedTarget = Storage.normalize(target);
+		if(normalizedSource.isEmpty() || (normalizedTarget + "/").startsWith(normalizedSource + "/")) {
+			throw new IOException("unable to move [" + source + "] to [" + target + "]");
+		}
+
+		Progress progress = new Progress();
+		boolean directory;
+		lock.writeLock().lock();
+		try {
+			Node node = find(normalizedSource);
+			if(node == null) {
+				throw new NoSuchFileException(source);
+			}
+			directory = node.isDirectory();
+			attach(normalizedTarget, node);
+			detach(normalizedSource);
+			if(directory) {
+				progress.addDirectory();
+			} else {
+				progress.addFile(normalizedTarget, node.content.length);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+		notifyListeners(normalizedSource, ChangeType.DELETED, directory);
+		notifyListeners(normalizedTarget, ChangeType.CREATED, directory);
+		return progress;
+	}
+
+	/** Must be called while holding the write lock */
+	private void attach(String path, Node node) throws IOException {
+		if(path.isEmpty() || find(path) != null) {
+			throw new FileAlreadyExistsException(path);
+		}
+		getDirectory(Storage.getParent(path)).children.put(getName(path), node);
+	}
+
+	/** Must be called while holding the write lock */
+	private void detach(String path) throws IOException {
+		if(path.isEmpty()) {
+			throw new IOException("unable to remove the root directory");
+		}
+		getDirectory(Storage.getParent(path)).children.remove(getName(path));
+	}
+
+	private static void count(Node node, String path, Progress progress) {
+		if(node.isDirectory()) {
+			progress.addDirectory();
+			node.children.forEach((name, child) -> count(child, path + "/" + name, progress));
+		} else {
+			progress.addFile(path, node.content.length);
+		}
+	}
+
+	@Override
+	public Closeable watch(Listener listener) {
+		listeners.add(listener);
+		return () -> listeners.remove(listener);
+	}
+
+	private void notifyListeners(String path, ChangeType changeType, boolean directory) {
+		for(Listener listener : listeners) {
+			listener.onChange(path, changeType, directory);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "InMemoryStorage";
+	}
+
+	/**
+	 * Read-only channel of an (immutable) byte array.
+	 */
+	private static class ByteArrayChannel implements SeekableByteChannel {
+		private final byte[] content;
+		private int position = 0;
+		private boolean open = true;
+
+		ByteArrayChannel(byte[] content) {
+			this.content = content;
+		}
+
+		@Override
+		public int read(ByteBuffer dst) throws IOException {
+			ensureOpen();
+			if(position >= content.length) {
+				return -1;
+			}
+			int length = Math.min(dst.remaining(), content.length - position);
+			dst.put(content, position, length);
+			position += length;
+			return length;
+		}
+
+		@Override
+		public int write(ByteBuffer src) {
+			throw new NonWritableChannelException();
+		}
+
+		@Override
+		public long position() throws IOException {
+			ensureOpen();
+			return position;
+		}
+
+		@Override
+		public SeekableByteChannel position(long newPosition) throws IOException {
+			ensureOpen();
+			if(newPosition < 0) {
+				throw new IllegalArgumentException("negative position [" + newPosition + "]");
+			}
+			position = (int) Math.min(newPosition, content.length);
+			return this;
+		}
+
+		@Override
+		public long size() throws IOException {
+			ensureOpen();
+			return content.length;
+		}
+
+		@Override
+		public SeekableByteChannel truncate(long size) {
+			throw new NonWritableChannelException();
+		}
+
+		@Override
+		public boolean isOpen() {
+			return open;
+		}
+
+		@Override
+		public void close() {
+			open = false;
+		}
+
+		private void ensureOpen() throws ClosedChannelException {
+			if(!open) {
+				throw new ClosedChannelException();
+			}
+		}
+	}
+}
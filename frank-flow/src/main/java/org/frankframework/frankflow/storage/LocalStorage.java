@@ -0,0 +1,235 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.storage;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.frankframework.frankflow.event.FileChangedEvent.ChangeType;
+import org.frankframework.frankflow.util.FileTreeUtils;
+import org.frankframework.frankflow.util.FileTreeUtils.Progress;
+import org.frankframework.frankflow.util.FileUtils;
+
+/**
+ * Stores the files in a directory on the local file-system, using NIO.
+ * <p>
+ * Files are always replaced (never overwritten) when written, see {@link FileUtils#replace(Path, Path)}.
+ * Changes are watched with a {@link WatchService} on a background thread, which also detects changes made outside of the Frank!Flow.
+ * </p>
+ */
+public class LocalStorage implements Storage {
+	private static final Logger log = LogManager.getLogger(LocalStorage.class);
+
+	private final Path root;
+
+	public LocalStorage(Path root) {
+		this.root = root.toAbsolutePath().normalize();
+	}
+
+	public Path getRoot() {
+		return root;
+	}
+
+	@Override
+	public Path getLocalRoot() {
+		return root;
+	}
+
+	private Path resolve(String path) {
+		String normalized = Storage.normalize(path);
+		return normalized.isEmpty() ? root : root.resolve(normalized);
+	}
+
+	@Override
+	public FileStat stat(String path) throws IOException {
+		Path file = resolve(path);
+		try {
+			BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+			return new FileStat(attributes.isDirectory(), attributes.isDirectory() ? 0 : attributes.size(), attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS));
+		} catch (NoSuchFileException e) {
+			return null;
+		}
+	}
+
+	@Override
+	public InputStream read(String path) throws IOException {
+		return Files.newInputStream(resolve(path));
+	}
+
+	@Override
+	public SeekableByteChannel open(String path) throws IOException {
+		return Files.newByteChannel(resolve(path), StandardOpenOption.READ);
+	}
+
+	@Override
+	public void write(String path, ContentWriter content) throws IOException {
+		Path target = resolve(path);
+		Path temp = Files.createTempFile(target.getParent(), "." + target.getFileName(), ".tmp");
+		try {
+			try (OutputStream out = Files.newOutputStream(temp)) {
+				content.writeTo(out);
+			}
+			synchronized (getLock(path)) {
+				FileUtils.replace(temp, target);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	@Override
+	public Object getLock(String path) {
+		return FileUtils.getLock(resolve(path).toFile());
+	}
+
+	@Override
+	public Stream<String> list(String directory) throws IOException {
+		return Files.list(resolve(directory)).map(e -> e.getFileName().toString());
+	}
+
+	@Override
+	public void createDirectory(String path) throws IOException {
+		Path directory = resolve(path);
+		if(Files.exists(directory)) {
+			throw new FileAlreadyExistsException(path);
+		}
+		Files.createDirectories(directory);
+	}
+
+	@Override
+	public void delete(String path) throws IOException {
+		Files.delete(resolve(path));
+	}
+
+	@Override
+	public Progress deleteRecursively(String directory) throws IOException {
+		return FileTreeUtils.delete(resolve(directory));
+	}
+
+	@Override
+	public Progress copy(String source, String target) throws IOException {
+		Path sourcePath = resolve(source);
+		Path targetPath = resolve(target);
+		if(Files.isDirectory(sourcePath)) {
+			return FileTreeUtils.copy(sourcePath, targetPath);
+		}
+		Files.copy(sourcePath, targetPath, StandardCopyOption.COPY_ATTRIBUTES);
+		Progress progress = new Progress();
+		progress.addFile(targetPath, Files.size(targetPath));
+		return progress;
+	}
+
+	@Override
+	public Progress move(String source, String target) throws IOException {
+		Path targetPath = resolve(target);
+		if(Files.exists(targetPath)) {
+			throw new FileAlreadyExistsException(target);
+		}
+		return FileTreeUtils.move(resolve(source), targetPath);
+	}
+
+	@Override
+	public Closeable watch(Listener listener) throws IOException {
+		WatchService watchService = root.getFileSystem().newWatchService();
+		register(watchService, root);
+
+		Thread thread = new Thread(() -> processEvents(watchService, listener), "frank-flow-watch-" + root.getFileName());
+		thread.setDaemon(true);
+		thread.start();
+		return watchService;
+	}
+
+	private void register(WatchService watchService, Path directory) throws IOException {
+		Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+				dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	private void processEvents(WatchService watchService, Listener listener) {
+		try {
+			while(true) {
+				WatchKey key = watchService.take();
+				Path directory = (Path) key.watchable();
+				for(WatchEvent<?> event : key.pollEvents()) {
+					if(event.kind() == StandardWatchEventKinds.OVERFLOW) {
+						listener.onChange(toRelativePath(directory), ChangeType.MODIFIED, true); // Events have been lost
+						continue;
+					}
+
+					Path file = directory.resolve((Path) event.context());
+					String name = file.getFileName().toString();
+					if(name.startsWith(".") && name.endsWith(".tmp")) {
+						continue; // Temporary files of our own writes
+					}
+
+					if(event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+						boolean isDirectory = Files.isDirectory(file);
+						if(isDirectory) {
+							register(watchService, file);
+						}
+						listener.onChange(toRelativePath(file), ChangeType.CREATED, isDirectory);
+					} else if(event.kind() == StandardWatchEventKinds.ENTRY_MODIFY) {
+						listener.onChange(toRelativePath(file), ChangeType.MODIFIED, Files.isDirectory(file));
+					} else {
+						listener.onChange(toRelativePath(file), ChangeType.DELETED, true); // Unknown whether it was a directory, so evict its children as well
+					}
+				}
+				key.reset();
+			}
+		} catch (ClosedWatchServiceException e) {
+			log.debug("stopped watching [{}]", root);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException | RuntimeException e) {
+			log.warn("unable to watch [{}], changes are no longer detected", root, e);
+		}
+	}
+
+	private String toRelativePath(Path file) {
+		return root.relativize(file).toString().replace(File.separatorChar, '/');
+	}
+
+	@Override
+	public String toString() {
+		return "LocalStorage [" + root + "]";
+	}
+}
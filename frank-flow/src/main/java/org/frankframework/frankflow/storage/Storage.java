@@ -0,0 +1,170 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.FilenameUtils;
+import org.frankframework.frankflow.event.FileChangedEvent.ChangeType;
+import org.frankframework.frankflow.util.FileTreeUtils.Progress;
+import org.frankframework.frankflow.util.FileUtils;
+
+/**
+ * The files of a single configuration.
+ * <p>
+ * Paths are relative to the root of the configuration and use <code>/</code> as separator, the empty path is the root itself.
+ * Paths that point outside of the root are rejected with an {@link IllegalArgumentException}, see {@link #normalize(String)}.
+ * Missing files result in a {@link NoSuchFileException}, like the NIO {@link java.nio.file.Files Files} methods.
+ * </p>
+ */
+public interface Storage {
+
+	record FileStat(boolean directory, long size, long lastModified) {
+
+		/**
+		 * ETag based on the last modified time (in nanoseconds when supported) and size of the file.
+		 */
+		public String getETag() {
+			return "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(size) + "\"";
+		}
+
+		/**
+		 * The {@link #getETag() ETag} as weak validator, for responses that may be compressed. Tomcat doesn't compress
+		 * responses with a strong ETag, as the compressed body is a different representation.
+		 */
+		public String getWeakETag() {
+			return "W/" + getETag();
+		}
+	}
+
+	@FunctionalInterface
+	interface ContentWriter {
+		void writeTo(OutputStream out) throws IOException;
+	}
+
+	@FunctionalInterface
+	interface Listener {
+		void onChange(String path, ChangeType changeType, boolean directory);
+	}
+
+	/**
+	 * @return <code>null</code> when the path does not exist.
+	 */
+	FileStat stat(String path) throws IOException;
+
+	InputStream read(String path) throws IOException;
+
+	/**
+	 * Opens the file for random access reads.
+	 */
+	SeekableByteChannel open(String path) throws IOException;
+
+	/**
+	 * Creates or replaces the file, the parent directory must exist. The content is written to a temporary location first,
+	 * the file is never partially written. When the writer fails the original file remains untouched.
+	 */
+	void write(String path, ContentWriter content) throws IOException;
+
+	default void write(String path, InputStream content) throws IOException {
+		write(path, out -> content.transferTo(out));
+	}
+
+	/**
+	 * Returns the (monitor) object that should be held while reading-and-writing the file, to prevent lost updates.
+	 */
+	Object getLock(String path);
+
+	/**
+	 * The names of the direct children of the directory, in no particular order. The stream must be closed.
+	 */
+	Stream<String> list(String directory) throws IOException;
+
+	/**
+	 * Creates the directory, including all non-existing parent directories.
+	 * @throws FileAlreadyExistsException when the path already exists.
+	 */
+	void createDirectory(String path) throws IOException;
+
+	/**
+	 * Deletes a file or an empty directory.
+	 * @throws DirectoryNotEmptyException when the directory is not empty.
+	 */
+	void delete(String path) throws IOException;
+
+	/**
+	 * Deletes the directory and all of its contents.
+	 */
+	Progress deleteRecursively(String directory) throws IOException;
+
+	/**
+	 * Copies the file or directory tree to the (non-existing) target.
+	 */
+	Progress copy(String source, String target) throws IOException;
+
+	/**
+	 * Moves (renames) the file or directory tree to the (non-existing) target.
+	 */
+	Progress move(String source, String target) throws IOException;
+
+	/**
+	 * Notifies the listener of all changes, including changes that have not been made through this storage when the
+	 * implementation is able to detect them. Closing the returned {@link Closeable} stops watching.
+	 */
+	Closeable watch(Listener listener) throws IOException;
+
+	/**
+	 * For features that need the files on the local file-system, such as XSD validation which resolves schema locations itself.
+	 * @return the directory of the files, or <code>null</code> when they are not stored on the local file-system.
+	 */
+	default Path getLocalRoot() {
+		return null;
+	}
+
+	/**
+	 * Normalizes the path relative to the root of the storage, resolving <code>.</code> and <code>..</code> segments.
+	 * @throws IllegalArgumentException when the path points outside of the root.
+	 */
+	static String normalize(String path) {
+		if(path == null) {
+			throw new IllegalArgumentException("no path specified");
+		}
+		String normalized = FilenameUtils.normalizeNoEndSeparator(FileUtils.normalizeRelativePath(path), true);
+		if(normalized == null || FilenameUtils.getPrefixLength(normalized) != 0) {
+			throw new IllegalArgumentException("inaccessible path [" + path + "]");
+		}
+		return normalized;
+	}
+
+	/**
+	 * @return the parent of the (normalized) path, or <code>null</code> for the root.
+	 */
+	static String getParent(String path) {
+		if(path.isEmpty()) {
+			return null;
+		}
+		int separator = path.lastIndexOf('/');
+		return separator == -1 ? "" : path.substring(0, separator);
+	}
+}
@@ -0,0 +1,149 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.frankframework.frankflow.dto.ConfigurationDTO;
+import org.frankframework.frankflow.event.FileChangedEvent;
+import org.frankframework.frankflow.util.FileUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Provides the {@link Storage} of each configuration, as configured by <code>frank-flow.storage.type</code>:
+ * <ul>
+ * <li><code>local</code> the configuration directory on the local file-system</li>
+ * <li><code>memory</code> an in-memory copy of the configuration directory, changes are never written to disk</li>
+ * <li><code>git</code> the configuration directory, as work tree of a local git repository to which all changes are committed.
+ * A new repository is created when the directory is not part of one. Configurations in the same repository share a single
+ * {@link GitRepository}, so their changes end up in the same (batched) commits.</li>
+ * </ul>
+ * When <code>frank-flow.storage.watch</code> is enabled, changes that are detected by the storage (eg. made by other
+ * applications) are published as {@link FileChangedEvent FileChangedEvents}, so caches are evicted straight away.
+ */
+@Component
+public class StorageService implements DisposableBean {
+	private static final Logger log = LogManager.getLogger(StorageService.class);
+
+	private final Map<String, Storage> storages = new ConcurrentHashMap<>();
+	private final List<Closeable> watchers = new ArrayList<>();
+	private final Map<Path, GitRepository> repositories = new HashMap<>();
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@Value("${frank-flow.storage.type:local}")
+	private String type;
+
+	@Value("${frank-flow.storage.watch:false}")
+	private boolean watch;
+
+	@Value("${frank-flow.storage.git.commit-interval:30}")
+	private int commitInterval;
+
+	@Value("${frank-flow.storage.git.batch-size:50}")
+	private int batchSize;
+
+	@Value("${frank-flow.storage.git.author-name:Frank!Flow}")
+	private String authorName;
+
+	@Value("${frank-flow.storage.git.author-email:frank-flow@localhost}")
+	private String authorEmail;
+
+	public Storage getStorage(ConfigurationDTO configuration) {
+		return storages.computeIfAbsent(configuration.getName(), name -> {
+			try {
+				return createStorage(configuration);
+			} catch (IOException e) {
+				throw new UncheckedIOException("unable to open storage of configuration [" + name + "]", e);
+			}
+		});
+	}
+
+	/**
+	 * The storages that have been opened so far, by configuration name.
+	 */
+	public Map<String, Storage> getStorages() {
+		return Map.copyOf(storages);
+	}
+
+	private Storage createStorage(ConfigurationDTO configuration) throws IOException {
+		LocalStorage local = new LocalStorage(FileUtils.getConfigurationRoot(configuration).toPath());
+		Storage storage = switch (type) {
+			case "local" -> local;
+			case "memory" -> InMemoryStorage.copyOf(local.getRoot());
+			case "git" -> new GitStorage(local, getGitRepository(local.getRoot()));
+			default -> throw new IllegalStateException("unknown storage type [" + type + "]");
+		};
+		log.info("using storage [{}] for configuration [{}]", storage, configuration.getName());
+
+		if(watch) {
+			String name = configuration.getName();
+			Closeable watcher = storage.watch((path, changeType, directory) -> eventPublisher.publishEvent(new FileChangedEvent(this, name, path, changeType, directory)));
+			synchronized (watchers) {
+				watchers.add(watcher);
+			}
+		}
+		return storage;
+	}
+
+	private GitRepository getGitRepository(Path directory) throws IOException {
+		Path workTree = GitRepository.findWorkTree(directory);
+		synchronized (repositories) {
+			GitRepository repository = repositories.get(workTree);
+			if(repository == null) {
+				PersonIdent author = new PersonIdent(authorName, authorEmail);
+				repository = GitRepository.open(workTree, Duration.ofSeconds(commitInterval), batchSize, author);
+				repositories.put(workTree, repository);
+			}
+			return repository;
+		}
+	}
+
+	@Override
+	public void destroy() {
+		synchronized (watchers) {
+			for(Closeable watcher : watchers) {
+				try {
+					watcher.close();
+				} catch (IOException e) {
+					log.debug("unable to stop watching", e);
+				}
+			}
+			watchers.clear();
+		}
+		synchronized (repositories) {
+			repositories.values().forEach(GitRepository::close); // Commits the pending changes
+			repositories.clear();
+		}
+	}
+}
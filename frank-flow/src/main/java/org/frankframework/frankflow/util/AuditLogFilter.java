@@ -0,0 +1,129 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.util;
+
+import java.io.IOException;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.StringMapMessage;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Writes a structured access/audit record for every API request to the <code>AUDIT</code> logger.
+ * <p>
+ * Mutations are logged on <code>INFO</code>, reads on <code>DEBUG</code>. The record is created once the response
+ * has been completed (also after an async dispatch), the actual writing is done by the (async) appender
+ * configured in the <code>log4j2.xml</code> so the request thread never waits for the disk.
+ * </p>
+ */
+public class AuditLogFilter extends OncePerRequestFilter {
+	public static final String LOGGER_NAME = "AUDIT";
+	private static final Logger AUDIT_LOG = LogManager.getLogger(LOGGER_NAME);
+	private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+	private static final String CONFIGURATIONS_PREFIX = "/configurations/";
+	private static final String START_ATTRIBUTE = AuditLogFilter.class.getName() + ".start";
+
+	@Override
+	protected boolean shouldNotFilterAsyncDispatch() {
+		return false; // Streaming responses are only complete after the async dispatch
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+		Level level = READ_METHODS.contains(request.getMethod()) ? Level.DEBUG : Level.INFO;
+		if(!AUDIT_LOG.isEnabled(level)) {
+			filterChain.doFilter(request, response);
+			return;
+		}
+
+		if(!isAsyncDispatch(request)) {
+			request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+		}
+
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			if(!isAsyncStarted(request)) {
+				AUDIT_LOG.log(level, createRecord(request, response));
+			}
+		}
+	}
+
+	/**
+	 * This filter may run outside of the Spring Security filter chain, in which case the SecurityContextHolder has
+	 * already been cleared. Authentication mechanisms store the SecurityContext as request attribute as well.
+	 */
+	private static String getUser(HttpServletRequest request) {
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		if(authentication == null && request.getAttribute(RequestAttributeSecurityContextRepository.DEFAULT_REQUEST_ATTR_NAME) instanceof SecurityContext context) {
+			authentication = context.getAuthentication();
+		}
+		if(authentication != null) {
+			return authentication.getName();
+		}
+		String remoteUser = request.getRemoteUser();
+		return remoteUser != null ? remoteUser : "-";
+	}
+
+	private static StringMapMessage createRecord(HttpServletRequest request, HttpServletResponse response) {
+		StringMapMessage message = new StringMapMessage(10);
+		message.with("method", request.getMethod());
+		message.with("uri", request.getRequestURI());
+		message.with("status", response.getStatus());
+
+		String configuration = getConfiguration(request.getPathInfo());
+		if(configuration != null) {
+			message.with("configuration", configuration);
+		}
+		String path = request.getParameter("path");
+		if(StringUtils.isNotEmpty(path)) {
+			message.with("path", path);
+		}
+
+		Object start = request.getAttribute(START_ATTRIBUTE);
+		if(start instanceof Long startTime) {
+			message.with("durationMs", (System.nanoTime() - startTime) / 1_000_000);
+		}
+		message.with("user", getUser(request));
+		message.with("remoteAddr", request.getRemoteAddr());
+		return message;
+	}
+
+	/**
+	 * Returns the <code>{name}</code> of <code>/configurations/{name}/...</code> paths.
+	 */
+	static String getConfiguration(String pathInfo) {
+		if(pathInfo == null || !pathInfo.startsWith(CONFIGURATIONS_PREFIX)) {
+			return null;
+		}
+		int end = pathInfo.indexOf('/', CONFIGURATIONS_PREFIX.length());
+		String name = end > 0 ? pathInfo.substring(CONFIGURATIONS_PREFIX.length(), end) : pathInfo.substring(CONFIGURATIONS_PREFIX.length());
+		return name.isEmpty() ? null : name;
+	}
+}
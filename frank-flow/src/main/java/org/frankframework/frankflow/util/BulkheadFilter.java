@@ -0,0 +1,141 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import org.frankframework.frankflow.util.ConcurrencyLimiter.Result;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Rejects API requests when the {@link ConcurrencyLimiter} has no permits left, with <code>429 Too Many Requests</code> when the
+ * configuration is busy, or <code>503 Service Unavailable</code> when the server is. Both responses have a <code>Retry-After</code> header.
+ * <p>
+ * Request bodies with a <code>Content-Length</code> larger than the max request size are rejected before they are read.
+ * Bodies without a (reliable) length, such as chunked or decoded bodies, are rejected once more bytes have been read than allowed.
+ * Multipart requests are limited by the container as well, see the <code>MultipartConfigElement</code> of the DispatcherServlet.
+ * </p>
+ */
+public class BulkheadFilter extends OncePerRequestFilter {
+	private static final String PERMIT_ATTRIBUTE = BulkheadFilter.class.getName() + ".permit";
+
+	private final ConcurrencyLimiter limiter;
+	private final long maxRequestSize;
+
+	/**
+	 * @param maxRequestSize in bytes, <code>-1</code> for unlimited.
+	 */
+	public BulkheadFilter(ConcurrencyLimiter limiter, long maxRequestSize) {
+		this.limiter = limiter;
+		this.maxRequestSize = maxRequestSize;
+	}
+
+	@Override
+	protected boolean shouldNotFilterAsyncDispatch() {
+		return false; // The permit is held until the streaming response has been completed
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+		if(!isAsyncDispatch(request)) {
+			if(maxRequestSize >= 0 && request.getContentLengthLong() > maxRequestSize) {
+				limiter.requestTooLarge();
+				reject(response, HttpStatus.PAYLOAD_TOO_LARGE, "request body exceeds the maximum size of [" + maxRequestSize + "] bytes", false);
+				return;
+			}
+
+			String configuration = AuditLogFilter.getConfiguration(request.getPathInfo());
+			Result result = limiter.tryAcquire(configuration);
+			if(result == Result.CONFIGURATION_LIMIT) {
+				reject(response, HttpStatus.TOO_MANY_REQUESTS, "too many concurrent requests for this configuration", true);
+				return;
+			} else if(result == Result.SERVER_LIMIT) {
+				reject(response, HttpStatus.SERVICE_UNAVAILABLE, "too many concurrent requests", true);
+				return;
+			}
+			request.setAttribute(PERMIT_ATTRIBUTE, configuration != null ? configuration : "");
+		}
+
+		try {
+			filterChain.doFilter(maxRequestSize >= 0 ? new LimitedRequestWrapper(request, maxRequestSize) : request, response);
+		} finally {
+			if(!isAsyncStarted(request)) {
+				Object permit = request.getAttribute(PERMIT_ATTRIBUTE);
+				if(permit instanceof String configuration) {
+					request.removeAttribute(PERMIT_ATTRIBUTE);
+					limiter.release(configuration.isEmpty() ? null : configuration);
+				}
+				if(response.getStatus() == HttpStatus.PAYLOAD_TOO_LARGE.value()) { // Eg. a multipart request that exceeded the limits
+					limiter.requestTooLarge();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Uses the same format as the ApiException responses.
+	 */
+	private void reject(HttpServletResponse response, HttpStatus status, String message, boolean retry) throws IOException {
+		response.setStatus(status.value());
+		if(retry) {
+			response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(limiter.getRetryAfter()));
+		}
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		response.getWriter().write("{\"status\":\"" + status.getReasonPhrase() + "\",\"error\":\"" + message + "\"}");
+	}
+
+	private static class LimitedRequestWrapper extends HttpServletRequestWrapper {
+		private final long maxRequestSize;
+		private ServletInputStream inputStream;
+		private BufferedReader reader;
+
+		public LimitedRequestWrapper(HttpServletRequest request, long maxRequestSize) {
+			super(request);
+			this.maxRequestSize = maxRequestSize;
+		}
+
+		@Override
+		public ServletInputStream getInputStream() throws IOException {
+			if(inputStream == null) {
+				inputStream = new LimitedInputStream(super.getInputStream(), maxRequestSize);
+			}
+			return inputStream;
+		}
+
+		@Override
+		public BufferedReader getReader() throws IOException {
+			if(reader == null) {
+				Charset charset = getCharacterEncoding() != null ? Charset.forName(getCharacterEncoding()) : StandardCharsets.ISO_8859_1;
+				reader = new BufferedReader(new InputStreamReader(getInputStream(), charset));
+			}
+			return reader;
+		}
+	}
+}
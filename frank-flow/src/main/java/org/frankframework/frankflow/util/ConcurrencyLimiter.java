@@ -0,0 +1,126 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bulkheads for the API: limits the number of concurrent requests per configuration, and in total.
+ * <p>
+ * Permits are never waited for, when a limit has been reached the request is rejected straight away so the client can back off.
+ * Counters only exist while a configuration has requests in flight, a limit of <code>0</code> disables that limit.
+ * </p>
+ */
+@Component
+public class ConcurrencyLimiter implements StatisticsProvider {
+
+	public enum Result {
+		ACQUIRED,
+		/** The configuration has too many requests in flight */
+		CONFIGURATION_LIMIT,
+		/** The server has too many requests in flight */
+		SERVER_LIMIT
+	}
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final Map<String, Integer> inFlightPerConfiguration = new ConcurrentHashMap<>();
+	private final LongAdder rejectedConfiguration = new LongAdder();
+	private final LongAdder rejectedServer = new LongAdder();
+	private final LongAdder rejectedTooLarge = new LongAdder();
+
+	@Value("${frank-flow.bulkhead.max-requests:128}")
+	private int maxRequests;
+
+	@Value("${frank-flow.bulkhead.max-requests-per-configuration:32}")
+	private int maxRequestsPerConfiguration;
+
+	@Value("${frank-flow.bulkhead.retry-after:1}")
+	private int retryAfter;
+
+	/**
+	 * @param configuration may be <code>null</code> for requests that don't target a specific configuration.
+	 */
+	public Result tryAcquire(String configuration) {
+		if(inFlight.incrementAndGet() > maxRequests && maxRequests > 0) {
+			inFlight.decrementAndGet();
+			rejectedServer.increment();
+			return Result.SERVER_LIMIT;
+		}
+		if(configuration == null || maxRequestsPerConfiguration <= 0) {
+			return Result.ACQUIRED;
+		}
+
+		boolean[] acquired = new boolean[1];
+		inFlightPerConfiguration.compute(configuration, (name, count) -> {
+			int current = count == null ? 0 : count;
+			acquired[0] = current < maxRequestsPerConfiguration;
+			return acquired[0] ? current + 1 : count;
+		});
+		if(!acquired[0]) {
+			inFlight.decrementAndGet();
+			rejectedConfiguration.increment();
+			return Result.CONFIGURATION_LIMIT;
+		}
+		return Result.ACQUIRED;
+	}
+
+	/**
+	 * Must be called exactly once for every {@link Result#ACQUIRED acquired} permit.
+	 */
+	public void release(String configuration) {
+		if(configuration != null && maxRequestsPerConfiguration > 0) {
+			inFlightPerConfiguration.computeIfPresent(configuration, (name, count) -> count > 1 ? count - 1 : null);
+		}
+		inFlight.decrementAndGet();
+	}
+
+	/**
+	 * Number of seconds clients should wait before retrying a rejected request.
+	 */
+	public int getRetryAfter() {
+		return retryAfter;
+	}
+
+	public void requestTooLarge() {
+		rejectedTooLarge.increment();
+	}
+
+	@Override
+	public String getStatisticsName() {
+		return "bulkheads";
+	}
+
+	@Override
+	public Map<String, Object> getStatistics() {
+		Map<String, Object> statistics = new LinkedHashMap<>();
+		statistics.put("maxRequests", maxRequests);
+		statistics.put("maxRequestsPerConfiguration", maxRequestsPerConfiguration);
+		statistics.put("inFlight", inFlight.get());
+		statistics.put("inFlightPerConfiguration", new TreeMap<>(inFlightPerConfiguration));
+		statistics.put("rejectedConfigurationLimit", rejectedConfiguration.sum());
+		statistics.put("rejectedServerLimit", rejectedServer.sum());
+		statistics.put("rejectedTooLarge", rejectedTooLarge.sum());
+		return statistics;
+	}
+}
@@ -0,0 +1,132 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Decodes (API) request bodies with a <code>gzip</code> or <code>deflate</code> <code>Content-Encoding</code> on the fly, except
+ * multipart requests since the container parses those itself. Responses are compressed by the container.
+ * <p>
+ * The decoded body is limited to the max request size, so a small compressed body cannot expand into an unlimited amount of data.
+ * </p>
+ */
+public class DecompressionFilter extends OncePerRequestFilter {
+	private static final String DEFLATE = "deflate";
+
+	private final long maxRequestSize;
+
+	/**
+	 * @param maxRequestSize max number of decoded bytes, <code>-1</code> for unlimited.
+	 */
+	public DecompressionFilter(long maxRequestSize) {
+		this.maxRequestSize = maxRequestSize;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+		String contentEncoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+		if(StringUtils.isEmpty(contentEncoding) || "identity".equalsIgnoreCase(contentEncoding.trim())) {
+			filterChain.doFilter(request, response);
+			return;
+		}
+
+		if(!isSupportedEncoding(contentEncoding) || isMultipart(request)) {
+			response.sendError(HttpStatus.UNSUPPORTED_MEDIA_TYPE.value(), "Unsupported Content-Encoding [" + contentEncoding + "]");
+			return;
+		}
+		filterChain.doFilter(new DecompressingRequestWrapper(request, contentEncoding.trim().toLowerCase(Locale.ROOT), maxRequestSize), response);
+	}
+
+	private static boolean isSupportedEncoding(String encoding) {
+		String value = encoding.trim();
+		return "gzip".equalsIgnoreCase(value) || "x-gzip".equalsIgnoreCase(value) || DEFLATE.equalsIgnoreCase(value);
+	}
+
+	private static boolean isMultipart(HttpServletRequest request) {
+		String contentType = request.getContentType();
+		return contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith("multipart/");
+	}
+
+	private static class DecompressingRequestWrapper extends HttpServletRequestWrapper {
+		private final String encoding;
+		private final long maxRequestSize;
+		private ServletInputStream inputStream;
+
+		public DecompressingRequestWrapper(HttpServletRequest request, String encoding, long maxRequestSize) {
+			super(request);
+			this.encoding = encoding;
+			this.maxRequestSize = maxRequestSize;
+		}
+
+		@Override
+		public ServletInputStream getInputStream() throws IOException {
+			if(inputStream == null) {
+				ServletInputStream original = super.getInputStream();
+				InputStream decoded = DEFLATE.equals(encoding) ? new InflaterInputStream(original) : new GZIPInputStream(original);
+				inputStream = new LimitedInputStream(original, decoded, maxRequestSize);
+			}
+			return inputStream;
+		}
+
+		// The (compressed) length and encoding no longer apply to the decoded body
+		@Override
+		public int getContentLength() {
+			return -1;
+		}
+
+		@Override
+		public long getContentLengthLong() {
+			return -1;
+		}
+
+		@Override
+		public String getHeader(String name) {
+			return isRemovedHeader(name) ? null : super.getHeader(name);
+		}
+
+		@Override
+		public Enumeration<String> getHeaders(String name) {
+			return isRemovedHeader(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+		}
+
+		@Override
+		public Enumeration<String> getHeaderNames() {
+			return Collections.enumeration(Collections.list(super.getHeaderNames()).stream().filter(name -> !isRemovedHeader(name)).toList());
+		}
+
+		private static boolean isRemovedHeader(String name) {
+			return HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name) || HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name);
+		}
+	}
+}
@@ -0,0 +1,252 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystemException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Recursive delete, copy and move of directory trees. Symbolic links are never followed, the link itself is copied or removed.
+ * Progress is tracked in a {@link Progress} object, which may be inspected while the operation is running.
+ */
+public abstract class FileTreeUtils {
+	private static final Logger log = LogManager.getLogger(FileTreeUtils.class);
+	private static final int LOG_INTERVAL = 1000;
+
+	public static class Progress {
+		private final AtomicLong files = new AtomicLong();
+		private final AtomicLong directories = new AtomicLong();
+		private final AtomicLong bytes = new AtomicLong();
+		private final AtomicLong links = new AtomicLong();
+
+		public long getFiles() {
+			return files.get();
+		}
+
+		public long getDirectories() {
+			return directories.get();
+		}
+
+		public long getBytes() {
+			return bytes.get();
+		}
+
+		/**
+		 * Number of files that share their data with the original file (hard links), instead of being copied.
+		 */
+		public long getLinks() {
+			return links.get();
+		}
+
+		public void addDirectory() {
+			directories.incrementAndGet();
+		}
+
+		/**
+		 * @param file only used for logging.
+		 */
+		public void addFile(Object file, long size) {
+			bytes.addAndGet(size);
+			if(files.incrementAndGet() % LOG_INTERVAL == 0) {
+				log.debug("processed [{}] files ([{}] bytes), currently at [{}]", files, bytes, file);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "files [" + files + "] directories [" + directories + "] bytes [" + bytes + "]";
+		}
+	}
+
+	/**
+	 * Deletes the directory and all of its contents, depth-first.
+	 */
+	public static Progress delete(Path directory) throws IOException {
+		Progress progress = new Progress();
+		Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+				Files.delete(file);
+				progress.addFile(file, attrs.size());
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+				if(exc != null) {
+					throw exc;
+				}
+				Files.delete(dir);
+				progress.directories.incrementAndGet();
+				return FileVisitResult.CONTINUE;
+			}
+		});
+		return progress;
+	}
+
+	/**
+	 * Copies the directory tree to the (non-existing) target. Directories are created while walking the tree,
+	 * the files are copied in parallel afterwards.
+	 */
+	public static Progress copy(Path source, Path target) throws IOException {
+		Progress progress = new Progress();
+		List<Path> files = new ArrayList<>();
+		Files.walkFileTree(source, new SimpleFileVisitor<>() {
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+				Files.copy(dir, target.resolve(source.relativize(dir)), StandardCopyOption.COPY_ATTRIBUTES);
+				progress.directories.incrementAndGet();
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+				files.add(file);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+
+		try {
+			files.parallelStream().forEach(file -> {
+				try {
+					Path copy = target.resolve(source.relativize(file));
+					Files.copy(file, copy, StandardCopyOption.COPY_ATTRIBUTES, LinkOption.NOFOLLOW_LINKS);
+					progress.addFile(file, Files.readAttributes(copy, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS).size());
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		return progress;
+	}
+
+	/**
+	 * Moves the directory tree, with a single (atomic) rename when possible. When the target is on another
+	 * file-system, the tree is copied and the source is deleted afterwards.
+	 */
+	public static Progress move(Path source, Path target) throws IOException {
+		try {
+			Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+			Progress progress = new Progress();
+			progress.directories.incrementAndGet();
+			return progress;
+		} catch (AtomicMoveNotSupportedException e) {
+			log.debug("unable to rename [{}] to [{}], copying the tree instead", source, target, e);
+		}
+
+		Progress progress = copy(source, target);
+		delete(source);
+		return progress;
+	}
+
+	/**
+	 * Clones the directory tree by creating reflinks (copy-on-write clones of the file data) with <code>cp --reflink=always</code>.
+	 * Only file-systems such as Btrfs, XFS and APFS support this.
+	 * @return <code>false</code> when reflinks are not supported, the target will not exist.
+	 */
+	public static boolean reflink(Path source, Path target) throws IOException {
+		if(!System.getProperty("os.name", "").toLowerCase().contains("linux")) {
+			return false;
+		}
+
+		// The output is discarded, reading it would block until cp exits and defeat the timeout
+		Process process = new ProcessBuilder("cp", "-R", "--preserve=mode,timestamps", "--reflink=always", "--", source.toString(), target.toString())
+				.redirectErrorStream(true)
+				.redirectOutput(ProcessBuilder.Redirect.DISCARD)
+				.start();
+		try {
+			if(!process.waitFor(10, TimeUnit.MINUTES)) {
+				process.destroyForcibly().waitFor();
+				deleteIfExists(target);
+				throw new IOException("timed out while cloning [" + source + "]");
+			}
+			if(process.exitValue() == 0) {
+				return true;
+			}
+			log.debug("unable to reflink [{}] to [{}], cp exited with [{}]", source, target, process.exitValue());
+		} catch (InterruptedException e) {
+			process.destroyForcibly();
+			Thread.currentThread().interrupt();
+			throw new IOException("interrupted while cloning [" + source + "]", e);
+		}
+
+		deleteIfExists(target);
+		return false;
+	}
+
+	private static void deleteIfExists(Path target) throws IOException {
+		if(Files.exists(target, LinkOption.NOFOLLOW_LINKS)) {
+			delete(target);
+		}
+	}
+
+	/**
+	 * Clones the directory tree by creating hard links to all files. Files that can't be linked (eg. when the
+	 * file-system doesn't support it) are copied instead.
+	 * <p>
+	 * Linked files share their data with the original, they must be replaced rather than overwritten when
+	 * modified, see {@link FileUtils#replace(Path, Path)}.
+	 * </p>
+	 */
+	public static Progress link(Path source, Path target) throws IOException {
+		Progress progress = new Progress();
+		Files.walkFileTree(source, new SimpleFileVisitor<>() {
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+				Files.copy(dir, target.resolve(source.relativize(dir)), StandardCopyOption.COPY_ATTRIBUTES);
+				progress.directories.incrementAndGet();
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+				Path link = target.resolve(source.relativize(file));
+				if(attrs.isRegularFile()) {
+					try {
+						Files.createLink(link, file);
+						progress.links.incrementAndGet();
+						progress.addFile(file, attrs.size());
+						return FileVisitResult.CONTINUE;
+					} catch (UnsupportedOperationException | FileSystemException e) {
+						log.trace("unable to link [{}], copying it instead", file, e);
+					}
+				}
+				Files.copy(file, link, StandardCopyOption.COPY_ATTRIBUTES, LinkOption.NOFOLLOW_LINKS);
+				progress.addFile(file, attrs.size());
+				return FileVisitResult.CONTINUE;
+			}
+		});
+		return progress;
+	}
+}
@@ -16,10 +16,24 @@
 package org.frankframework.frankflow.util;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
 
+import org.apache.commons.lang3.StringUtils;
 import org.frankframework.frankflow.dto.ConfigurationDTO;
 
 public abstract class FileUtils {
+	private static final Object[] FILE_LOCKS = new Object[64];
+
+	static {
+		for(int i = 0; i < FILE_LOCKS.length; i++) {
+			FILE_LOCKS[i] = new Object();
+		}
+	}
 
 	public static File getConfigurationRoot(ConfigurationDTO config) {
 		return getDir(config.getDirectory());
@@ -39,10 +53,45 @@ public abstract class FileUtils {
 		return dir;
 	}
 
-	public static boolean createDir(File file) {
-		if(!file.exists()) {
-			return file.mkdirs();
+	/**
+	 * Normalizes a path relative to the configuration root, so it can be used as (cache) key.
+	 */
+	public static String normalizeRelativePath(String path) {
+		return StringUtils.removeStart(path.replace('\\', '/'), "/");
+	}
+
+	/**
+	 * Returns the (striped) monitor that should be held while reading-and-writing the file, to prevent lost updates.
+	 */
+	public static Object getLock(File file) {
+		int hash = file.getAbsolutePath().hashCode();
+		return FILE_LOCKS[Math.floorMod(hash, FILE_LOCKS.length)];
+	}
+
+	/**
+	 * Replaces the target with the source file, atomically when the file-system supports it.
+	 * Since the target is replaced (and not overwritten), hard links to the original file remain untouched.
+	 */
+	public static void replace(Path source, Path target) throws IOException {
+		copyPermissions(target, source);
+		try {
+			Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Temporary files are only accessible by the owner, retain the permissions of the original file.
+	 */
+	private static void copyPermissions(Path source, Path target) throws IOException {
+		if(!Files.exists(source)) {
+			return;
+		}
+		PosixFileAttributeView sourceView = Files.getFileAttributeView(source, PosixFileAttributeView.class);
+		PosixFileAttributeView targetView = Files.getFileAttributeView(target, PosixFileAttributeView.class);
+		if(sourceView != null && targetView != null) {
+			targetView.setPermissions(sourceView.readAttributes().permissions());
 		}
-		return false;
 	}
 }
@@ -0,0 +1,103 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+/**
+ * Counts the bytes that are actually read from a request body, the <code>Content-Length</code> header is absent for chunked
+ * requests and no longer applies once a compressed body has been decoded. Reading beyond the max request size throws a
+ * {@link MaxUploadSizeExceededException}, which is returned as <code>413 Payload Too Large</code>.
+ */
+public class LimitedInputStream extends ServletInputStream {
+	private final ServletInputStream original;
+	private final InputStream delegate;
+	private final long maxSize;
+	private long count = 0;
+	private boolean finished = false;
+
+	/**
+	 * @param original the container's stream, used for the non-blocking IO callbacks.
+	 * @param delegate the stream to read from, may be the original or a stream that decodes it.
+	 * @param maxSize in bytes, <code>-1</code> for unlimited.
+	 */
+	public LimitedInputStream(ServletInputStream original, InputStream delegate, long maxSize) {
+		this.original = original;
+		this.delegate = delegate;
+		this.maxSize = maxSize;
+	}
+
+	public LimitedInputStream(ServletInputStream original, long maxSize) {
+		this(original, original, maxSize);
+	}
+
+	@Override
+	public int read() throws IOException {
+		int read = delegate.read();
+		finished = read == -1;
+		if(!finished) {
+			count(1);
+		}
+		return read;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		int read = delegate.read(b, off, len);
+		finished = read == -1;
+		if(read > 0) {
+			count(read);
+		}
+		return read;
+	}
+
+	private void count(int read) {
+		count += read;
+		if(maxSize >= 0 && count > maxSize) {
+			throw new MaxUploadSizeExceededException(maxSize);
+		}
+	}
+
+	@Override
+	public int available() throws IOException {
+		return delegate.available();
+	}
+
+	@Override
+	public boolean isFinished() {
+		return finished;
+	}
+
+	@Override
+	public boolean isReady() {
+		return original.isReady();
+	}
+
+	@Override
+	public void setReadListener(ReadListener readListener) {
+		original.setReadListener(readListener);
+	}
+
+	@Override
+	public void close() throws IOException {
+		delegate.close();
+	}
+}
@@ -57,19 +57,19 @@ public abstract class MimeTypeUtil {
 			extension = extension.substring(0, p); //Remove all parameters
 		}
 
-		log.debug("determined extension [{}] from path [{}]", extension, path);
+		log.trace("determined extension [{}] from path [{}]", extension, path);
 		return findMediaType(extension);
 	}
 
 	public static MediaType findMediaType(String extension) throws IOException {
-		log.debug("trying to find MimeType for extension [{}]", extension);
+		log.trace("trying to find MimeType for extension [{}]", extension);
 
 		MediaType type = getMimeTypeMap().get(extension);
 		if(type == null) {
 			log.warn("unable to find MimeType for extension [{}] using default [application/octet-stream]", extension);
 			type = MediaType.APPLICATION_OCTET_STREAM;
 		} else {
-			log.debug("determined MimeType [{}] for extension [{}]", type, extension);
+			log.trace("determined MimeType [{}] for extension [{}]", type, extension);
 		}
 		return type;
 	}
@@ -0,0 +1,267 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Deduplicates identical concurrent reads: while a value is being loaded for a key, other requests for the same key wait
+ * for (and share) that result instead of loading it again. Nothing is retained once the load has finished, keys should
+ * include the version of what is being read when the result must not be older than the request.
+ * <p>
+ * Streamed responses are written directly to the first caller's output. While that's in progress the written bytes are
+ * kept, so identical requests that arrive in the meantime replay them (and wait for the rest) instead of writing their own.
+ * At most {@value #MAX_SHARED_SIZE} bytes are kept while nobody has joined, larger responses are no longer shared after that.
+ * </p>
+ */
+@Component
+public class RequestCoalescer implements StatisticsProvider {
+	private static final int MAX_SHARED_SIZE = 4 * 1024 * 1024;
+
+	private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+	private final Map<String, SharedStream> inFlightStreams = new ConcurrentHashMap<>();
+	private final LongAdder loads = new LongAdder();
+	private final LongAdder coalesced = new LongAdder();
+
+	@FunctionalInterface
+	public interface Loader<V> {
+		V load() throws IOException;
+	}
+
+	@FunctionalInterface
+	public interface StreamWriter {
+		void writeTo(OutputStream out) throws IOException;
+	}
+
+	@SuppressWarnings("unchecked")
+	public <V> V execute(String key, Loader<V> loader) throws IOException {
+		CompletableFuture<Object> future = new CompletableFuture<>();
+		CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+		if(existing != null) {
+			coalesced.increment();
+			return (V) await(existing);
+		}
+
+		loads.increment();
+		try {
+			V value = loader.load();
+			future.complete(value);
+			return value;
+		} catch (IOException | RuntimeException | Error e) {
+			future.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(key, future);
+		}
+	}
+
+	/**
+	 * Writes the response directly to the output, or replays the response of an identical request that's still being written.
+	 */
+	public void stream(String key, OutputStream out, StreamWriter writer) throws IOException {
+		SharedStream stream = new SharedStream();
+		SharedStream existing = inFlightStreams.putIfAbsent(key, stream);
+		if(existing != null) {
+			if(existing.join()) {
+				coalesced.increment();
+				existing.replayTo(out);
+			} else { // Just finished but not removed yet, or too large to be shared
+				loads.increment();
+				writer.writeTo(out);
+			}
+			return;
+		}
+
+		loads.increment();
+		try {
+			writer.writeTo(stream.tee(out));
+			stream.complete(null);
+		} catch (IOException | RuntimeException | Error e) {
+			stream.complete(e);
+			throw e;
+		} finally {
+			inFlightStreams.remove(key, stream);
+		}
+	}
+
+	private static Object await(CompletableFuture<Object> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("interrupted while waiting for a concurrent request", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if(cause instanceof IOException ioException) {
+				throw ioException;
+			} else if(cause instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			} else if(cause instanceof Error error) {
+				throw error;
+			}
+			throw new UncheckedIOException(new IOException(cause));
+		}
+	}
+
+	@Override
+	public String getStatisticsName() {
+		return "requestCoalescing";
+	}
+
+	@Override
+	public Map<String, Object> getStatistics() {
+		Map<String, Object> statistics = new LinkedHashMap<>();
+		statistics.put("inFlight", inFlight.size() + inFlightStreams.size());
+		statistics.put("loads", loads.sum());
+		statistics.put("coalesced", coalesced.sum());
+		return statistics;
+	}
+
+	/**
+	 * The bytes written so far by the first caller. The buffer only grows, the part up to <code>count</code> never changes
+	 * so it can be replayed without holding the monitor. Once the buffer exceeds {@value #MAX_SHARED_SIZE} bytes without
+	 * followers, it's dropped and the stream can no longer be joined.
+	 */
+	private static class SharedStream {
+		private byte[] buffer = new byte[8192];
+		private int count = 0;
+		private int followers = 0;
+		private boolean done = false;
+		private Throwable failure;
+
+		synchronized boolean join() {
+			if(done || buffer == null) {
+				return false;
+			}
+			followers++;
+			return true;
+		}
+
+		synchronized boolean hasFollowers() {
+			return followers > 0;
+		}
+
+		synchronized void append(byte[] b, int off, int len) {
+			if(buffer == null) {
+				return; // Not shared
+			}
+			if(count + len > MAX_SHARED_SIZE && followers == 0) {
+				buffer = null;
+				return;
+			}
+			if(count + len > buffer.length) {
+				buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, count + len));
+			}
+			System.arraycopy(b, off, buffer, count, len);
+			count += len;
+			notifyAll();
+		}
+
+		synchronized void complete(Throwable failure) {
+			this.failure = failure;
+			done = true;
+			notifyAll();
+		}
+
+		void replayTo(OutputStream out) throws IOException {
+			int position = 0;
+			while(true) {
+				byte[] data;
+				int available;
+				synchronized (this) {
+					while(position == count && !done) {
+						try {
+							wait();
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+							throw new IOException("interrupted while waiting for a concurrent request", e);
+						}
+					}
+					if(position == count) {
+						if(failure != null) {
+							throw new IOException("concurrent request failed", failure);
+						}
+						return;
+					}
+					data = buffer;
+					available = count;
+				}
+				out.write(data, position, available - position);
+				position = available;
+			}
+		}
+
+		/**
+		 * Writes to the output and the buffer. When the first caller disconnects the response is still completed for the followers.
+		 */
+		OutputStream tee(OutputStream out) {
+			return new OutputStream() {
+				private boolean open = true;
+
+				@Override
+				public void write(int b) throws IOException {
+					write(new byte[] { (byte) b }, 0, 1);
+				}
+
+				@Override
+				public void write(byte[] b, int off, int len) throws IOException {
+					append(b, off, len);
+					if(open) {
+						try {
+							out.write(b, off, len);
+						} catch (IOException e) {
+							closed(e);
+						}
+					}
+				}
+
+				@Override
+				public void flush() throws IOException {
+					if(open) {
+						try {
+							out.flush();
+						} catch (IOException e) {
+							closed(e);
+						}
+					}
+				}
+
+				@Override
+				public void close() throws IOException {
+					flush(); // The output is closed by the container
+				}
+
+				private void closed(IOException e) throws IOException {
+					open = false;
+					if(!hasFollowers()) {
+						throw e;
+					}
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,146 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import org.frankframework.frankflow.dto.TextEditDTO;
+import org.frankframework.frankflow.storage.Storage;
+
+/**
+ * Applies range-replace edits to a (UTF-8) text file without loading the file in memory.
+ * The result is streamed into a new version of the file, which then (atomically) replaces the original, see {@link Storage#write(String, Storage.ContentWriter)}.
+ */
+public abstract class TextPatcher {
+	private static final int BUFFER_SIZE = 8192;
+	private static final byte[] UTF8_BOM = { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF };
+
+	/**
+	 * Offsets are character offsets of the UTF-8 decoded file, excluding the byte order mark (which is preserved) like
+	 * browsers do when decoding the file. Files in other encodings (or with invalid UTF-8 sequences) cannot be patched
+	 * since they would be corrupted.
+	 *
+	 * @throws IllegalArgumentException when edits overlap or are out of bounds, the original file remains untouched.
+	 * @throws UnsupportedCharsetException when the XML declaration specifies another encoding than UTF-8.
+	 * @throws java.nio.charset.CharacterCodingException when the file is not valid UTF-8, the original file remains untouched.
+	 */
+	public static void apply(Storage storage, String path, List<TextEditDTO> edits) throws IOException {
+		apply(storage, path, edits, UnaryOperator.identity());
+	}
+
+	/**
+	 * @param output wraps the output stream of the new version, eg. to copy the result while it's being written.
+	 * @see #apply(Storage, String, List)
+	 */
+	public static void apply(Storage storage, String path, List<TextEditDTO> edits, UnaryOperator<OutputStream> output) throws IOException {
+		try (InputStream in = new BufferedInputStream(storage.read(path))) {
+			Charset charset = XmlEncoding.detect(in);
+			if(!StandardCharsets.UTF_8.equals(charset)) {
+				throw new UnsupportedCharsetException(charset.name());
+			}
+			in.mark(UTF8_BOM.length);
+			boolean hasBom = Arrays.equals(in.readNBytes(UTF8_BOM.length), UTF8_BOM);
+			if(!hasBom) {
+				in.reset();
+			}
+
+			CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder().onMalformedInput(CodingErrorAction.REPORT).onUnmappableCharacter(CodingErrorAction.REPORT);
+			Reader reader = new BufferedReader(new InputStreamReader(in, decoder));
+			storage.write(path, target -> {
+				OutputStream out = output.apply(target);
+				if(hasBom) {
+					out.write(UTF8_BOM);
+				}
+				Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+				apply(reader, writer, edits);
+				writer.flush();
+			});
+		}
+	}
+
+	public static void apply(Reader reader, Writer writer, List<TextEditDTO> edits) throws IOException {
+		List<TextEditDTO> sorted = validate(edits);
+		char[] buffer = new char[BUFFER_SIZE];
+		long position = 0;
+
+		for(TextEditDTO edit : sorted) {
+			position += copy(reader, writer, buffer, edit.getOffset() - position);
+			if(position != edit.getOffset()) {
+				throw new IllegalArgumentException("edit " + edit + " starts after the end of the file");
+			}
+			long skipped = reader.skip(edit.getLength());
+			while(skipped < edit.getLength() && reader.read() != -1) { // Reader.skip may skip less characters
+				skipped++;
+			}
+			if(skipped != edit.getLength()) {
+				throw new IllegalArgumentException("edit " + edit + " ends after the end of the file");
+			}
+			position += skipped;
+			if(edit.getText() != null) {
+				writer.write(edit.getText());
+			}
+		}
+		copy(reader, writer, buffer, Long.MAX_VALUE);
+	}
+
+	private static List<TextEditDTO> validate(List<TextEditDTO> edits) {
+		List<TextEditDTO> sorted = new ArrayList<>(edits);
+		sorted.sort(Comparator.comparingLong(TextEditDTO::getOffset));
+		long end = 0;
+		for(TextEditDTO edit : sorted) {
+			if(edit.getOffset() < 0 || edit.getLength() < 0) {
+				throw new IllegalArgumentException("edit " + edit + " has a negative offset or length");
+			}
+			if(edit.getOffset() < end) {
+				throw new IllegalArgumentException("edit " + edit + " overlaps with a previous edit");
+			}
+			end = edit.getOffset() + edit.getLength();
+		}
+		return sorted;
+	}
+
+	private static long copy(Reader reader, Writer writer, char[] buffer, long length) throws IOException {
+		long copied = 0;
+		while(copied < length) {
+			int read = reader.read(buffer, 0, (int) Math.min(buffer.length, length - copied));
+			if(read == -1) {
+				break;
+			}
+			writer.write(buffer, 0, read);
+			copied += read;
+		}
+		return copied;
+	}
+}
@@ -0,0 +1,81 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Determines the encoding of an XML document from its byte order mark or XML declaration, see
+ * <a href="https://www.w3.org/TR/xml/#sec-guessing">Autodetection of Character Encodings</a>.
+ */
+public abstract class XmlEncoding {
+	/** The XML declaration must be at the start of the document, and is (much) shorter than this */
+	private static final int PROLOG_SIZE = 1024;
+	private static final Pattern ENCODING_PATTERN = Pattern.compile("encoding\\s*=\\s*[\"']([A-Za-z][A-Za-z0-9._\\-]*)[\"']");
+
+	/**
+	 * Reads the start of the stream, which must support {@link InputStream#mark(int) mark}, and resets it afterwards.
+	 * @return the charset of the document, UTF-8 when neither a byte order mark nor an encoding declaration is present.
+	 * @throws java.nio.charset.UnsupportedCharsetException when the declared encoding is not supported by the JVM.
+	 */
+	public static Charset detect(InputStream in) throws IOException {
+		in.mark(PROLOG_SIZE);
+		byte[] prolog = in.readNBytes(PROLOG_SIZE);
+		in.reset();
+		return detect(prolog);
+	}
+
+	/**
+	 * @see #detect(InputStream)
+	 */
+	public static Charset detect(byte[] content) {
+		if(startsWith(content, 0xEF, 0xBB, 0xBF)) {
+			return StandardCharsets.UTF_8;
+		}
+		if(startsWith(content, 0xFE, 0xFF) || startsWith(content, 0x00, 0x3C, 0x00, 0x3F)) {
+			return StandardCharsets.UTF_16BE;
+		}
+		if(startsWith(content, 0xFF, 0xFE) || startsWith(content, 0x3C, 0x00, 0x3F, 0x00)) {
+			return StandardCharsets.UTF_16LE;
+		}
+		if(!startsWith(content, '<', '?', 'x', 'm', 'l')) {
+			return StandardCharsets.UTF_8;
+		}
+
+		// Up to the end of the declaration, which only contains ASCII characters
+		String prolog = new String(content, 0, Math.min(content.length, PROLOG_SIZE), StandardCharsets.ISO_8859_1);
+		int end = prolog.indexOf("?>");
+		Matcher matcher = ENCODING_PATTERN.matcher(end > 0 ? prolog.substring(0, end) : prolog);
+		return matcher.find() ? Charset.forName(matcher.group(1)) : StandardCharsets.UTF_8;
+	}
+
+	private static boolean startsWith(byte[] content, int... prefix) {
+		if(content.length < prefix.length) {
+			return false;
+		}
+		for(int i = 0; i < prefix.length; i++) {
+			if((content[i] & 0xFF) != prefix[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,301 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.validation;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.stax.StAXSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.Validator;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.frankframework.frankflow.dto.ValidationErrorDTO;
+import org.frankframework.frankflow.dto.ValidationErrorDTO.Severity;
+import org.frankframework.frankflow.dto.ValidationResultDTO;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+/**
+ * Validates configuration files against their (FrankConfig) XSD.
+ * <p>
+ * The XSD is either configured through <code>frank-flow.validation.xsd</code> or determined per file
+ * by the <code>xsi:noNamespaceSchemaLocation</code> attribute of the root element.
+ * Compiled {@link Schema Schemas} are cached per XSD version (location, last modified and size) and
+ * since {@link Validator Validators} are not thread-safe, they are pooled per XSD version. Older versions of an XSD
+ * are removed from the cache together with their pooled validators.
+ * </p>
+ * <p>
+ * Schema locations must point to a file within the configuration, external DTDs and schemas (eg. through
+ * <code>xs:import</code>) may only be read from the file-system.
+ * </p>
+ */
+@Component
+public class XmlValidationService implements DisposableBean {
+	private static final Logger log = LogManager.getLogger(XmlValidationService.class);
+
+	private final XMLInputFactory inputFactory = createInputFactory();
+	private final Map<SchemaKey, Schema> schemaCache = new ConcurrentHashMap<>();
+	private final Map<SchemaKey, Queue<Validator>> validatorPool = new ConcurrentHashMap<>();
+	private final ForkJoinPool validationPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+	@Value("${frank-flow.validation.xsd:}")
+	private String defaultXsd;
+
+	private record SchemaKey(String location, long lastModified, long size) {}
+
+	private static XMLInputFactory createInputFactory() {
+		XMLInputFactory factory = XMLInputFactory.newFactory();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		return factory;
+	}
+
+	/**
+	 * Validates all files in parallel, the order of the results matches the order of the files.
+	 */
+	public List<ValidationResultDTO> validate(Path rootFolder, List<Path> files) {
+		try {
+			return validationPool.submit(() -> files.parallelStream().map(file -> validate(rootFolder, file)).toList()).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("validation has been interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("unable to validate files", e.getCause());
+		}
+	}
+
+	public ValidationResultDTO validate(Path rootFolder, Path file) {
+		ValidationResultDTO result = new ValidationResultDTO();
+		result.setPath(rootFolder.relativize(file).toString().replace(File.separatorChar, '/'));
+
+		try {
+			Path xsd = findSchemaLocation(file);
+			if(xsd == null) {
+				return result;
+			}
+			result.setSchema(xsd.getFileName().toString());
+			if(StringUtils.isEmpty(defaultXsd) && !isWithin(rootFolder, xsd)) {
+				result.addError(new ValidationErrorDTO(Severity.FATAL, -1, -1, "schema [" + xsd.getFileName() + "] is outside of the configuration"));
+				return result;
+			}
+
+			SchemaKey key = new SchemaKey(xsd.toAbsolutePath().toString(), Files.getLastModifiedTime(xsd).toMillis(), Files.size(xsd));
+			Schema schema;
+			try {
+				schema = getSchema(key, xsd);
+			} catch (SAXException e) {
+				result.addError(new ValidationErrorDTO(Severity.FATAL, -1, -1, "unable to compile schema [" + xsd.getFileName() + "]: " + e.getMessage()));
+				return result;
+			}
+
+			Validator validator = borrowValidator(key, schema);
+			try {
+				validator.setErrorHandler(new CollectingErrorHandler(result));
+				try (InputStream is = Files.newInputStream(file)) {
+					XMLStreamReader reader = inputFactory.createXMLStreamReader(is);
+					try {
+						validator.validate(new StAXSource(reader));
+					} finally {
+						reader.close();
+					}
+				}
+			} finally {
+				returnValidator(key, validator);
+			}
+		} catch (SAXParseException e) {
+			// Already reported by the CollectingErrorHandler
+			log.trace("fatal validation error in file [{}]", file, e);
+		} catch (XMLStreamException e) {
+			addParseError(result, e);
+		} catch (IOException | SAXException e) {
+			// The StAX parse errors are wrapped when they occur during validation
+			XMLStreamException parseError = ExceptionUtils.throwableOfType(e, XMLStreamException.class);
+			if(parseError != null) {
+				addParseError(result, parseError);
+			} else {
+				log.debug("unable to validate file [{}]", file, e);
+				result.addError(new ValidationErrorDTO(Severity.FATAL, -1, -1, e.getMessage()));
+			}
+		}
+		return result;
+	}
+
+	private void addParseError(ValidationResultDTO result, XMLStreamException e) {
+		Location location = e.getLocation();
+		int line = location != null ? location.getLineNumber() : -1;
+		int column = location != null ? location.getColumnNumber() : -1;
+		String message = e.getMessage();
+		if(message != null && message.contains("Message: ")) { // Strip the location prefix, it's already part of the error
+			message = message.substring(message.indexOf("Message: ") + 9);
+		}
+		result.addError(new ValidationErrorDTO(Severity.FATAL, line, column, message));
+	}
+
+	/**
+	 * Uses the configured default XSD, or else reads the root element of the file to find the <code>noNamespaceSchemaLocation</code>.
+	 */
+	private Path findSchemaLocation(Path file) throws IOException, XMLStreamException {
+		if(StringUtils.isNotEmpty(defaultXsd)) {
+			return Path.of(defaultXsd);
+		}
+
+		try (InputStream is = Files.newInputStream(file)) {
+			XMLStreamReader reader = inputFactory.createXMLStreamReader(is);
+			try {
+				while(reader.hasNext()) {
+					if(reader.next() == XMLStreamConstants.START_ELEMENT) {
+						String location = reader.getAttributeValue(XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI, "noNamespaceSchemaLocation");
+						if(StringUtils.isEmpty(location) || !location.endsWith(".xsd")) {
+							return null;
+						}
+						Path xsd = file.resolveSibling(location).normalize();
+						return Files.isRegularFile(xsd) ? xsd : null;
+					}
+				}
+				return null;
+			} finally {
+				reader.close();
+			}
+		}
+	}
+
+	/**
+	 * Symbolic links are resolved, so they cannot be used to point outside of the configuration either.
+	 */
+	private static boolean isWithin(Path rootFolder, Path file) throws IOException {
+		if(!Files.exists(file)) {
+			return false;
+		}
+		return file.toRealPath().startsWith(rootFolder.toRealPath());
+	}
+
+	private Schema getSchema(SchemaKey key, Path xsd) throws SAXException {
+		Schema schema = schemaCache.get(key);
+		if(schema != null) {
+			return schema;
+		}
+
+		synchronized (schemaCache) {
+			schema = schemaCache.get(key);
+			if(schema == null) {
+				log.info("compiling schema [{}]", xsd);
+				schema = createSchemaFactory().newSchema(xsd.toFile());
+
+				// Remove previous versions of the same XSD, and the validators that have been created for them
+				schemaCache.keySet().removeIf(e -> e.location().equals(key.location()));
+				validatorPool.keySet().removeIf(e -> e.location().equals(key.location()) && !e.equals(key));
+				schemaCache.put(key, schema);
+			}
+			return schema;
+		}
+	}
+
+	/**
+	 * XSDs can be edited by users, don't allow them to access remote resources.
+	 */
+	private static SchemaFactory createSchemaFactory() throws SAXException {
+		SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+		factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+		factory.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+		factory.setProperty(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "file");
+		return factory;
+	}
+
+	private Validator borrowValidator(SchemaKey key, Schema schema) throws SAXException {
+		Queue<Validator> pool = validatorPool.get(key);
+		Validator validator = pool != null ? pool.poll() : null;
+		if(validator == null) {
+			validator = schema.newValidator();
+			// Schema locations in the validated files are not used
+			validator.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+			validator.setProperty(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+		}
+		return validator;
+	}
+
+	/**
+	 * Validators of outdated schemas are not returned to the pool. Validators are not reset, since that (also) removes
+	 * the access restrictions, each validation starts with a clean state and sets its own ErrorHandler.
+	 */
+	private void returnValidator(SchemaKey key, Validator validator) {
+		if(schemaCache.containsKey(key)) {
+			validatorPool.computeIfAbsent(key, e -> new ConcurrentLinkedQueue<>()).offer(validator);
+		}
+	}
+
+	public void clearCache() {
+		schemaCache.clear();
+		validatorPool.clear();
+	}
+
+	@Override
+	public void destroy() {
+		validationPool.shutdownNow();
+	}
+
+	private static class CollectingErrorHandler implements ErrorHandler {
+		private final ValidationResultDTO result;
+
+		public CollectingErrorHandler(ValidationResultDTO result) {
+			this.result = result;
+		}
+
+		@Override
+		public void warning(SAXParseException exception) {
+			add(Severity.WARNING, exception);
+		}
+
+		@Override
+		public void error(SAXParseException exception) {
+			add(Severity.ERROR, exception);
+		}
+
+		@Override
+		public void fatalError(SAXParseException exception) throws SAXException {
+			add(Severity.FATAL, exception);
+			throw exception;
+		}
+
+		private void add(Severity severity, SAXParseException exception) {
+			result.addError(new ValidationErrorDTO(severity, exception.getLineNumber(), exception.getColumnNumber(), exception.getMessage()));
+		}
+	}
+}
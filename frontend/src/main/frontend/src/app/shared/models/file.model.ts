@@ -11,6 +11,8 @@ export interface File {
   flowStructure?: FlowStructure;
   errors?: string[];
   saved?: boolean;
+  savedXml?: string;
+  eTag?: string;
   flowNeedsUpdate?: boolean;
   type: FileType;
   firstLoad?: boolean;
@@ -212,21 +212,99 @@ export class CurrentFileService {
 
   save(): void {
     if (this.fileCanBeSaved()) {
-      this.fileService
-        .updateFileForConfiguration(
-          this.currentFile.configuration,
-          this.currentFile.path,
-          this.currentFile.xml!
-        )
-        .then((response) =>
-          response.ok ? this.saveFileSuccessfully() : response.json()
-        )
-        .then((body) => {
-          this.saveFileFailed(body);
-        });
+      const file = { ...this.currentFile };
+      this.patchFile(file).then((response) => {
+        if (response?.ok) {
+          this.saveFileSuccessfully(response, file, true);
+        } else if (response?.status === 412) {
+          this.saveFileConflicted(file);
+        } else if (this.patchCanNotBeApplied(response)) {
+          this.saveWholeFile(file).then((wholeFileResponse) =>
+            wholeFileResponse.ok
+              ? this.saveFileSuccessfully(wholeFileResponse, file, false)
+              : this.saveFileFailed(wholeFileResponse)
+          );
+        } else {
+          this.saveFileFailed(response!);
+        }
+      });
     }
   }
 
+  /**
+   * The whole file is only sent when the patch can't be applied at all, never when the file has been changed by someone
+   * else (412), that would overwrite their change.
+   */
+  patchCanNotBeApplied(response: Response | undefined): boolean {
+    return (
+      response === undefined ||
+      response.status === 415 ||
+      response.status === 428
+    );
+  }
+
+  /**
+   * Only sends the changed part of the file, based on the version that has been loaded or saved last.
+   * Resolves to undefined when that version is not known.
+   */
+  patchFile(file: File): Promise<Response | undefined> {
+    if (file.eTag === undefined || file.savedXml === undefined) {
+      return Promise.resolve();
+    }
+    return this.fileService.patchFileForConfiguration(
+      file.configuration,
+      file.path,
+      file.eTag,
+      [this.getChangedRange(file.savedXml, file.xml!)]
+    );
+  }
+
+  saveWholeFile(file: File): Promise<Response> {
+    return this.fileService.updateFileForConfiguration(
+      file.configuration,
+      file.path,
+      file.xml!
+    );
+  }
+
+  getChangedRange(
+    original: string,
+    changed: string
+  ): { offset: number; length: number; text: string } {
+    const maxLength = Math.min(original.length, changed.length);
+    let start = 0;
+    while (start < maxLength && original[start] === changed[start]) {
+      start++;
+    }
+    if (start > 0 && this.isHighSurrogate(original.charCodeAt(start - 1))) {
+      start--;
+    }
+
+    let end = 0;
+    while (
+      end < maxLength - start &&
+      original[original.length - 1 - end] === changed[changed.length - 1 - end]
+    ) {
+      end++;
+    }
+    if (
+      end > 0 &&
+      this.isHighSurrogate(original.charCodeAt(original.length - 1 - end))
+    ) {
+      end--;
+    }
+
+    return {
+      offset: start,
+      length: original.length - start - end,
+      text: changed.slice(start, changed.length - end),
+    };
+  }
+
+  isHighSurrogate(charCode: number): boolean {
+    return charCode >= 0xD8_00 && charCode <= 0xDB_FF;
+  }
+
   fileCanBeSaved(): boolean {
     return <boolean>(
       (this.currentFile &&
@@ -237,18 +315,70 @@ export class CurrentFileService {
     );
   }
 
-  saveFileSuccessfully(): void {
+  saveFileSuccessfully(
+    response: Response,
+    savedFile: File,
+    patched: boolean
+  ): void {
     this.toastr.success(
       `The file ${this.currentFile.path} has been saved.`,
       'File saved!'
     );
+    if (
+      this.currentFile.configuration === savedFile.configuration &&
+      this.currentFile.path === savedFile.path
+    ) {
+      this.currentFile.eTag = response.headers.get('ETag') ?? undefined;
+      this.currentFile.savedXml = savedFile.xml;
+      if (!patched) {
+        // The server may change the content when the whole file is saved (eg. format on save), a patch is applied as-is
+        this.fetchSavedVersion(savedFile);
+      }
+    }
     this.currentFile.saved = true;
     this.currentFile.flowNeedsUpdate = false;
     this.updateCurrentFile(this.currentFile);
   }
 
-  saveFileFailed(response: any): void {
-    this.toastr.error(response.error, 'Error saving');
+  /**
+   * Reads the version that has been saved, so the next save can be sent as a patch again.
+   */
+  fetchSavedVersion(savedFile: File): void {
+    let eTag: string | undefined;
+    this.fileService
+      .getFileFromConfiguration(savedFile.configuration, savedFile.path)
+      .then((response) => {
+        eTag = response.headers.get('ETag') ?? undefined;
+        return response.ok ? response.text() : undefined;
+      })
+      .then((content) => {
+        if (
+          content !== undefined &&
+          this.currentFile.configuration === savedFile.configuration &&
+          this.currentFile.path === savedFile.path
+        ) {
+          this.currentFile.eTag = eTag;
+          this.currentFile.savedXml = content;
+        }
+      });
+  }
+
+  saveFileConflicted(file: File): void {
+    this.toastr.error(
+      `The file ${file.path} has been changed by someone else, it has been reloaded. Your changes have not been saved.`,
+      'Conflict saving',
+      {
+        disableTimeOut: true,
+      }
+    );
+    this.fetchFileAndSetToCurrent(file);
+  }
+
+  saveFileFailed(response: Response): void {
+    response
+      .json()
+      .catch(() => ({ error: response.statusText }))
+      .then((body) => this.toastr.error(body.error, 'Error saving'));
   }
 
   updateCurrentFile(file: File): void {
@@ -313,16 +443,18 @@ export class CurrentFileService {
   }
 
   fetchFileAndSetToCurrent(file: File): void {
+    let eTag: string | undefined;
     this.fileService
       .getFileFromConfiguration(file.configuration, file.path)
-      .then((response) =>
-        response.status === 500 ? response.json() : response.text()
-      )
+      .then((response) => {
+        eTag = response.headers.get('ETag') ?? undefined;
+        return response.status === 500 ? response.json() : response.text();
+      })
       .then((result) => {
         result
           ? result?.error
             ? this.showFetchingErrorMessage(result.error)
-            : this.setNewCurrentFile(file, result)
+            : this.setNewCurrentFile(file, result, eTag)
           : this.showFileNotFountMessage(file);
       });
   }
@@ -345,12 +477,14 @@ export class CurrentFileService {
     });
   }
 
-  setNewCurrentFile(file: File, content: string): void {
+  setNewCurrentFile(file: File, content: string, eTag?: string): void {
     const currentFile = {
       type: FileType.FILE,
       configuration: file.configuration,
       path: file.path,
       xml: content,
+      savedXml: content,
+      eTag,
       saved: true,
       flowNeedsUpdate: true,
       firstLoad: true,
@@ -129,6 +129,25 @@ export class FileService {
     );
   }
 
+  patchFileForConfiguration(
+    configuration: string,
+    path: string,
+    baseETag: string,
+    edits: { offset: number; length: number; text: string }[]
+  ): Promise<Response> {
+    return fetch(
+      `${this.apiConfigurationsUrl}/${configuration}/files/?path=${path}`,
+      {
+        method: 'PATCH',
+        headers: {
+          'Content-Type': 'application/json',
+          'If-Match': baseETag,
+        },
+        body: JSON.stringify({ edits }),
+      }
+    );
+  }
+
   removeFileForConfiguration(
     configuration: string,
     path: string
@@ -155,10 +174,11 @@ export class FileService {
 
   removeDirectoryForConfiguration(
     configuration: string,
-    path: string
+    path: string,
+    recursive = false
   ): Promise<Response> {
     return fetch(
-      `${this.apiConfigurationsUrl}/${configuration}/directories/?path=${path}`,
+      `${this.apiConfigurationsUrl}/${configuration}/directories/?path=${path}&recursive=${recursive}`,
       {
         method: 'DELETE',
       }
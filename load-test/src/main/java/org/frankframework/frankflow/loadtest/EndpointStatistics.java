@@ -0,0 +1,69 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Records the latencies of a single endpoint. Latencies are kept in full (as nanoseconds),
+ * so exact percentiles can be calculated once the test has finished.
+ */
+public class EndpointStatistics {
+	private final String name;
+	private long[] latencies = new long[1024];
+	private int count = 0;
+	private int errors = 0;
+
+	public EndpointStatistics(String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public synchronized void record(long latencyNanos, boolean success) {
+		if(count == latencies.length) {
+			latencies = Arrays.copyOf(latencies, count * 2);
+		}
+		latencies[count++] = latencyNanos;
+		if(!success) {
+			errors++;
+		}
+	}
+
+	public synchronized int getCount() {
+		return count;
+	}
+
+	public synchronized int getErrors() {
+		return errors;
+	}
+
+	/**
+	 * @param percentile between 0 and 100
+	 * @return the latency in milliseconds
+	 */
+	public synchronized double getPercentile(double percentile) {
+		if(count == 0) {
+			return 0;
+		}
+		long[] sorted = Arrays.copyOf(latencies, count);
+		Arrays.sort(sorted);
+		int index = (int) Math.ceil(percentile / 100 * count) - 1;
+		return sorted[Math.max(0, Math.min(count - 1, index))] / 1_000_000d;
+	}
+}
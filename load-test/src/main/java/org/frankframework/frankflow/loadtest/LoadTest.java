@@ -0,0 +1,178 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.frankframework.frankflow.loadtest.SyntheticConfigurations.Configuration;
+import org.frankframework.frankflow.loadtest.VirtualUser.Action;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Starts Frank!Flow in standalone mode (using the {@code LocalGateway}) on a generated set of configurations, and lets a
+ * number of virtual users edit them concurrently. Reports the latency percentiles and throughput per endpoint.
+ * <p>
+ * Run with <code>mvn -Pload-test install</code> and <code>mvn -Pload-test -pl load-test exec:java -Dexec.args="--users=50"</code>.
+ * The following arguments are supported:
+ * <ul>
+ * <li><code>--users</code> number of concurrent virtual users, defaults to <code>20</code></li>
+ * <li><code>--duration</code> measured duration in seconds, defaults to <code>60</code></li>
+ * <li><code>--warmup</code> duration in seconds before measuring starts, defaults to <code>10</code></li>
+ * <li><code>--think-time</code> average time in milliseconds between two requests of a user, defaults to <code>200</code></li>
+ * <li><code>--configurations</code> number of generated configurations, defaults to <code>5</code></li>
+ * <li><code>--files</code> number of files per configuration, defaults to <code>50</code></li>
+ * <li><code>--adapters</code> number of adapters per file, defaults to <code>10</code></li>
+ * <li><code>--cookies</code> whether users retain cookies (like a browser), defaults to <code>true</code></li>
+ * <li><code>--directory</code> where the configurations (and history) are generated, defaults to a temporary directory. An existing
+ * <code>configurations</code> directory in it must be empty, it's never removed</li>
+ * <li><code>--url</code> test an already running instance instead, which must use the generated configurations</li>
+ * </ul>
+ * Other <code>--key=value</code> arguments are passed on to the application.
+ * </p>
+ */
+public class LoadTest {
+	private static final Set<String> OPTIONS = Set.of("users", "duration", "warmup", "think-time", "configurations", "files", "adapters", "cookies", "url", "directory");
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new HashMap<>();
+		List<String> applicationArgs = new ArrayList<>();
+		for(String arg : args) {
+			int separator = arg.indexOf('=');
+			String key = arg.startsWith("--") && separator > 0 ? arg.substring(2, separator) : null;
+			if(key != null && OPTIONS.contains(key)) {
+				options.put(key, arg.substring(separator + 1));
+			} else {
+				applicationArgs.add(arg);
+			}
+		}
+
+		int users = Integer.parseInt(options.getOrDefault("users", "20"));
+		int duration = Integer.parseInt(options.getOrDefault("duration", "60"));
+		int warmup = Integer.parseInt(options.getOrDefault("warmup", "10"));
+		long thinkTime = Long.parseLong(options.getOrDefault("think-time", "200"));
+		boolean cookies = Boolean.parseBoolean(options.getOrDefault("cookies", "true"));
+		SyntheticConfigurations generator = new SyntheticConfigurations(
+				Integer.parseInt(options.getOrDefault("configurations", "5")),
+				Integer.parseInt(options.getOrDefault("files", "50")),
+				Integer.parseInt(options.getOrDefault("adapters", "10")));
+
+		Path directory = options.containsKey("directory") ? Path.of(options.get("directory")) : Files.createTempDirectory("frank-flow-load-test");
+		Path configurationsDirectory = directory.resolve("configurations");
+		if(!isEmptyOrAbsent(configurationsDirectory)) {
+			System.err.println("directory [" + configurationsDirectory + "] is not empty, remove it or use another --directory");
+			System.exit(1);
+		}
+		List<Configuration> configurations = generator.generate(configurationsDirectory);
+		for(Configuration configuration : configurations) {
+			Files.createDirectories(configurationsDirectory.resolve(configuration.name()).resolve("users"));
+		}
+		System.out.println("generated " + configurations.size() + " configurations in [" + configurationsDirectory + "]");
+
+		ConfigurableApplicationContext context = null;
+		URI baseUri;
+		if(options.containsKey("url")) {
+			baseUri = URI.create(options.get("url"));
+		} else {
+			applicationArgs.add("--configurations.directory=" + configurationsDirectory);
+			applicationArgs.add("--frank-flow.port=0");
+			applicationArgs.add("--frank-flow.history.directory=" + directory.resolve("history"));
+			context = start(applicationArgs.toArray(new String[0]));
+			int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+			baseUri = URI.create("http://localhost:" + port + "/");
+		}
+
+		try {
+			run(baseUri, configurations, generator.createConfiguration("User", 0), users, warmup, duration, thinkTime, cookies);
+		} finally {
+			if(context != null) {
+				context.close();
+			}
+		}
+	}
+
+	private static boolean isEmptyOrAbsent(Path directory) throws IOException {
+		if(!Files.exists(directory)) {
+			return true;
+		}
+		try (Stream<Path> children = Files.list(directory)) {
+			return children.findAny().isEmpty();
+		}
+	}
+
+	static ConfigurableApplicationContext start(String[] args) {
+		SpringApplication app = new SpringApplication();
+		app.setWebApplicationType(WebApplicationType.SERVLET);
+		app.setSources(Set.of("SpringBootContext.xml"));
+		return app.run(args);
+	}
+
+	private static void run(URI baseUri, List<Configuration> configurations, String template, int users, int warmup, int duration, long thinkTime, boolean cookies) throws IOException, InterruptedException {
+		Map<Action, EndpointStatistics> statistics = new EnumMap<>(Action.class);
+		for(Action action : Action.values()) {
+			statistics.put(action, new EndpointStatistics(action.getEndpoint()));
+		}
+
+		long start = System.nanoTime();
+		long measureFrom = start + TimeUnit.SECONDS.toNanos(warmup);
+		long deadline = measureFrom + TimeUnit.SECONDS.toNanos(duration);
+
+		List<Thread> threads = new ArrayList<>();
+		for(int i = 0; i < users; i++) {
+			VirtualUser user = new VirtualUser(i, baseUri, configurations, statistics, measureFrom, deadline, thinkTime, cookies, template);
+			user.setup();
+			Thread thread = new Thread(user, "virtual-user-" + i);
+			threads.add(thread);
+		}
+		System.out.println("starting " + users + " virtual users against [" + baseUri + "], warmup " + warmup + "s, duration " + duration + "s");
+		threads.forEach(Thread::start);
+		for(Thread thread : threads) {
+			thread.join();
+		}
+
+		report(System.out, statistics.values(), duration);
+	}
+
+	private static void report(PrintStream out, Iterable<EndpointStatistics> statistics, int duration) {
+		String format = "%-48s %8s %7s %9s %9s %9s %9s %9s%n";
+		out.println();
+		out.printf(format, "endpoint", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms");
+		int total = 0;
+		int errors = 0;
+		for(EndpointStatistics endpoint : statistics) {
+			total += endpoint.getCount();
+			errors += endpoint.getErrors();
+			out.printf(format, endpoint.getName(), endpoint.getCount(), endpoint.getErrors(), "%.1f".formatted(endpoint.getCount() / (double) duration),
+					"%.2f".formatted(endpoint.getPercentile(50)), "%.2f".formatted(endpoint.getPercentile(90)),
+					"%.2f".formatted(endpoint.getPercentile(99)), "%.2f".formatted(endpoint.getPercentile(100)));
+		}
+		out.printf(format, "total", total, errors, "%.1f".formatted(total / (double) duration), "", "", "", "");
+	}
+}
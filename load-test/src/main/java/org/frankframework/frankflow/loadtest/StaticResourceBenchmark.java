@@ -0,0 +1,167 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.web.FilterChainProxy;
+import org.springframework.security.web.FilterChainProxy.FilterChainDecorator;
+import org.springframework.security.web.FilterChainProxy.VirtualFilterChainDecorator;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+
+/**
+ * Measures the latency of requests for a static frontend resource and an API endpoint, lists the security filters that are
+ * applied to each of them and the time spent in those filters (from entering the {@link FilterChainProxy} until the servlet
+ * is invoked). Run it before and after a change to the security chain to compare.
+ * <p>
+ * Run with <code>mvn -Pload-test -pl load-test exec:java -Dexec.mainClass=org.frankframework.frankflow.loadtest.StaticResourceBenchmark</code>.
+ * The following arguments are supported:
+ * <ul>
+ * <li><code>--requests</code> number of measured requests per path, defaults to <code>20000</code></li>
+ * <li><code>--threads</code> number of concurrent clients, defaults to <code>8</code></li>
+ * <li><code>--path</code> the static resource, defaults to <code>/index.html</code></li>
+ * <li><code>--api-path</code> the API endpoint, defaults to <code>/api/configurations</code></li>
+ * </ul>
+ * </p>
+ */
+public class StaticResourceBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new HashMap<>();
+		for(String arg : args) {
+			int separator = arg.indexOf('=');
+			if(arg.startsWith("--") && separator > 0) {
+				options.put(arg.substring(2, separator), arg.substring(separator + 1));
+			}
+		}
+		int requests = Integer.parseInt(options.getOrDefault("requests", "20000"));
+		int threads = Integer.parseInt(options.getOrDefault("threads", "8"));
+		List<String> paths = List.of(options.getOrDefault("path", "/index.html"), options.getOrDefault("api-path", "/api/configurations"));
+
+		Path directory = Files.createTempDirectory("frank-flow-benchmark");
+		new SyntheticConfigurations(1, 1, 1).generate(directory.resolve("configurations"));
+		ConfigurableApplicationContext context = LoadTest.start(new String[] {
+				"--configurations.directory=" + directory.resolve("configurations"),
+				"--frank-flow.port=0",
+				"--frank-flow.history.enabled=false",
+				"--logging.level.root=WARN"
+		});
+
+		try {
+			int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+			URI baseUri = URI.create("http://localhost:" + port);
+			FilterChainProxy filterChainProxy = context.getBean(FilterChainProxy.class);
+			SecurityTimer timer = new SecurityTimer();
+			filterChainProxy.setFilterChainDecorator(timer);
+
+			List<EndpointStatistics> results = new ArrayList<>();
+			List<EndpointStatistics> securityResults = new ArrayList<>();
+			for(String path : paths) {
+				List<Filter> filters = filterChainProxy.getFilters(path);
+				System.out.println("security filters for [" + path + "]: " + filters.stream().map(f -> f.getClass().getSimpleName()).toList());
+
+				timer.statistics = new EndpointStatistics(path);
+				run(baseUri.resolve(path), requests / 4, threads); // Warm up
+				timer.statistics = new EndpointStatistics(path);
+				results.add(run(baseUri.resolve(path), requests, threads));
+				securityResults.add(timer.statistics);
+			}
+
+			String format = "%-30s %8s %7s %9s %9s %9s %13s %13s%n";
+			System.out.println();
+			System.out.printf(format, "path", "requests", "errors", "p50 ms", "p90 ms", "p99 ms", "security p50", "security p99");
+			for(int i = 0; i < results.size(); i++) {
+				EndpointStatistics result = results.get(i);
+				EndpointStatistics security = securityResults.get(i);
+				System.out.printf(format, result.getName(), result.getCount(), result.getErrors(), "%.3f".formatted(result.getPercentile(50)),
+						"%.3f".formatted(result.getPercentile(90)), "%.3f".formatted(result.getPercentile(99)),
+						"%.1f us".formatted(security.getPercentile(50) * 1000), "%.1f us".formatted(security.getPercentile(99) * 1000));
+			}
+		} finally {
+			context.close();
+		}
+	}
+
+	/**
+	 * Records the time between the start of the security filters and the invocation of the servlet.
+	 */
+	private static class SecurityTimer implements FilterChainDecorator {
+		private final FilterChainDecorator delegate = new VirtualFilterChainDecorator();
+		private volatile EndpointStatistics statistics;
+
+		@Override
+		public FilterChain decorate(FilterChain original) {
+			return delegate.decorate(original);
+		}
+
+		@Override
+		public FilterChain decorate(FilterChain original, List<Filter> filters) {
+			long start = System.nanoTime();
+			EndpointStatistics current = statistics;
+			return delegate.decorate((request, response) -> {
+				current.record(System.nanoTime() - start, true);
+				original.doFilter(request, response);
+			}, filters);
+		}
+	}
+
+	private static EndpointStatistics run(URI uri, int requests, int threads) throws InterruptedException {
+		EndpointStatistics statistics = new EndpointStatistics(uri.getPath());
+		AtomicInteger remaining = new AtomicInteger(requests);
+		HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+
+		List<Thread> clients = new ArrayList<>();
+		for(int i = 0; i < threads; i++) {
+			HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).connectTimeout(Duration.ofSeconds(10)).build();
+			clients.add(new Thread(() -> {
+				while(remaining.getAndDecrement() > 0) {
+					long start = System.nanoTime();
+					boolean success;
+					try {
+						success = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() < 400;
+					} catch (IOException e) {
+						success = false;
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+					statistics.record(System.nanoTime() - start, success);
+				}
+			}, "benchmark-client-" + i));
+		}
+		clients.forEach(Thread::start);
+		for(Thread client : clients) {
+			client.join();
+		}
+		return statistics;
+	}
+}
@@ -0,0 +1,97 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.loadtest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates a set of configurations with (nested) folders and Frank!Configuration files of a realistic size.
+ * Uses a fixed seed so every run generates the same set.
+ */
+public class SyntheticConfigurations {
+	private final int configurations;
+	private final int filesPerConfiguration;
+	private final int adaptersPerFile;
+	private final Random random = new Random(42);
+
+	public SyntheticConfigurations(int configurations, int filesPerConfiguration, int adaptersPerFile) {
+		this.configurations = configurations;
+		this.filesPerConfiguration = filesPerConfiguration;
+		this.adaptersPerFile = adaptersPerFile;
+	}
+
+	/**
+	 * @return the (relative) paths of all generated files, per configuration name.
+	 */
+	public List<Configuration> generate(Path directory) throws IOException {
+		List<Configuration> result = new ArrayList<>();
+		for(int c = 0; c < configurations; c++) {
+			String name = "LoadTest" + c;
+			Path root = Files.createDirectories(directory.resolve(name));
+			List<String> files = new ArrayList<>();
+
+			files.add(write(root, "Configuration.xml", createConfiguration(name, 0)));
+			for(int f = 1; f < filesPerConfiguration; f++) {
+				String folder = "adapters/group" + (f % 5) + (f % 3 == 0 ? "/nested" : "");
+				files.add(write(root, folder + "/Adapter" + f + ".xml", createConfiguration(name, f)));
+			}
+			write(root, "DeploymentSpecifics.properties", "configurations." + name + ".classLoaderType=DirectoryClassLoader\n");
+			result.add(new Configuration(name, files));
+		}
+		return result;
+	}
+
+	private static String write(Path root, String path, String content) throws IOException {
+		Path file = root.resolve(path);
+		Files.createDirectories(file.getParent());
+		Files.writeString(file, content, StandardCharsets.UTF_8);
+		return path;
+	}
+
+	String createConfiguration(String name, int index) {
+		StringBuilder xml = new StringBuilder();
+		xml.append("<Configuration name=\"").append(name).append("\">\n");
+		for(int a = 0; a < adaptersPerFile; a++) {
+			String adapter = "Adapter" + index + "_" + a;
+			int pipes = 3 + random.nextInt(8);
+			xml.append("\t<Adapter name=\"").append(adapter).append("\" description=\"Generated adapter for load testing\">\n");
+			xml.append("\t\t<Receiver name=\"").append(adapter).append("Receiver\">\n");
+			xml.append("\t\t\t<JavaListener name=\"").append(adapter).append("Listener\"/>\n");
+			xml.append("\t\t</Receiver>\n");
+			xml.append("\t\t<Pipeline firstPipe=\"Pipe0\">\n");
+			xml.append("\t\t\t<Exits>\n\t\t\t\t<Exit name=\"EXIT\" state=\"SUCCESS\"/>\n\t\t\t</Exits>\n");
+			for(int p = 0; p < pipes; p++) {
+				String next = p == pipes - 1 ? "EXIT" : "Pipe" + (p + 1);
+				xml.append("\t\t\t<XsltPipe name=\"Pipe").append(p).append("\" styleSheetName=\"xsl/Transform").append(p).append(".xsl\" x=\"")
+						.append(100 + p * 250).append("\" y=\"").append(200 + random.nextInt(400)).append("\">\n");
+				xml.append("\t\t\t\t<Forward name=\"success\" path=\"").append(next).append("\"/>\n");
+				xml.append("\t\t\t</XsltPipe>\n");
+			}
+			xml.append("\t\t</Pipeline>\n");
+			xml.append("\t</Adapter>\n");
+		}
+		xml.append("</Configuration>\n");
+		return xml.toString();
+	}
+
+	public record Configuration(String name, List<String> files) {}
+}
@@ -0,0 +1,286 @@
+/*
+   Copyright 2024 WeAreFrank!
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+       http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+*/
+package org.frankframework.frankflow.loadtest;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import org.frankframework.frankflow.loadtest.SyntheticConfigurations.Configuration;
+
+/**
+ * Simulates a single user of the editor: opens the tree of a configuration, reads files, autosaves and renames its own file.
+ * Each user has its own {@link HttpClient}, and thus its own connection(s) and (optionally) cookies, like a browser would.
+ * Like the editor, autosaves only send the changed range, based on the version that has been read or saved last.
+ */
+public class VirtualUser implements Runnable {
+
+	enum Action {
+		LIST_CONFIGURATIONS("GET /configurations", 2),
+		OPEN_TREE("GET /configurations/{name}", 5),
+		LIST_DIRECTORY("GET /configurations/{name}/directories", 5),
+		READ_FILE("GET /configurations/{name}/files", 50),
+		AUTOSAVE("PATCH /configurations/{name}/files (edits)", 30),
+		RENAME("PATCH /configurations/{name}/files (rename)", 3);
+
+		private final String endpoint;
+		private final int weight;
+
+		Action(String endpoint, int weight) {
+			this.endpoint = endpoint;
+			this.weight = weight;
+		}
+
+		public String getEndpoint() {
+			return endpoint;
+		}
+	}
+
+	private static final int TOTAL_WEIGHT = List.of(Action.values()).stream().mapToInt(e -> e.weight).sum();
+
+	private final int id;
+	private final URI baseUri;
+	private final List<Configuration> configurations;
+	private final Map<Action, EndpointStatistics> statistics;
+	private final long measureFrom;
+	private final long deadline;
+	private final long thinkTime;
+	private final HttpClient client;
+	private final Random random;
+
+	private final Configuration home;
+	private final String template;
+	private String ownFile;
+	private String savedContent;
+	private String eTag;
+	private int saves = 0;
+
+	public VirtualUser(int id, URI baseUri, List<Configuration> configurations, Map<Action, EndpointStatistics> statistics, long measureFrom, long deadline, long thinkTime, boolean cookies, String template) {
+		this.id = id;
+		this.baseUri = baseUri;
+		this.configurations = configurations;
+		this.statistics = statistics;
+		this.measureFrom = measureFrom;
+		this.deadline = deadline;
+		this.thinkTime = thinkTime;
+		this.random = new Random(id);
+		this.home = configurations.get(id % configurations.size());
+		this.template = template;
+		this.ownFile = getOwnFile(false);
+
+		HttpClient.Builder builder = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10));
+		if(cookies) {
+			builder.cookieHandler(new CookieManager());
+		}
+		this.client = builder.build();
+	}
+
+	private String getOwnFile(boolean renamed) {
+		return "users/user-" + id + (renamed ? "-renamed" : "") + ".xml";
+	}
+
+	/**
+	 * Creates the file this user will autosave and rename, not measured.
+	 */
+	public void setup() throws IOException, InterruptedException {
+		send(post(home.name(), "/files?path=" + encode(ownFile), multipart("file", template)));
+		reload();
+	}
+
+	/**
+	 * Reads the own file and its ETag, like the editor does when it opens the file or after a conflict.
+	 */
+	private boolean reload() throws IOException, InterruptedException {
+		HttpResponse<String> response = client.send(HttpRequest.newBuilder(resolve("/api/configurations/" + home.name() + "/files?path=" + encode(ownFile))).GET().build(), BodyHandlers.ofString());
+		if(response.statusCode() != 200) {
+			return false;
+		}
+		savedContent = response.body();
+		eTag = response.headers().firstValue("ETag").orElse(null);
+		return true;
+	}
+
+	@Override
+	public void run() {
+		while(System.nanoTime() < deadline) {
+			Action action = nextAction();
+			long start = System.nanoTime();
+			boolean success;
+			try {
+				success = perform(action);
+			} catch (IOException e) {
+				success = false;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			long end = System.nanoTime();
+			if(start >= measureFrom && end <= deadline) {
+				statistics.get(action).record(end - start, success);
+			}
+
+			if(thinkTime > 0) {
+				try {
+					Thread.sleep(random.nextLong(thinkTime / 2, thinkTime * 3 / 2 + 1));
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+
+	private Action nextAction() {
+		int value = random.nextInt(TOTAL_WEIGHT);
+		for(Action action : Action.values()) {
+			value -= action.weight;
+			if(value < 0) {
+				return action;
+			}
+		}
+		return Action.READ_FILE;
+	}
+
+	private boolean perform(Action action) throws IOException, InterruptedException {
+		Configuration configuration = random.nextInt(4) == 0 ? configurations.get(random.nextInt(configurations.size())) : home;
+		return switch (action) {
+		case LIST_CONFIGURATIONS -> send(get("/api/configurations"));
+		case OPEN_TREE -> send(get("/api/configurations/" + configuration.name()));
+		case LIST_DIRECTORY -> send(get("/api/configurations/" + configuration.name() + "/directories?path=adapters&depth=2"));
+		case READ_FILE -> {
+			String file = configuration.files().get(random.nextInt(configuration.files().size()));
+			yield send(get("/api/configurations/" + configuration.name() + "/files?path=" + encode(file)));
+		}
+		case AUTOSAVE -> {
+			if(eTag == null && !reload()) {
+				yield false;
+			}
+			String content = template.replace("</Configuration>", "<!-- autosave " + (++saves) + " -->\n</Configuration>");
+			HttpRequest request = HttpRequest.newBuilder(resolve("/api/configurations/" + home.name() + "/files?path=" + encode(ownFile)))
+					.header("Content-Type", "application/json")
+					.header("If-Match", eTag)
+					.method("PATCH", BodyPublishers.ofString(getEdits(savedContent, content), StandardCharsets.UTF_8))
+					.build();
+			HttpResponse<byte[]> response = client.send(request, BodyHandlers.ofByteArray());
+			if(response.statusCode() == 200) {
+				savedContent = content;
+				eTag = response.headers().firstValue("ETag").orElse(null);
+				yield true;
+			}
+			eTag = null; // Eg. a conflict, the editor reloads the file
+			yield false;
+		}
+		case RENAME -> {
+			boolean renamed = ownFile.equals(getOwnFile(false));
+			String newName = getOwnFile(renamed).substring("users/".length());
+			HttpRequest request = HttpRequest.newBuilder(resolve("/api/configurations/" + home.name() + "/files?path=" + encode(ownFile)))
+					.header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+					.method("PATCH", multipart("newName", newName))
+					.build();
+			boolean success = send(request);
+			if(success) {
+				ownFile = getOwnFile(renamed);
+			}
+			yield success;
+		}
+		};
+	}
+
+	private static final String BOUNDARY = UUID.randomUUID().toString();
+
+	/**
+	 * A single edit that replaces the changed range, computed the same way as the editor does.
+	 */
+	private static String getEdits(String original, String changed) {
+		int maxLength = Math.min(original.length(), changed.length());
+		int start = 0;
+		while(start < maxLength && original.charAt(start) == changed.charAt(start)) {
+			start++;
+		}
+		int end = 0;
+		while(end < maxLength - start && original.charAt(original.length() - 1 - end) == changed.charAt(changed.length() - 1 - end)) {
+			end++;
+		}
+		String text = changed.substring(start, changed.length() - end);
+		return "{\"edits\":[{\"offset\":" + start + ",\"length\":" + (original.length() - start - end) + ",\"text\":\"" + escape(text) + "\"}]}";
+	}
+
+	private static String escape(String value) {
+		StringBuilder builder = new StringBuilder(value.length());
+		for(char c : value.toCharArray()) {
+			switch (c) {
+			case '"' -> builder.append("\\\"");
+			case '\\' -> builder.append("\\\\");
+			case '\n' -> builder.append("\\n");
+			case '\r' -> builder.append("\\r");
+			case '\t' -> builder.append("\\t");
+			default -> {
+				if(c < 0x20) {
+					builder.append("\\u%04x".formatted((int) c));
+				} else {
+					builder.append(c);
+				}
+			}
+			}
+		}
+		return builder.toString();
+	}
+
+	private static BodyPublisher multipart(String name, String value) {
+		String body = "--" + BOUNDARY + "\r\n"
+				+ "Content-Disposition: form-data; name=\"" + name + "\"\r\n\r\n"
+				+ value + "\r\n"
+				+ "--" + BOUNDARY + "--\r\n";
+		return BodyPublishers.ofString(body, StandardCharsets.UTF_8);
+	}
+
+	private URI resolve(String path) {
+		return baseUri.resolve(path);
+	}
+
+	private HttpRequest get(String path) {
+		return HttpRequest.newBuilder(resolve(path)).header("Accept-Encoding", "gzip, deflate").GET().build();
+	}
+
+	private HttpRequest post(String configuration, String path, BodyPublisher body) {
+		return HttpRequest.newBuilder(resolve("/api/configurations/" + configuration + path))
+				.header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+				.POST(body)
+				.build();
+	}
+
+	private boolean send(HttpRequest request) throws IOException, InterruptedException {
+		HttpResponse<byte[]> response = client.send(request, BodyHandlers.ofByteArray());
+		return response.statusCode() < 400;
+	}
+
+	private static String encode(String value) {
+		return URLEncoder.encode(value, StandardCharsets.UTF_8);
+	}
+}